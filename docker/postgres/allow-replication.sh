@@ -0,0 +1,4 @@
+#!/bin/bash
+# Lets the read replica stream the WAL from this primary (runs once, when the data directory is created)
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,76 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.benchmark;
+
+import com.ignite.gymmanagement.dto.GymClassRequestDto;
+import com.ignite.gymmanagement.model.GymClass;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic data sets shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    static final LocalDate FIRST_DAY = LocalDate.now().plusDays(1);
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Classes spread over ten years, each running for up to a month at a random quarter hour between 06:00 and 22:00.
+     */
+    static List<GymClass> randomClasses(int count, long seed) {
+        Random random = new Random(seed);
+        List<GymClass> classes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            GymClassRequestDto request = randomClassRequest(random);
+            classes.add(GymClass.builder()
+                    .name(request.getName())
+                    .capacity(request.getCapacity())
+                    .startDate(request.getStartDate())
+                    .endDate(request.getEndDate())
+                    .startTime(request.getStartTime())
+                    .duration(request.getDuration())
+                    .build());
+        }
+        return classes;
+    }
+
+    static GymClassRequestDto randomClassRequest(Random random) {
+        LocalDate startDate = FIRST_DAY.plusDays(random.nextInt(3650));
+        return GymClassRequestDto.builder()
+                .name("Class " + random.nextInt(1000))
+                .capacity(20)
+                .startDate(startDate)
+                .endDate(startDate.plusDays(random.nextInt(31)))
+                .startTime(LocalTime.of(6 + random.nextInt(16), random.nextInt(4) * 15))
+                .duration(15 + random.nextInt(4) * 15)
+                .build();
+    }
+
+    /**
+     * A class with room for every booking a benchmark run can make, so the booking paths never hit the full-class shortcut.
+     */
+    static GymClassRequestDto unlimitedClassRequest() {
+        return GymClassRequestDto.builder()
+                .name("Benchmark Class")
+                .capacity(Integer.MAX_VALUE)
+                .startDate(FIRST_DAY)
+                .endDate(FIRST_DAY.plusYears(20))
+                .startTime(LocalTime.of(4, 0))
+                .duration(30)
+                .build();
+    }
+
+    static String memberName(int member) {
+        return String.format("Member %05d", member);
+    }
+}
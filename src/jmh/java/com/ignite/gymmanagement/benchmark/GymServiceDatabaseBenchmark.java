@@ -0,0 +1,143 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.benchmark;
+
+import com.ignite.gymmanagement.AbcfitnessIgniteGymmanagementApplication;
+import com.ignite.gymmanagement.dto.ClassBookingRequestDto;
+import com.ignite.gymmanagement.dto.ClassBookingResponseDto;
+import com.ignite.gymmanagement.index.MemberNameIndex;
+import com.ignite.gymmanagement.service.GymService;
+import com.ignite.gymmanagement.util.GenericResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GymService hot paths through the full Spring context (transactions, bulkhead, JPA) on an in-memory H2 database
+ * in PostgreSQL mode. The booking table is seeded with {@code bookingRows} rows before measuring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class GymServiceDatabaseBenchmark {
+
+    private static final int MEMBERS = 10_000;
+    private static final int SEARCH_DAYS = 365;
+    private static final long SEED_ID_OFFSET = 1_000_000_000L; // Clear of the ids Hibernate allocates
+    private static final int INSERT_CHUNK = 10_000;
+
+    @Param("1000000")
+    private int bookingRows;
+
+    private ConfigurableApplicationContext context;
+    private GymService gymService;
+    private ClassBookingRequestDto bookingRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        context = new SpringApplicationBuilder(AbcfitnessIgniteGymmanagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("benchmark")
+                .run();
+        gymService = context.getBean(GymService.class);
+
+        Long bookedClassId = gymService.createClass(BenchmarkData.unlimitedClassRequest()).getData().getId();
+        bookingRequest = ClassBookingRequestDto.builder()
+                .gymClassId(bookedClassId)
+                .memberName(BenchmarkData.memberName(1))
+                .participationDate(BenchmarkData.FIRST_DAY.plusDays(SEARCH_DAYS + 7))
+                .build();
+
+        seedBookings(bookedClassId);
+        MemberNameIndex memberNameIndex = context.getBean(MemberNameIndex.class);
+        for (int member = 0; member < MEMBERS; member++) {
+            memberNameIndex.add(BenchmarkData.memberName(member), SEED_ID_OFFSET + member);
+        }
+        while (memberNameIndex.resolve(BenchmarkData.memberName(1)).isEmpty()) {
+            Thread.sleep(50); // The startup build runs in the background
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public GenericResponse<ClassBookingResponseDto> bookClass() {
+        return gymService.bookClass(bookingRequest);
+    }
+
+    /**
+     * Eight threads booking the same (class, date) slot, contending on its occupancy row.
+     */
+    @Benchmark
+    @Threads(8)
+    public GenericResponse<ClassBookingResponseDto> bookClassContended() {
+        return gymService.bookClass(bookingRequest);
+    }
+
+    @Benchmark
+    public GenericResponse<List<ClassBookingResponseDto>> searchBookingsByMember() {
+        return gymService.searchBookings("member 04242", BenchmarkData.FIRST_DAY,
+                BenchmarkData.FIRST_DAY.plusDays(SEARCH_DAYS), null, 50);
+    }
+
+    @Benchmark
+    public GenericResponse<List<ClassBookingResponseDto>> searchBookingsByDateRange() {
+        return gymService.searchBookings(null, BenchmarkData.FIRST_DAY.plusDays(100),
+                BenchmarkData.FIRST_DAY.plusDays(107), null, 50);
+    }
+
+    /**
+     * MEMBERS members with bookings spread evenly over SEARCH_DAYS days, inserted with plain JDBC batches.
+     */
+    private void seedBookings(Long gymClassId) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<Object[]> members = new ArrayList<>(MEMBERS);
+        for (int member = 0; member < MEMBERS; member++) {
+            members.add(new Object[]{SEED_ID_OFFSET + member, BenchmarkData.memberName(member)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO member (id, name) VALUES (?, ?)", members);
+
+        List<Object[]> chunk = new ArrayList<>(INSERT_CHUNK);
+        for (int row = 0; row < bookingRows; row++) {
+            LocalDate participationDate = BenchmarkData.FIRST_DAY.plusDays(row % SEARCH_DAYS);
+            chunk.add(new Object[]{SEED_ID_OFFSET + row, SEED_ID_OFFSET + row % MEMBERS, gymClassId,
+                    Date.valueOf(participationDate)});
+            if (chunk.size() == INSERT_CHUNK || row == bookingRows - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO class_booking (id, member_id, gym_class_id, participation_date) " +
+                        "VALUES (?, ?, ?, ?)", chunk);
+                chunk.clear();
+            }
+        }
+    }
+}
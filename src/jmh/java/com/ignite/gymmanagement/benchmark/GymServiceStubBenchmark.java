@@ -0,0 +1,182 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.benchmark;
+
+import com.ignite.gymmanagement.dto.ClassBookingRequestDto;
+import com.ignite.gymmanagement.dto.ClassBookingResponseDto;
+import com.ignite.gymmanagement.dto.GymClassRequestDto;
+import com.ignite.gymmanagement.dto.GymClassResponseDto;
+import com.ignite.gymmanagement.index.ClassScheduleIndex;
+import com.ignite.gymmanagement.index.MemberNameIndex;
+import com.ignite.gymmanagement.model.GymClass;
+import com.ignite.gymmanagement.repository.BookingRepository;
+import com.ignite.gymmanagement.repository.GymClassRepository;
+import com.ignite.gymmanagement.repository.MemberRepository;
+import com.ignite.gymmanagement.service.GymService;
+import com.ignite.gymmanagement.service.MemberService;
+import com.ignite.gymmanagement.service.SeatReservationService;
+import com.ignite.gymmanagement.util.GenericResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GymService hot paths against in-memory repositories, measuring the service's own cost without a database.
+ * Runs outside Spring, so there is no transaction or bulkhead advice around the calls, and the transactions
+ * the service opens itself do nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GymServiceStubBenchmark {
+
+    private static final int CANDIDATES = 1024;
+
+    @Param("10000")
+    private int classCount;
+
+    private GymService gymService;
+    private ClassScheduleIndex classScheduleIndex;
+    private ClassBookingRequestDto bookingRequest;
+    private GymClassRequestDto[] candidates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryRepositories repositories = new InMemoryRepositories();
+        GymClassRepository gymClassRepository = repositories.gymClassRepository();
+        BookingRepository bookingRepository = repositories.bookingRepository();
+        MemberRepository memberRepository = repositories.memberRepository();
+        MemberNameIndex memberNameIndex = new MemberNameIndex(memberRepository, null);
+        repositories.addAll(BenchmarkData.randomClasses(classCount, 42));
+
+        classScheduleIndex = new ClassScheduleIndex(gymClassRepository);
+        classScheduleIndex.load();
+
+        gymService = new GymService(
+                gymClassRepository,
+                bookingRepository,
+                new SeatReservationService(bookingRepository, repositories.classOccupancyRepository(),
+                        repositories.waitlistEntryRepository()),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                memberNameIndex,
+                new MemberService(memberRepository, memberNameIndex, 100_000, new SimpleMeterRegistry()),
+                classScheduleIndex,
+                null, // Only used by bookings that join the waitlist
+                event -> {
+                },
+                new NoOpTransactionManager());
+
+        GymClassRequestDto unlimited = BenchmarkData.unlimitedClassRequest();
+        GymClass bookedClass = gymClassRepository.save(GymClass.builder()
+                .name(unlimited.getName())
+                .capacity(unlimited.getCapacity())
+                .startDate(unlimited.getStartDate())
+                .endDate(unlimited.getEndDate())
+                .startTime(unlimited.getStartTime())
+                .duration(unlimited.getDuration())
+                .build());
+        bookingRequest = ClassBookingRequestDto.builder()
+                .gymClassId(bookedClass.getId())
+                .memberName(BenchmarkData.memberName(1))
+                .participationDate(BenchmarkData.FIRST_DAY.plusDays(7))
+                .build();
+
+        Random random = new Random(7);
+        candidates = new GymClassRequestDto[CANDIDATES];
+        for (int i = 0; i < CANDIDATES; i++) {
+            candidates[i] = BenchmarkData.randomClassRequest(random);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next() {
+            return next++ & (CANDIDATES - 1);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public GenericResponse<ClassBookingResponseDto> bookClass() {
+        return gymService.bookClass(bookingRequest);
+    }
+
+    /**
+     * Eight threads booking the same (class, date) slot, contending on its seat counter.
+     */
+    @Benchmark
+    @Threads(8)
+    public GenericResponse<ClassBookingResponseDto> bookClassContended() {
+        return gymService.bookClass(bookingRequest);
+    }
+
+    @Benchmark
+    public boolean overlapCheck(Cursor cursor) {
+        GymClassRequestDto candidate = candidates[cursor.next()];
+        return classScheduleIndex.overlaps(candidate.getStartDate(), candidate.getEndDate(),
+                candidate.getStartTime(), candidate.getDuration());
+    }
+
+    /**
+     * createClass with candidates that mostly clash, so the index does not grow during the run.
+     */
+    @Benchmark
+    public GenericResponse<GymClassResponseDto> createClassRejected(Cursor cursor) {
+        GymClassRequestDto candidate = candidates[cursor.next()];
+        GymClassRequestDto clashing = GymClassRequestDto.builder()
+                .name(candidate.getName())
+                .capacity(candidate.getCapacity())
+                .startDate(BenchmarkData.FIRST_DAY)
+                .endDate(BenchmarkData.FIRST_DAY.plusYears(10))
+                .startTime(candidate.getStartTime())
+                .duration(candidate.getDuration())
+                .build();
+        return gymService.createClass(clashing);
+    }
+
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
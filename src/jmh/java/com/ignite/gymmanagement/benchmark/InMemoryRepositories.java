@@ -0,0 +1,119 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.benchmark;
+
+import com.ignite.gymmanagement.model.ClassBooking;
+import com.ignite.gymmanagement.model.GymClass;
+import com.ignite.gymmanagement.model.Member;
+import com.ignite.gymmanagement.repository.BookingRepository;
+import com.ignite.gymmanagement.repository.ClassOccupancyRepository;
+import com.ignite.gymmanagement.repository.GymClassRepository;
+import com.ignite.gymmanagement.repository.MemberRepository;
+import com.ignite.gymmanagement.repository.WaitlistEntryRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Map-backed stand-ins for the repositories, implementing only the methods GymService uses on its hot paths.
+ * They isolate the service's own cost from the database. Calls go through a JDK proxy, as calls to
+ * Spring Data repositories do.
+ */
+final class InMemoryRepositories {
+
+    private final ConcurrentMap<Long, GymClass> gymClasses = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Slot, AtomicInteger> bookedSeats = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Member> members = new ConcurrentHashMap<>();
+    private final AtomicLong gymClassIds = new AtomicLong();
+    private final AtomicLong bookingIds = new AtomicLong();
+    private final AtomicLong memberIds = new AtomicLong();
+
+    GymClassRepository gymClassRepository() {
+        return stub(GymClassRepository.class, Map.of(
+                "findById", args -> Optional.ofNullable(gymClasses.get((Long) args[0])),
+                "findAll", args -> new ArrayList<>(gymClasses.values()),
+                "save", args -> {
+                    GymClass gymClass = (GymClass) args[0];
+                    if (gymClass.getId() == null) {
+                        gymClass.setId(gymClassIds.incrementAndGet());
+                    }
+                    gymClasses.put(gymClass.getId(), gymClass);
+                    return gymClass;
+                }));
+    }
+
+    BookingRepository bookingRepository() {
+        return stub(BookingRepository.class, Map.of(
+                "countByGymClassAndParticipationDate", args -> 0L,
+                "save", args -> {
+                    ClassBooking booking = (ClassBooking) args[0];
+                    booking.setId(bookingIds.incrementAndGet());
+                    return booking;
+                }));
+    }
+
+    MemberRepository memberRepository() {
+        return stub(MemberRepository.class, Map.of(
+                "findByName", args -> Optional.ofNullable(members.get((String) args[0])),
+                "createIfAbsent", args -> {
+                    String name = (String) args[0];
+                    return members.putIfAbsent(name, new Member(memberIds.incrementAndGet(), name)) == null ? 1 : 0;
+                }));
+    }
+
+    ClassOccupancyRepository classOccupancyRepository() {
+        return stub(ClassOccupancyRepository.class, Map.of(
+                "reserveSeat", args -> {
+                    AtomicInteger booked = bookedSeats.get(new Slot((Long) args[0], (LocalDate) args[1]));
+                    if (booked == null) {
+                        return 0;
+                    }
+                    int capacity = gymClasses.get((Long) args[0]).getCapacity();
+                    return booked.getAndUpdate(current -> current < capacity ? current + 1 : current) < capacity ? 1 : 0;
+                },
+                "createIfAbsent", args ->
+                        bookedSeats.putIfAbsent(new Slot((Long) args[0], (LocalDate) args[1]), new AtomicInteger()) == null ? 1 : 0));
+    }
+
+    WaitlistEntryRepository waitlistEntryRepository() {
+        return stub(WaitlistEntryRepository.class, Map.of("countWaiting", args -> 0L));
+    }
+
+    void addAll(List<GymClass> classes) {
+        classes.forEach(gymClass -> {
+            gymClass.setId(gymClassIds.incrementAndGet());
+            gymClasses.put(gymClass.getId(), gymClass);
+        });
+    }
+
+    private static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            Function<Object[], Object> implementation = methods.get(method.getName());
+            if (implementation != null) {
+                return implementation.apply(args);
+            }
+            return switch (method.getName()) {
+                case "toString" -> "InMemory" + type.getSimpleName();
+                case "hashCode" -> System.identityHashCode(self);
+                case "equals" -> self == args[0];
+                default -> throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            };
+        });
+        return type.cast(proxy);
+    }
+
+    private record Slot(Long gymClassId, LocalDate participationDate) {
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of the requests of one scenario.
+ * <p>
+ * Latencies are recorded in microseconds from the moment a request was due to be sent, not from when it
+ * actually was, so a stalled app shows up in the percentiles instead of just slowing down the load.
+ * Server errors, failed requests and dropped arrivals count as errors; 4xx responses such as a full class
+ * or a rate limit rejection are expected under load and only show up in the status breakdown.
+ */
+final class EndpointStats {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final String scenario;
+    private final Recorder latencies = new Recorder(MAX_LATENCY_MICROS, 3);
+    private final ConcurrentMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();  // Timeouts and connection errors
+    private final LongAdder dropped = new LongAdder();   // Arrivals over the in-flight limit, never sent
+
+    EndpointStats(String scenario) {
+        this.scenario = scenario;
+    }
+
+    void recordResponse(int status, long latencyNanos) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    void recordFailure(long latencyNanos) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        failures.increment();
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    /**
+     * Takes the latencies recorded so far and starts over, e.g. after the warmup.
+     */
+    Histogram takeLatencies() {
+        return latencies.getIntervalHistogram();
+    }
+
+    void reset() {
+        latencies.reset();
+        statuses.clear();
+        failures.reset();
+        dropped.reset();
+    }
+
+    String scenario() {
+        return scenario;
+    }
+
+    Map<Integer, Long> statuses() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+
+    long requests() {
+        return statuses.values().stream().mapToLong(LongAdder::sum).sum() + failures.sum() + dropped.sum();
+    }
+
+    long errors() {
+        long serverErrors = statuses.entrySet().stream()
+                .filter(entry -> entry.getKey() >= 500)
+                .mapToLong(entry -> entry.getValue().sum())
+                .sum();
+        return serverErrors + failures.sum() + dropped.sum();
+    }
+
+    long failures() {
+        return failures.sum();
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+}
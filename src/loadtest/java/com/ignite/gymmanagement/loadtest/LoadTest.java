@@ -0,0 +1,250 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ignite.gymmanagement.AbcfitnessIgniteGymmanagementApplication;
+import com.ignite.gymmanagement.loadtest.OpenModelLoadGenerator.Scenario;
+import com.ignite.gymmanagement.loadtest.PostmanCollection.RequestTemplate;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * HTTP load test driving the create-class, book and search requests of the Postman collection.
+ * <p>
+ * Starts the app in this JVM on H2 unless {@code --base-url} points at a running one, creates the classes
+ * to book, then sends every scenario at its own open-model arrival rate. After the warmup it measures for
+ * {@code --duration} and prints latency percentiles and error rates per scenario. The full latency
+ * distributions are written as {@code <scenario>.hgrm} files, which the HdrHistogram plotter can show.
+ * See {@link LoadTestOptions} for all options.
+ */
+public final class LoadTest {
+
+    static final String CREATE_CLASS = "createClass";
+    static final String BOOK = "book";
+    static final String SEARCH = "search";
+
+    private static final Map<String, String> COLLECTION_REQUESTS = Map.of(
+            CREATE_CLASS, "Creates Gym Class",
+            BOOK, "Book Class",
+            SEARCH, "Search Booking");
+    private static final LocalDate FIRST_DAY = LocalDate.now().plusDays(1);
+    private static final int SCHEDULE_DAYS = 30;
+    private static final int MAX_SEED_ATTEMPTS_PER_CLASS = 100;
+
+    private final LoadTestOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final AtomicInteger classSlots = new AtomicInteger();
+    private final List<SeededClass> seededClasses = new ArrayList<>();
+    private String baseUrl;
+
+    private LoadTest(LoadTestOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(LoadTestOptions.parse(args)).run();
+    }
+
+    private void run() throws Exception {
+        PostmanCollection collection = PostmanCollection.load(options.collection(), objectMapper);
+        ConfigurableApplicationContext app = null;
+        try {
+            if (options.baseUrl().isBlank()) {
+                // Devtools would restart main() without our arguments
+                System.setProperty("spring.devtools.restart.enabled", "false");
+                app = new SpringApplicationBuilder(AbcfitnessIgniteGymmanagementApplication.class)
+                        .profiles("loadtest")
+                        .run();
+                baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port") + "/api/v1";
+            } else {
+                baseUrl = options.baseUrl().replaceAll("/+$", "");
+            }
+
+            seedClasses(collection.request(COLLECTION_REQUESTS.get(CREATE_CLASS)));
+            List<Scenario> scenarios = scenarios(collection);
+            OpenModelLoadGenerator generator = new OpenModelLoadGenerator(httpClient, options.maxInFlight());
+
+            System.out.printf("Load test against %s: %s, warmup %s, measuring %s%n",
+                    baseUrl, options.rates(), options.warmup(), options.duration());
+            generator.run(scenarios, options.warmup());
+            scenarios.forEach(scenario -> scenario.stats().reset());
+            generator.run(scenarios, options.duration());
+
+            report(scenarios);
+        } finally {
+            if (app != null) {
+                app.close();
+            }
+        }
+    }
+
+    /**
+     * Creates the classes booked and searched by the scenarios, each at its own time of day.
+     * Slots already taken, e.g. by an earlier run against the same database, are skipped.
+     */
+    private void seedClasses(RequestTemplate createClass) throws IOException, InterruptedException {
+        int attempts = 0;
+        while (seededClasses.size() < options.classes()) {
+            if (++attempts > options.classes() * MAX_SEED_ATTEMPTS_PER_CLASS) {
+                throw new IllegalStateException("Could only create " + seededClasses.size() + " classes to book");
+            }
+            ObjectNode body = classBody(createClass);
+            body.put("capacity", options.classCapacity());
+            HttpResponse<String> response = httpClient.send(request(createClass, createClass.query(), body),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 201) {
+                JsonNode created = objectMapper.readTree(response.body()).path("data");
+                seededClasses.add(new SeededClass(created.path("id").asLong(),
+                        LocalDate.parse(body.get("startDate").asText()), LocalDate.parse(body.get("endDate").asText())));
+            } else if (response.statusCode() != 400) {
+                throw new IllegalStateException("Creating a class failed with " + response.statusCode() + ": " + response.body());
+            }
+        }
+    }
+
+    private List<Scenario> scenarios(PostmanCollection collection) {
+        List<Scenario> scenarios = new ArrayList<>();
+        options.rates().forEach((name, rate) -> {
+            if (!COLLECTION_REQUESTS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown scenario " + name + ", expected one of " + COLLECTION_REQUESTS.keySet());
+            }
+            RequestTemplate template = collection.request(COLLECTION_REQUESTS.get(name));
+            Supplier<HttpRequest> requests = switch (name) {
+                case CREATE_CLASS -> () -> request(template, template.query(), classBody(template));
+                case BOOK -> () -> request(template, template.query(), bookingBody(template));
+                default -> () -> request(template, searchQuery(template), template.body());
+            };
+            scenarios.add(new Scenario(name, rate, requests, new EndpointStats(name)));
+        });
+        return scenarios;
+    }
+
+    /**
+     * The collection's class with a name, dates and start time of its own. Classes fill the day back to back,
+     * then move on to the next {@value #SCHEDULE_DAYS} days, so they never overlap.
+     */
+    private ObjectNode classBody(RequestTemplate template) {
+        ObjectNode body = template.body().deepCopy();
+        int duration = body.path("duration").asInt();
+        int slotsPerDay = 24 * 60 / duration - 1;
+        int slot = classSlots.getAndIncrement();
+        LocalDate startDate = FIRST_DAY.plusDays((long) (slot / slotsPerDay) * SCHEDULE_DAYS);
+        body.put("name", body.path("name").asText() + " " + slot);
+        body.put("startDate", startDate.toString());
+        body.put("endDate", startDate.plusDays(SCHEDULE_DAYS - 1).toString());
+        body.put("startTime", LocalTime.MIDNIGHT.plusMinutes((long) (slot % slotsPerDay) * duration).toString());
+        return body;
+    }
+
+    private ObjectNode bookingBody(RequestTemplate template) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        SeededClass gymClass = seededClasses.get(random.nextInt(seededClasses.size()));
+        ObjectNode body = template.body().deepCopy();
+        body.put("gymClassId", gymClass.id());
+        body.put("memberName", memberName(random));
+        body.put("participationDate", gymClass.startDate()
+                .plusDays(random.nextLong(gymClass.endDate().toEpochDay() - gymClass.startDate().toEpochDay() + 1))
+                .toString());
+        return body;
+    }
+
+    private Map<String, String> searchQuery(RequestTemplate template) {
+        Map<String, String> query = new LinkedHashMap<>(template.query());
+        query.put("memberName", memberName(ThreadLocalRandom.current()));
+        query.put("startDate", FIRST_DAY.toString());
+        query.put("endDate", FIRST_DAY.plusDays(SCHEDULE_DAYS - 1).toString());
+        return query;
+    }
+
+    private String memberName(ThreadLocalRandom random) {
+        return "Member " + random.nextInt(options.members());
+    }
+
+    private HttpRequest request(RequestTemplate template, Map<String, String> query, ObjectNode body) {
+        String queryString = query.isEmpty() ? "" : query.entrySet().stream()
+                .map(parameter -> URLEncoder.encode(parameter.getKey(), StandardCharsets.UTF_8) + "="
+                        + URLEncoder.encode(parameter.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&", "?", ""));
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + template.path() + queryString))
+                .timeout(options.requestTimeout());
+        if (body == null) {
+            return request.method(template.method(), HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return request.header("Content-Type", "application/json")
+                .method(template.method(), HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+    }
+
+    private void report(List<Scenario> scenarios) throws IOException {
+        Files.createDirectories(options.reportDir());
+        double seconds = options.duration().toMillis() / 1000d;
+
+        System.out.printf("%n%-12s %9s %9s %8s %8s %9s %9s %9s %9s %9s  %s%n", "Scenario", "Target/s", "Actual/s",
+                "Errors", "Error %", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms", "Statuses");
+        for (Scenario scenario : scenarios) {
+            EndpointStats stats = scenario.stats();
+            Histogram latencies = stats.takeLatencies();
+            long requests = stats.requests();
+            String statuses = stats.statuses().entrySet().stream()
+                    .map(status -> status.getKey() + "=" + status.getValue())
+                    .collect(Collectors.joining(" "));
+            if (stats.failures() > 0) {
+                statuses += " failed=" + stats.failures();
+            }
+            if (stats.dropped() > 0) {
+                statuses += " dropped=" + stats.dropped();
+            }
+            System.out.printf("%-12s %9.1f %9.1f %8d %7.2f%% %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                    scenario.name(), scenario.ratePerSecond(), requests / seconds, stats.errors(),
+                    requests == 0 ? 0 : 100d * stats.errors() / requests,
+                    millis(latencies, 50), millis(latencies, 90), millis(latencies, 99), millis(latencies, 99.9),
+                    latencies.getMaxValue() / 1000d, statuses);
+
+            Path distribution = options.reportDir().resolve(scenario.name() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(distribution), false, StandardCharsets.UTF_8)) {
+                latencies.outputPercentileDistribution(out, 1000.0); // In milliseconds
+            }
+        }
+        System.out.printf("%nLatency distributions written to %s%n", options.reportDir().toAbsolutePath());
+    }
+
+    private static double millis(Histogram latencies, double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000d;
+    }
+
+    private record SeededClass(long id, LocalDate startDate, LocalDate endDate) {
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line options of the load test, given as {@code --name=value}.
+ *
+ * @param collection     Postman collection the request templates are read from.
+ * @param baseUrl        Base URL of a running app, e.g. {@code http://localhost:8080/api/v1}. Empty to start the app
+ *                       in this JVM on H2.
+ * @param rates          Arrivals per second per scenario, e.g. {@code createClass=1,book=200,search=50}.
+ * @param warmup         Load run before measuring, with the same rates.
+ * @param duration       Measured load.
+ * @param classes        Classes created before the run for the book and search scenarios.
+ * @param classCapacity  Capacity of those classes.
+ * @param members        Distinct member names the book and search scenarios pick from.
+ * @param maxInFlight    Requests outstanding at once. Arrivals over the limit are counted as dropped, so a stalled
+ *                       app cannot exhaust the load generator.
+ * @param requestTimeout Requests taking longer count as errors.
+ * @param reportDir      Directory the HdrHistogram percentile distributions are written to.
+ */
+record LoadTestOptions(Path collection, String baseUrl, Map<String, Double> rates, Duration warmup, Duration duration,
+                       int classes, int classCapacity, int members, int maxInFlight, Duration requestTimeout,
+                       Path reportDir) {
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return new LoadTestOptions(
+                Path.of(values.getOrDefault("collection", "abc-fitness-ignite.postman_collection.json")),
+                values.getOrDefault("base-url", ""),
+                parseRates(values.getOrDefault("rates", "createClass=1,book=200,search=50")),
+                Duration.parse(values.getOrDefault("warmup", "PT10S")),
+                Duration.parse(values.getOrDefault("duration", "PT60S")),
+                Integer.parseInt(values.getOrDefault("classes", "20")),
+                Integer.parseInt(values.getOrDefault("class-capacity", "500")),
+                Integer.parseInt(values.getOrDefault("members", "10000")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "10000")),
+                Duration.parse(values.getOrDefault("request-timeout", "PT10S")),
+                Path.of(values.getOrDefault("report-dir", "target/loadtest")));
+    }
+
+    private static Map<String, Double> parseRates(String rates) {
+        Map<String, Double> parsed = new LinkedHashMap<>();
+        for (String rate : rates.split(",")) {
+            String[] parts = rate.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected scenario=perSecond, got " + rate);
+            }
+            parsed.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+        }
+        return parsed;
+    }
+}
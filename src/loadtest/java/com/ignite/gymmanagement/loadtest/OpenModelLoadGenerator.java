@@ -0,0 +1,105 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Sends requests at fixed average rates, whether or not earlier requests have been answered.
+ * <p>
+ * Unlike a fixed pool of clients waiting for each response (a closed model), arrivals keep coming when
+ * the app slows down, as they do from real members at peak hour. Every scenario has its own arrival
+ * thread drawing Poisson arrivals; each request is sent on its own virtual thread.
+ */
+final class OpenModelLoadGenerator {
+
+    private final HttpClient httpClient;
+    private final Semaphore inFlight;
+
+    OpenModelLoadGenerator(HttpClient httpClient, int maxInFlight) {
+        this.httpClient = httpClient;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Runs all scenarios for the given time and waits for their outstanding requests.
+     */
+    void run(List<Scenario> scenarios, Duration duration) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Thread> arrivals = new ArrayList<>();
+            for (Scenario scenario : scenarios) {
+                arrivals.add(Thread.ofPlatform()
+                        .name("arrivals-" + scenario.name())
+                        .start(() -> arrive(scenario, start, end, requests)));
+            }
+            for (Thread thread : arrivals) {
+                thread.join();
+            }
+        }
+    }
+
+    private void arrive(Scenario scenario, long start, long end, ExecutorService requests) {
+        SplittableRandom random = new SplittableRandom();
+        double meanGapNanos = 1_000_000_000d / scenario.ratePerSecond();
+        double due = start;
+        while (true) {
+            due += -Math.log(1 - random.nextDouble()) * meanGapNanos;
+            long dueAt = (long) due;
+            if (dueAt >= end) {
+                return;
+            }
+            long wait = dueAt - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            if (!inFlight.tryAcquire()) {
+                scenario.stats().recordDropped();
+                continue;
+            }
+            requests.execute(() -> {
+                try {
+                    send(scenario.requests(), scenario.stats(), dueAt);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    private void send(Supplier<HttpRequest> requests, EndpointStats stats, long dueAt) {
+        try {
+            HttpResponse<Void> response = httpClient.send(requests.get(), HttpResponse.BodyHandlers.discarding());
+            stats.recordResponse(response.statusCode(), System.nanoTime() - dueAt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stats.recordFailure(System.nanoTime() - dueAt);
+        } catch (Exception e) {
+            stats.recordFailure(System.nanoTime() - dueAt);
+        }
+    }
+
+    /**
+     * A stream of requests sent at an average rate.
+     *
+     * @param requests Creates the next request to send. Called concurrently.
+     */
+    record Scenario(String name, double ratePerSecond, Supplier<HttpRequest> requests, EndpointStats stats) {
+    }
+}
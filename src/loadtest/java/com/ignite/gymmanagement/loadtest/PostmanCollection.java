@@ -0,0 +1,74 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Requests of the Postman collection shipped with the repository, used as templates by the load test.
+ * <p>
+ * The collection prefixes every URL with {@code {{BASE_URL}}}; only the path, query parameters and
+ * JSON body of a request are kept, and the scenarios fill in their own values.
+ */
+final class PostmanCollection {
+
+    private final Map<String, RequestTemplate> requests = new HashMap<>();
+
+    private PostmanCollection() {
+    }
+
+    static PostmanCollection load(Path file, ObjectMapper objectMapper) throws IOException {
+        PostmanCollection collection = new PostmanCollection();
+        collection.addItems(objectMapper.readTree(file.toFile()).path("item"), objectMapper);
+        return collection;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the collection has no request of that name.
+     */
+    RequestTemplate request(String name) {
+        RequestTemplate request = requests.get(name);
+        if (request == null) {
+            throw new IllegalArgumentException("Postman collection has no request named '" + name + "', found " + requests.keySet());
+        }
+        return request;
+    }
+
+    private void addItems(JsonNode items, ObjectMapper objectMapper) throws IOException {
+        for (JsonNode item : items) {
+            if (item.has("item")) {
+                addItems(item.get("item"), objectMapper); // Folder
+                continue;
+            }
+            JsonNode request = item.path("request");
+            JsonNode url = request.path("url");
+
+            StringBuilder path = new StringBuilder();
+            url.path("path").forEach(segment -> path.append('/').append(segment.asText()));
+            Map<String, String> query = new LinkedHashMap<>();
+            url.path("query").forEach(parameter -> query.put(parameter.path("key").asText(), parameter.path("value").asText()));
+            String rawBody = request.path("body").path("raw").asText("");
+            ObjectNode body = rawBody.isBlank() ? null : (ObjectNode) objectMapper.readTree(rawBody);
+
+            String name = item.path("name").asText();
+            requests.put(name, new RequestTemplate(name, request.path("method").asText(), path.toString(), query, body));
+        }
+    }
+
+    /**
+     * A request of the collection. Copy the body before changing it.
+     */
+    record RequestTemplate(String name, String method, String path, Map<String, String> query, ObjectNode body) {
+    }
+}
@@ -3,9 +3,11 @@ package com.ignite.gymmanagement;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @Slf4j
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class AbcfitnessIgniteGymmanagementApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,129 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.aspect;
+
+import com.ignite.gymmanagement.exception.BulkheadFullException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of concurrent {@code GymService} calls to the size of the connection pool.
+ * <p>
+ * With virtual threads every request gets its own thread, so without a limit thousands of requests
+ * would queue inside Hikari and fail with connection timeouts. Calls over the limit wait briefly for
+ * a permit and are rejected with 503 otherwise. The aspect runs outside the transaction advice,
+ * so a waiting call does not hold a connection. Callers that open a transaction around a {@code GymService}
+ * call take the permit first with {@link #withPermit}; the call inside then runs on that permit.
+ * <p>
+ * With a read replica, read-only transactional calls run on the replica pool and get permits of their own,
+ * so searches cannot take the permits bookings need.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(1)
+public class GymServiceBulkhead {
+
+    private final Semaphore permits;
+    private final Semaphore readPermits;  // Same as permits without a read replica
+    private final Duration maxWait;
+    private final Map<Method, Semaphore> permitsByMethod = new ConcurrentHashMap<>();
+    private final ThreadLocal<Boolean> holdsPermit = new ThreadLocal<>();
+
+    public GymServiceBulkhead(@Value("${gym.bulkhead.max-concurrent-calls}") int maxConcurrentCalls,
+                              @Value("${gym.bulkhead.max-concurrent-reads}") int maxConcurrentReads,
+                              @Value("${gym.datasource.replica.enabled:false}") boolean readReplica,
+                              @Value("${gym.bulkhead.max-wait}") Duration maxWait,
+                              MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+        this.readPermits = readReplica ? new Semaphore(maxConcurrentReads, true) : permits;
+        this.maxWait = maxWait;
+        Gauge.builder("gym.bulkhead.available.permits", permits, Semaphore::availablePermits)
+                .description("Free slots in the GymService bulkhead")
+                .register(meterRegistry);
+        if (readReplica) {
+            Gauge.builder("gym.bulkhead.available.read.permits", readPermits, Semaphore::availablePermits)
+                    .description("Free slots in the GymService bulkhead for read-only calls")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Around("within(com.ignite.gymmanagement.service.GymService)")
+    public Object limitConcurrency(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (holdsPermit.get() != null) {
+            return joinPoint.proceed(); // Runs on the permit of an enclosing withPermit
+        }
+        Semaphore permits = permits(joinPoint);
+        acquire(permits, () -> joinPoint.getSignature().toShortString());
+        holdsPermit.set(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            holdsPermit.remove();
+            permits.release();
+        }
+    }
+
+    /**
+     * Runs a call that opens a transaction around {@code GymService} calls on one write permit,
+     * taken before the call so that waiting for it holds no connection.
+     */
+    public <T> T withPermit(String caller, Supplier<T> call) {
+        if (holdsPermit.get() != null) {
+            return call.get();
+        }
+        acquire(permits, () -> caller);
+        holdsPermit.set(Boolean.TRUE);
+        try {
+            return call.get();
+        } finally {
+            holdsPermit.remove();
+            permits.release();
+        }
+    }
+
+    private void acquire(Semaphore permits, Supplier<String> caller) {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BulkheadFullException("Interrupted while waiting for the service bulkhead");
+        }
+        if (!acquired) {
+            log.warn("Service bulkhead full, rejecting {}", caller.get());
+            throw new BulkheadFullException("Too many concurrent requests, please retry shortly");
+        }
+    }
+
+    private Semaphore permits(ProceedingJoinPoint joinPoint) {
+        if (readPermits == permits || !(joinPoint.getSignature() instanceof MethodSignature signature)) {
+            return permits;
+        }
+        return permitsByMethod.computeIfAbsent(signature.getMethod(), method -> {
+            Transactional transactional = AnnotatedElementUtils.findMergedAnnotation(method, Transactional.class);
+            return transactional != null && transactional.readOnly() ? readPermits : permits;
+        });
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.aspect;
+
+import com.ignite.gymmanagement.exception.BulkheadFullException;
+import com.ignite.gymmanagement.util.GenericResponse;
+import com.ignite.gymmanagement.util.ResponseConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Times the service entry points the controllers call as {@code gym.service}, tagged by class, method and outcome.
+ * These are the public service methods returning a {@link GenericResponse}, plus the booking export; helpers
+ * such as seat reservations and scheduled jobs are not timed.
+ * <p>
+ * The outcome is read from the returned {@link GenericResponse}: {@code success}, {@code partial} for
+ * batches with failed items, a named outcome for the common business rejections, otherwise the error code.
+ * A thrown exception counts as {@code bulkhead_full} or {@code exception}, any other result as {@code success}.
+ * Together with {@code http.server.requests} and {@code spring.data.repository.invocations} this separates
+ * time spent in the database, in the service and in the web layer. Runs outside the bulkhead, so
+ * rejected calls are counted too.
+ */
+@Aspect
+@Component
+@Order(0)
+@RequiredArgsConstructor
+public class ServiceMetrics {
+
+    static final String METRIC_NAME = "gym.service";
+
+    private static final Map<String, String> OUTCOMES_BY_MESSAGE = Map.of(
+            ResponseConstants.ERROR_CAPACITY_EXCEEDED, "capacity_exceeded",
+            ResponseConstants.ERROR_CLASS_NOT_FOUND, "class_not_found",
+            ResponseConstants.ERROR_CLASS_SCHEDULE_OVERLAP, "schedule_overlap",
+            ResponseConstants.ERROR_INVALID_CURSOR, "invalid_cursor");
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(public com.ignite.gymmanagement.util.GenericResponse com.ignite.gymmanagement.service.*.*(..))"
+            + " || execution(public * com.ignite.gymmanagement.service.BookingExportService.exportBookings(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "exception";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = outcomeOf(result);
+            return result;
+        } catch (BulkheadFullException e) {
+            outcome = "bulkhead_full";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .description("Service calls of the REST endpoints, by class, method and outcome")
+                    .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    static String outcomeOf(Object result) {
+        if (!(result instanceof GenericResponse<?> response)) {
+            return "success";
+        }
+        if (response.isSuccess()) {
+            if (response.getStatusCode() == HttpStatus.MULTI_STATUS.value()) {
+                return "partial";
+            }
+            return response.getStatusCode() == HttpStatus.ACCEPTED.value() ? "waitlisted" : "success";
+        }
+        String outcome = OUTCOMES_BY_MESSAGE.get(response.getMessage());
+        if (outcome != null) {
+            return outcome;
+        }
+        return response.getErrorCode() != null ? response.getErrorCode().toLowerCase(Locale.ROOT) : "error";
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Enables @Async methods, run on Spring Boot's application task executor.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
@@ -0,0 +1,22 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables Spring's cache abstraction. Caches are Caffeine caches configured under {@code spring.cache}.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Gym classes by id. Classes are read on every booking and rarely change.
+     */
+    public static final String GYM_CLASSES = "gymClasses";
+}
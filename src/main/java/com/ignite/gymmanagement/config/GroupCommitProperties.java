@@ -0,0 +1,24 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the group-commit booking mode.
+ *
+ * @param enabled       Book single classes through the group-commit writer instead of one transaction per request.
+ * @param maxGroupSize  Most bookings committed in one transaction.
+ * @param maxDelay      Longest time the first booking of a group waits for more bookings to join.
+ * @param queueCapacity Bookings that can wait for the writer before new ones are rejected.
+ * @param commitTimeout Longest time a request waits for its group to commit.
+ */
+@ConfigurationProperties(prefix = "gym.booking.group-commit")
+public record GroupCommitProperties(boolean enabled, int maxGroupSize, Duration maxDelay, int queueCapacity,
+                                    Duration commitTimeout) {
+}
@@ -0,0 +1,24 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the booking idempotency keys.
+ *
+ * @param maxCachedResponses Most completed responses kept in memory.
+ * @param retention          How long a key is honoured, in memory and in the database.
+ * @param inFlightWait       Longest time a duplicate waits for the original request running on this node.
+ * @param staleClaimAfter    Age after which a claim without a response is given to the next retry.
+ * @param purgeInterval      Pause between two purges of expired keys from the database.
+ */
+@ConfigurationProperties(prefix = "gym.booking.idempotency")
+public record IdempotencyProperties(int maxCachedResponses, Duration retention, Duration inFlightWait,
+                                    Duration staleClaimAfter, Duration purgeInterval) {
+}
@@ -0,0 +1,27 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the outbox relay.
+ *
+ * @param relayEnabled     Whether this node relays outbox events. Events are written either way.
+ * @param pollInterval     Pause between two relay runs.
+ * @param batchSize        Most events handed to the sink in one transaction.
+ * @param maxBatchesPerRun Most batches relayed in one run before pausing.
+ * @param sink             Where events go: {@code log}, {@code file}, or any other value to use an
+ *                         {@code OutboxSink} bean of the application.
+ * @param file             File the {@code file} sink appends events to, one JSON object per line.
+ */
+@ConfigurationProperties(prefix = "gym.outbox")
+public record OutboxProperties(boolean relayEnabled, Duration pollInterval, int batchSize, int maxBatchesPerRun,
+                               String sink, Path file) {
+}
@@ -0,0 +1,23 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the monthly {@code class_booking} partitions.
+ *
+ * @param enabled         Whether partitions are maintained. Needs the PostgreSQL schema of {@code schema-postgresql.sql}.
+ * @param monthsAhead     Months after the current one that get their partition in advance.
+ * @param retentionMonths Months before the current one whose partitions stay attached; older ones are archived.
+ *                        0 keeps every partition.
+ * @param checkInterval   Pause between two maintenance runs.
+ */
+@ConfigurationProperties(prefix = "gym.booking.partitioning")
+public record PartitioningProperties(boolean enabled, int monthsAhead, int retentionMonths, Duration checkInterval) {
+}
@@ -0,0 +1,27 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the booking rate limiter.
+ *
+ * @param stripes  Token buckets per key type, a power of two. Keys hashing to the same bucket share it.
+ * @param member   Limit per member name.
+ * @param clientIp Limit per client IP address.
+ */
+@ConfigurationProperties(prefix = "gym.rate-limit")
+public record RateLimitProperties(int stripes, Limit member, Limit clientIp) {
+
+    /**
+     * @param enabled         Whether requests are limited by this key.
+     * @param capacity        Requests allowed in a burst.
+     * @param refillPerSecond Requests allowed per second once the burst is used up.
+     */
+    public record Limit(boolean enabled, int capacity, double refillPerSecond) {
+    }
+}
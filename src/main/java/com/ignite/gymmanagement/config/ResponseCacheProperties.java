@@ -0,0 +1,23 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings of the cache of serialized GET responses.
+ *
+ * @param maxSize Most bytes of response bodies kept.
+ * @param ttl     How long a response covering today or later days is kept. Bookings made on this node evict it
+ *                earlier; this bounds how long bookings made on other nodes go unseen.
+ * @param pastTtl How long a response covering only past days is kept. Bookings of past days cannot change.
+ */
+@ConfigurationProperties(prefix = "gym.response-cache")
+public record ResponseCacheProperties(DataSize maxSize, Duration ttl, Duration pastTtl) {
+}
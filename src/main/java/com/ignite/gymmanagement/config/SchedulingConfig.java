@@ -0,0 +1,17 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled methods, run on Spring Boot's task scheduler.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
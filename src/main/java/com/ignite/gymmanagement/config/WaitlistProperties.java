@@ -0,0 +1,22 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the waitlist promoter.
+ *
+ * @param promotionInterval  Pause between two promotion runs.
+ * @param promotionBatchSize Most waiters promoted in one transaction.
+ * @param fullSweepInterval  How often every waiting session is checked, not just those with a seat freed on this node.
+ *                           Catches seats freed by other nodes.
+ */
+@ConfigurationProperties(prefix = "gym.waitlist")
+public record WaitlistProperties(Duration promotionInterval, int promotionBatchSize, Duration fullSweepInterval) {
+}
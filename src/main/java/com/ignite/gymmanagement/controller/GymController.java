@@ -5,20 +5,41 @@
 
 package com.ignite.gymmanagement.controller;
 
+import com.ignite.gymmanagement.dto.AnalyticsRebuildDto;
+import com.ignite.gymmanagement.dto.BatchBookingResultDto;
 import com.ignite.gymmanagement.dto.ClassBookingRequestDto;
 import com.ignite.gymmanagement.dto.ClassBookingResponseDto;
+import com.ignite.gymmanagement.dto.ClassImportResultDto;
 import com.ignite.gymmanagement.dto.GymClassRequestDto;
 import com.ignite.gymmanagement.dto.GymClassResponseDto;
-import com.ignite.gymmanagement.model.ClassBooking;
+import com.ignite.gymmanagement.dto.UtilisationReportDto;
+import com.ignite.gymmanagement.ratelimit.BookingRateLimiter;
+import com.ignite.gymmanagement.service.BookingExportService;
+import com.ignite.gymmanagement.service.BookingGroupCommitService;
+import com.ignite.gymmanagement.service.BookingIdempotencyService;
+import com.ignite.gymmanagement.service.ClassAnalyticsService;
+import com.ignite.gymmanagement.service.ClassImportService;
 import com.ignite.gymmanagement.service.GymService;
+import com.ignite.gymmanagement.service.ResponseCacheService;
+import com.ignite.gymmanagement.service.ResponseCacheService.SerializedResponse;
 import com.ignite.gymmanagement.util.GenericResponse;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -29,7 +50,21 @@ import java.util.List;
 @RequestMapping("/api/v1")
 public class GymController {
 
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     private final GymService gymService;
+    private final BookingExportService bookingExportService;
+    private final BookingGroupCommitService bookingGroupCommitService;
+    private final BookingIdempotencyService bookingIdempotencyService;
+    private final BookingRateLimiter bookingRateLimiter;
+    private final ResponseCacheService responseCacheService;
+    private final ClassImportService classImportService;
+    private final ClassAnalyticsService classAnalyticsService;
 
     /**
      * Creates a new GymClass.
@@ -44,30 +79,182 @@ public class GymController {
     }
 
     /**
-     * Searches for bookings based on optional filters.
+     * Imports a timetable of classes, streamed as CSV with a header line or as JSON lines,
+     * reporting the outcome of every row.
+     */
+    @PostMapping(value = "/classes/import", consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<GenericResponse<List<ClassImportResultDto>>> importClasses(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body) {
+
+        ClassImportService.Format format = contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? ClassImportService.Format.NDJSON
+                : ClassImportService.Format.CSV;
+        log.info("Received request to import classes as {}", format);
+        GenericResponse<List<ClassImportResultDto>> response = classImportService.importClasses(body, format);
+        return ResponseEntity.status(response.getStatusCode()).body(response);
+    }
+
+    /**
+     * Returns the remaining seats of a class per day, between from and to within the class schedule.
+     * Responses carry an ETag; polls with a matching If-None-Match get 304.
+     */
+    @GetMapping("/classes/{id}/availability")
+    public ResponseEntity<byte[]> getAvailability(
+            @PathVariable Long id,
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to,
+            WebRequest webRequest) {
+        log.debug("Received request for availability of class {} - From: {}, To: {}", id, from, to);
+
+        SerializedResponse response = responseCacheService.get("availability|" + id + "|" + from + "|" + to,
+                id, from, to, () -> gymService.getAvailability(id, from, to));
+        return conditionalResponse(response, webRequest);
+    }
+
+    /**
+     * Cancels a booking. The freed seat goes to the first member on the session's waitlist.
+     */
+    @DeleteMapping("/bookings/{id}")
+    public ResponseEntity<GenericResponse<Void>> cancelBooking(@PathVariable Long id) {
+        log.info("Received request to cancel booking: {}", id);
+
+        GenericResponse<Void> response = gymService.cancelBooking(id);
+        return ResponseEntity.status(response.getStatusCode()).body(response);
+    }
+
+    /**
+     * Searches for bookings based on optional filters. Results are paginated; pass the
+     * nextCursor of a response as cursor to fetch the following page. Responses carry an ETag; polls with
+     * a matching If-None-Match get 304.
      */
     @GetMapping("/bookings/search")
-    public ResponseEntity<GenericResponse<List<ClassBooking>>> searchBookings(
+    public ResponseEntity<byte[]> searchBookings(
+            @RequestParam(required = false) String memberName,
+            @RequestParam(required = false) LocalDate startDate,
+            @RequestParam(required = false) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) @Min(1) @Max(MAX_PAGE_SIZE) int size,
+            WebRequest webRequest) {
+
+        log.info("Received request to search bookings - Member: {}, StartDate: {}, EndDate: {}, Cursor: {}, Size: {}",
+                memberName, startDate, endDate, cursor, size);
+
+        SerializedResponse response = responseCacheService.get(
+                "search|" + memberName + "|" + startDate + "|" + endDate + "|" + cursor + "|" + size,
+                null, startDate, endDate, () -> gymService.searchBookings(memberName, startDate, endDate, cursor, size));
+        return conditionalResponse(response, webRequest);
+    }
+
+    /**
+     * Exports all bookings matching the search filters as newline-delimited JSON, streamed row by row.
+     */
+    @GetMapping(value = "/bookings/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBookings(
             @RequestParam(required = false) String memberName,
             @RequestParam(required = false) LocalDate startDate,
             @RequestParam(required = false) LocalDate endDate) {
 
-        log.info("Received request to search bookings - Member: {}, StartDate: {}, EndDate: {}",
+        log.info("Received request to export bookings - Member: {}, StartDate: {}, EndDate: {}",
                 memberName, startDate, endDate);
 
-        GenericResponse<List<ClassBooking>> response = gymService.searchBookings(memberName, startDate, endDate);
-        return ResponseEntity.status(response.getStatusCode()).body(response);
+        StreamingResponseBody body = out -> bookingExportService.exportBookings(memberName, startDate, endDate, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     /**
-     * Books a class for a member.
+     * Books a class for a member, through the group-commit writer when that mode is enabled.
+     * Requests sent with an Idempotency-Key are booked at most once; retries get the first response back.
+     * They bypass the group-commit writer, so their response is stored in the booking transaction.
+     * Members and clients sending too many requests are rejected with 429 before anything else is done. Only a retry
+     * of a keyed request that already completed is answered first, so a replay never uses up a token.
      */
     @PostMapping("/bookings")
     public ResponseEntity<GenericResponse<ClassBookingResponseDto>> bookClass(
-            @Valid @RequestBody ClassBookingRequestDto bookingRequest) {
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) @Size(min = 1, max = 255) String idempotencyKey,
+            @Valid @RequestBody ClassBookingRequestDto bookingRequest,
+            HttpServletRequest request) {
 
-        log.info("Received request to book class: {}", bookingRequest);
-        GenericResponse<ClassBookingResponseDto> response = gymService.bookClass(bookingRequest);
+        if (idempotencyKey != null) {
+            BookingIdempotencyService.Result completed = bookingIdempotencyService.findCompleted(idempotencyKey, bookingRequest);
+            if (completed != null) {
+                log.info("Replaying completed booking, Idempotency-Key: {}", idempotencyKey);
+                return idempotentResponse(completed);
+            }
+        }
+
+        bookingRateLimiter.acquire(bookingRequest.getMemberName(), request.getRemoteAddr());
+        log.info("Received request to book class: {}, Idempotency-Key: {}", bookingRequest, idempotencyKey);
+        if (idempotencyKey == null) {
+            GenericResponse<ClassBookingResponseDto> response = book(bookingRequest);
+            return ResponseEntity.status(response.getStatusCode()).body(response);
+        }
+
+        return idempotentResponse(bookingIdempotencyService.bookOnce(idempotencyKey, bookingRequest,
+                () -> gymService.bookClass(bookingRequest)));
+    }
+
+    /**
+     * Books a batch of classes, reporting the outcome of every item.
+     */
+    @PostMapping("/bookings/batch")
+    public ResponseEntity<GenericResponse<List<BatchBookingResultDto>>> bookClasses(
+            @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<ClassBookingRequestDto> bookingRequests) {
+
+        log.info("Received request to book {} classes in a batch", bookingRequests.size());
+        GenericResponse<List<BatchBookingResultDto>> response = gymService.bookClasses(bookingRequests);
         return ResponseEntity.status(response.getStatusCode()).body(response);
     }
+
+    /**
+     * Returns the fill rate of the classes scheduled between from and to, per class, per day of the week
+     * and per time slot. Defaults to the last four weeks.
+     */
+    @GetMapping("/analytics")
+    public ResponseEntity<GenericResponse<UtilisationReportDto>> getUtilisation(
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to) {
+        log.debug("Received request for utilisation - From: {}, To: {}", from, to);
+
+        GenericResponse<UtilisationReportDto> response = classAnalyticsService.getUtilisation(from, to);
+        return ResponseEntity.status(response.getStatusCode()).body(response);
+    }
+
+    /**
+     * Recounts the booked seats behind the analytics from the bookings, between from and to or for all bookings.
+     */
+    @PostMapping("/analytics/rebuild")
+    public ResponseEntity<GenericResponse<AnalyticsRebuildDto>> rebuildAnalytics(
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to) {
+        log.info("Received request to rebuild analytics - From: {}, To: {}", from, to);
+
+        GenericResponse<AnalyticsRebuildDto> response = classAnalyticsService.rebuild(from, to);
+        return ResponseEntity.status(response.getStatusCode()).body(response);
+    }
+
+    /**
+     * Sends a serialized response, or 304 without a body when the client already has it.
+     */
+    private static ResponseEntity<byte[]> conditionalResponse(SerializedResponse response, WebRequest webRequest) {
+        if (response.etag() != null && webRequest.checkNotModified(response.etag())) {
+            return null; // checkNotModified has set the 304 status and the ETag
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(response.statusCode()).contentType(MediaType.APPLICATION_JSON);
+        if (response.etag() != null) {
+            builder.eTag(response.etag());
+        }
+        return builder.body(response.body());
+    }
+
+    private static ResponseEntity<GenericResponse<ClassBookingResponseDto>> idempotentResponse(BookingIdempotencyService.Result result) {
+        return ResponseEntity.status(result.response().getStatusCode())
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.replayed()))
+                .body(result.response());
+    }
+
+    private GenericResponse<ClassBookingResponseDto> book(ClassBookingRequestDto bookingRequest) {
+        return bookingGroupCommitService.isEnabled()
+                ? bookingGroupCommitService.bookClass(bookingRequest)
+                : gymService.bookClass(bookingRequest);
+    }
 }
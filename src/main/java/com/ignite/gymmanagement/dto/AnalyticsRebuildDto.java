@@ -0,0 +1,27 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsRebuildDto {
+
+    private LocalDate from;      // First day rebuilt
+    private LocalDate to;        // Last day rebuilt
+    private int chunks;          // Months rebuilt, each in its own transaction
+    private long sessions;       // Session rollups recounted or created
+    private long elapsedMillis;  // Duration of the rebuild
+
+}
@@ -0,0 +1,20 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BatchBookingResultDto {
+
+    private int index;                        // Position of the item in the batch request
+    private boolean success;                  // Whether this item was booked
+    private String message;                   // Outcome of this item
+    private ClassBookingResponseDto booking;  // The created booking, if any
+
+}
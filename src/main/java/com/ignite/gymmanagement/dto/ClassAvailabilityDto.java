@@ -0,0 +1,26 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassAvailabilityDto {
+
+    private LocalDate date;       // Day the class runs
+    private int capacity;         // Seats offered on that day
+    private long booked;          // Seats already booked
+    private long remainingSeats;  // Seats still free
+
+}
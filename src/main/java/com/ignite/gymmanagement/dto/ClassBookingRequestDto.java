@@ -26,4 +26,6 @@ public class ClassBookingRequestDto {
     @FutureOrPresent(message = "Participation date must be today or in the future")
     private LocalDate participationDate;
 
+    private boolean joinWaitlist;  // Join the waitlist instead of failing when the class is full
+
 }
@@ -5,17 +5,22 @@
 
 package com.ignite.gymmanagement.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor // Used by the booking search projection, keep the field order
 public class ClassBookingResponseDto {
 
     private Long id;
     private String memberName;
+    private Long gymClassId;
     private String gymClassName;
     private LocalDate participationDate;
 
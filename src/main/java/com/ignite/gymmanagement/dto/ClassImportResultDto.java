@@ -0,0 +1,20 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ClassImportResultDto {
+
+    private int row;                       // Line of the class in the import, not counting the CSV header
+    private boolean success;               // Whether this class was created
+    private String message;                // Outcome of this row
+    private GymClassResponseDto gymClass;  // The created class, if any
+
+}
@@ -0,0 +1,29 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassUtilisationDto {
+
+    private Long gymClassId;      // ID of the class
+    private String gymClassName;  // Name of the class
+    private LocalTime startTime;  // Time slot of the class
+    private long sessions;        // Sessions held in the range
+    private long seats;           // Seats offered by those sessions
+    private long booked;          // Seats booked
+    private double fillRate;      // Booked seats per seat offered, 0 when no seats were offered
+
+}
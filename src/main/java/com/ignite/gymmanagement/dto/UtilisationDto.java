@@ -0,0 +1,24 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UtilisationDto {
+
+    private long sessions;    // Sessions held in the range
+    private long seats;       // Seats offered by those sessions
+    private long booked;      // Seats booked
+    private double fillRate;  // Booked seats per seat offered, 0 when no seats were offered
+
+}
@@ -0,0 +1,31 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UtilisationReportDto {
+
+    private LocalDate from;                           // First day of the range
+    private LocalDate to;                             // Last day of the range
+    private List<ClassUtilisationDto> classes;        // Per class scheduled in the range
+    private Map<DayOfWeek, UtilisationDto> weekdays;  // Per day of the week with sessions
+    private Map<LocalTime, UtilisationDto> timeSlots; // Per class start time
+
+}
@@ -0,0 +1,14 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.event;
+
+import java.time.LocalDate;
+
+/**
+ * Published for every booking cancelled, inside the cancelling transaction.
+ */
+public record BookingCancelledEvent(Long bookingId, Long gymClassId, String memberName, LocalDate participationDate) {
+}
@@ -0,0 +1,14 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.event;
+
+import java.time.LocalDate;
+
+/**
+ * Published for every booking saved, inside the booking transaction.
+ */
+public record BookingCreatedEvent(Long bookingId, Long gymClassId, String memberName, LocalDate participationDate) {
+}
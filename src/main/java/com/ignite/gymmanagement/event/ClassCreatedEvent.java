@@ -0,0 +1,16 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.event;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Published for every class created, inside the creating transaction.
+ */
+public record ClassCreatedEvent(Long gymClassId, String name, LocalDate startDate, LocalDate endDate,
+                                LocalTime startTime, int duration, int capacity) {
+}
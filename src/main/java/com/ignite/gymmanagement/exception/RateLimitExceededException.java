@@ -0,0 +1,24 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a client sends more booking requests than the rate limiter allows.
+ * <p>
+ * It carries no stack trace, so rejecting a flood of requests stays cheap.
+ */
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,309 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.index;
+
+import com.ignite.gymmanagement.model.GymClass;
+import com.ignite.gymmanagement.repository.GymClassRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * Interval trees over the schedules of all classes, used to detect clashing classes without a table scan.
+ * <p>
+ * Two classes clash when their date ranges overlap and their daily time windows overlap. A window running past
+ * midnight extends its date range by the day it spills into, so it also meets classes starting that day. Classes are
+ * bucketed by the hours of the day their window covers, and each bucket keeps its classes sorted by
+ * start date in an implicit balanced tree: the middle element of every range is its root and stores the
+ * latest end date of its subtree, so whole subtrees ending before the queried range are skipped. A lookup
+ * only searches the buckets of its own window, so classes on the same dates at other times are never visited.
+ * The buckets form an immutable snapshot replaced on every change, so lookups never block. Adding a class
+ * therefore copies the buckets it covers, which is linear in their size; classes are created rarely and
+ * checked often, so that cost is accepted over a mutable tree that lookups would have to lock.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ClassScheduleIndex {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int BUCKET_MINUTES = 60;
+    private static final int BUCKETS = MINUTES_PER_DAY / BUCKET_MINUTES;
+
+    private final GymClassRepository gymClassRepository;
+
+    private final Lock writeLock = new ReentrantLock();
+    private volatile Snapshot snapshot = Snapshot.of(List.of());
+
+    /**
+     * Loads the schedules of all existing classes.
+     */
+    @PostConstruct
+    public void load() {
+        List<Schedule> schedules = gymClassRepository.findAll().stream().map(Schedule::of).toList();
+        snapshot = Snapshot.of(schedules);
+        log.info("Class schedule index loaded with {} classes", schedules.size());
+    }
+
+    /**
+     * Lock to hold across an overlap check and the insert of the new class, so two concurrent
+     * requests cannot both create clashing classes.
+     */
+    public Lock writeLock() {
+        return writeLock;
+    }
+
+    /**
+     * Adds a saved class to the index.
+     */
+    public void add(GymClass gymClass) {
+        writeLock.lock();
+        try {
+            snapshot = snapshot.with(Schedule.of(gymClass));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Adds saved classes to the index, rebuilding it once for all of them.
+     */
+    public void addAll(Collection<GymClass> gymClasses) {
+        writeLock.lock();
+        try {
+            List<Schedule> schedules = new ArrayList<>(Arrays.asList(snapshot.schedules));
+            gymClasses.forEach(gymClass -> schedules.add(Schedule.of(gymClass)));
+            snapshot = Snapshot.of(schedules);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Checks classes to be created together, in order. A class clashes when it overlaps an indexed class,
+     * or an earlier class of the list that does not clash itself.
+     *
+     * @return for every class, whether it clashes.
+     */
+    public boolean[] overlaps(List<GymClass> candidates) {
+        Snapshot current = snapshot;
+        List<Schedule> accepted = new ArrayList<>();
+        boolean[] clashes = new boolean[candidates.size()];
+        for (int i = 0; i < candidates.size(); i++) {
+            Schedule candidate = Schedule.of(candidates.get(i));
+            clashes[i] = current.anyOverlap(new Lookup(candidate))
+                    || accepted.stream().anyMatch(schedule -> schedule.overlaps(candidate));
+            if (!clashes[i]) {
+                accepted.add(candidate);
+            }
+        }
+        return clashes;
+    }
+
+    /**
+     * Checks whether any indexed class runs on one of the given days at an overlapping time of day.
+     */
+    public boolean overlaps(LocalDate startDate, LocalDate endDate, LocalTime startTime, int duration) {
+        return snapshot.anyOverlap(lookup(startDate, endDate, startTime, duration));
+    }
+
+    /**
+     * Number of indexed classes an overlap check for the given schedule looks at.
+     */
+    int visitedNodes(LocalDate startDate, LocalDate endDate, LocalTime startTime, int duration) {
+        Lookup lookup = lookup(startDate, endDate, startTime, duration);
+        snapshot.anyOverlap(lookup);
+        return lookup.visited;
+    }
+
+    private static Lookup lookup(LocalDate startDate, LocalDate endDate, LocalTime startTime, int duration) {
+        int startMinute = startTime.toSecondOfDay() / 60;
+        return new Lookup(new Schedule(startDate.toEpochDay(), endDate.toEpochDay(), startMinute, startMinute + duration));
+    }
+
+    /**
+     * Schedule of one class: inclusive epoch-day range and the daily window in minutes after midnight.
+     * The window may end after midnight, in which case it spills into the next day.
+     */
+    record Schedule(long startDay, long endDay, int startMinute, int endMinute) {
+
+        /**
+         * Last day the class occupies, the day after {@code endDay} when the window spills past midnight.
+         */
+        long lastDay() {
+            return endMinute > MINUTES_PER_DAY ? endDay + 1 : endDay;
+        }
+
+        static Schedule of(GymClass gymClass) {
+            int startMinute = gymClass.getStartTime().toSecondOfDay() / 60;
+            return new Schedule(gymClass.getStartDate().toEpochDay(), gymClass.getEndDate().toEpochDay(),
+                    startMinute, startMinute + gymClass.getDuration());
+        }
+
+        boolean overlaps(Schedule other) {
+            return startDay <= other.lastDay() && other.startDay <= lastDay() && clashesWith(other);
+        }
+
+        boolean clashesWith(Schedule other) {
+            // A window spilling past midnight can meet a window of the following day, so compare shifted by a day too.
+            // This is conservative on the first and last day of a range.
+            for (int shift = -MINUTES_PER_DAY; shift <= MINUTES_PER_DAY; shift += MINUTES_PER_DAY) {
+                if (startMinute < other.endMinute + shift && other.startMinute + shift < endMinute) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Buckets covered by the daily window, wrapping past midnight. Windows overlapping modulo a day,
+         * which is what {@link #clashesWith} checks, always share a bucket.
+         */
+        int[] buckets() {
+            if (endMinute - startMinute > MINUTES_PER_DAY - BUCKET_MINUTES) {
+                return IntStream.range(0, BUCKETS).toArray();
+            }
+            int first = Math.floorMod(startMinute, MINUTES_PER_DAY) / BUCKET_MINUTES;
+            int last = Math.floorMod(Math.max(startMinute, endMinute - 1), MINUTES_PER_DAY) / BUCKET_MINUTES;
+            return IntStream.rangeClosed(0, Math.floorMod(last - first, BUCKETS))
+                    .map(offset -> (first + offset) % BUCKETS)
+                    .toArray();
+        }
+    }
+
+    /**
+     * One overlap check, counting the classes it looks at.
+     */
+    private static final class Lookup {
+
+        private final Schedule candidate;
+        private int visited;
+
+        private Lookup(Schedule candidate) {
+            this.candidate = candidate;
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final Schedule[] schedules;   // Every indexed class
+        private final DateTree[] buckets;     // Per hour of the day, the classes whose window covers it
+
+        private Snapshot(Schedule[] schedules, DateTree[] buckets) {
+            this.schedules = schedules;
+            this.buckets = buckets;
+        }
+
+        static Snapshot of(Collection<Schedule> schedules) {
+            List<List<Schedule>> perBucket = new ArrayList<>();
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                perBucket.add(new ArrayList<>());
+            }
+            for (Schedule schedule : schedules) {
+                for (int bucket : schedule.buckets()) {
+                    perBucket.get(bucket).add(schedule);
+                }
+            }
+            DateTree[] buckets = perBucket.stream().map(DateTree::of).toArray(DateTree[]::new);
+            return new Snapshot(schedules.toArray(new Schedule[0]), buckets);
+        }
+
+        Snapshot with(Schedule schedule) {
+            Schedule[] all = Arrays.copyOf(schedules, schedules.length + 1);
+            all[schedules.length] = schedule;
+            DateTree[] copy = buckets.clone(); // Buckets the class does not cover are shared
+            for (int bucket : schedule.buckets()) {
+                copy[bucket] = buckets[bucket].with(schedule);
+            }
+            return new Snapshot(all, copy);
+        }
+
+        boolean anyOverlap(Lookup lookup) {
+            for (int bucket : lookup.candidate.buckets()) {
+                DateTree tree = buckets[bucket];
+                if (tree.anyOverlap(lookup, 0, tree.schedules.length)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class DateTree {
+
+        private final Schedule[] schedules;   // Sorted by start day
+        private final long[] maxEndDay;       // Latest last day within the subtree rooted at each index
+
+        private DateTree(Schedule[] schedules) {
+            this.schedules = schedules;
+            this.maxEndDay = new long[schedules.length];
+            computeMaxEnd(0, schedules.length);
+        }
+
+        static DateTree of(Collection<Schedule> schedules) {
+            Schedule[] sorted = schedules.toArray(new Schedule[0]);
+            Arrays.sort(sorted, Comparator.comparingLong(Schedule::startDay));
+            return new DateTree(sorted);
+        }
+
+        DateTree with(Schedule schedule) {
+            int position = 0;
+            while (position < schedules.length && schedules[position].startDay() <= schedule.startDay()) {
+                position++;
+            }
+            Schedule[] copy = new Schedule[schedules.length + 1];
+            System.arraycopy(schedules, 0, copy, 0, position);
+            copy[position] = schedule;
+            System.arraycopy(schedules, position, copy, position + 1, schedules.length - position);
+            return new DateTree(copy);
+        }
+
+        boolean anyOverlap(Lookup lookup, int from, int to) {
+            if (from >= to) {
+                return false;
+            }
+            Schedule candidate = lookup.candidate;
+            int mid = (from + to) >>> 1;
+            lookup.visited++;
+            if (maxEndDay[mid] < candidate.startDay()) {
+                return false; // Every class in this subtree ends before the candidate starts
+            }
+            if (anyOverlap(lookup, from, mid)) {
+                return true;
+            }
+            Schedule schedule = schedules[mid];
+            if (schedule.startDay() > candidate.lastDay()) {
+                return false; // This class and everything to its right start after the candidate ends
+            }
+            if (schedule.lastDay() >= candidate.startDay() && schedule.clashesWith(candidate)) {
+                return true;
+            }
+            return anyOverlap(lookup, mid + 1, to);
+        }
+
+        private long computeMaxEnd(int from, int to) {
+            if (from >= to) {
+                return Long.MIN_VALUE;
+            }
+            int mid = (from + to) >>> 1;
+            long max = Math.max(schedules[mid].lastDay(), Math.max(computeMaxEnd(from, mid), computeMaxEnd(mid + 1, to)));
+            maxEndDay[mid] = max;
+            return max;
+        }
+    }
+}
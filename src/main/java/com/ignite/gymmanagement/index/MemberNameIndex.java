@@ -0,0 +1,199 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.index;
+
+import com.ignite.gymmanagement.model.ClassBooking;
+import com.ignite.gymmanagement.model.Member;
+import com.ignite.gymmanagement.repository.MemberRepository;
+import com.ignite.gymmanagement.specifications.BookingSpecifications;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Trigram index over the names of all members, for case-insensitive substring search.
+ * <p>
+ * A {@code LIKE '%x%'} filter on member names has to scan every member. Resolving the matching members here
+ * first lets the search filter with {@code member_id IN (...)}, which the booking index on member_id serves.
+ * The index is built in the background at startup and updated as members are resolved for bookings on this node.
+ * <p>
+ * Members created on other nodes are only picked up by a refresh, which loads the members above the highest id
+ * known to be indexed. Member ids come from a sequence, so a member inserted by a transaction still open
+ * during a refresh has a lower id than those the refresh saw. Ids are therefore only taken as indexed one
+ * refresh later, when such transactions have long committed. Searches still match members above that id
+ * by name, so a member the index does not know yet is never missed.
+ */
+@Slf4j
+@Component
+public class MemberNameIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    /**
+     * Above this many matching members an IN list stops paying off and the search falls back to LIKE.
+     */
+    private static final int MAX_RESOLVED_NAMES = 1000;
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentMap<String, Long> idsByName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<String>> namesByTrigram = new ConcurrentHashMap<>();
+    private final Lock refreshLock = new ReentrantLock();
+    private volatile boolean ready;
+    private volatile long indexedUpTo = -1;   // Every member with an id up to this one is indexed
+    private volatile long seenUpTo = -1;      // Highest id seen by the last refresh, taken as indexed by the next
+
+    public MemberNameIndex(MemberRepository memberRepository, PlatformTransactionManager transactionManager) {
+        this.memberRepository = memberRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Loads all members from the member table.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.nanoTime();
+        refresh();
+        log.info("Member name index built with {} names and {} trigrams in {} ms",
+                idsByName.size(), namesByTrigram.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Loads the members created since the last indexed id, including those created on other nodes.
+     * Skipped while another refresh runs.
+     */
+    @Scheduled(fixedDelayString = "${gym.member.index-refresh-interval}")
+    public void refresh() {
+        if (!refreshLock.tryLock()) {
+            return;
+        }
+        try {
+            long from = indexedUpTo;
+            long previouslySeen = seenUpTo;
+            Long seen = transactionTemplate.execute(status -> {
+                long max = previouslySeen;
+                try (Stream<Member> members = memberRepository.streamAfter(from)) {
+                    Iterator<Member> iterator = members.iterator();
+                    while (iterator.hasNext()) {
+                        Member member = iterator.next();
+                        add(member.getName(), member.getId());
+                        max = Math.max(max, member.getId());
+                    }
+                }
+                return max;
+            });
+            indexedUpTo = previouslySeen;
+            seenUpTo = seen != null ? seen : previouslySeen;
+            ready = true;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Adds a member to the index.
+     */
+    public void add(String memberName, Long memberId) {
+        if (memberName == null || idsByName.putIfAbsent(memberName, memberId) != null) {
+            return;
+        }
+        for (String trigram : trigrams(memberName.toLowerCase(Locale.ROOT))) {
+            namesByTrigram.computeIfAbsent(trigram, key -> ConcurrentHashMap.newKeySet()).add(memberName);
+        }
+    }
+
+    /**
+     * Builds the booking search filter, matching member names through this index when it can answer the query
+     * and with the case-insensitive LIKE filter otherwise. Members above the indexed ids are matched with LIKE either way.
+     */
+    public Specification<ClassBooking> filterBookings(String memberName, LocalDate startDate, LocalDate endDate) {
+        long upTo = indexedUpTo;
+        if (memberName == null || memberName.isEmpty() || upTo < 0) {
+            return BookingSpecifications.filterBookings(memberName, startDate, endDate);
+        }
+        return resolve(memberName)
+                .map(memberIds -> BookingSpecifications.filterBookings(memberIds, upTo, memberName, startDate, endDate))
+                .orElseGet(() -> BookingSpecifications.filterBookings(memberName, startDate, endDate));
+    }
+
+    /**
+     * Resolves the indexed members whose names contain the query, ignoring case.
+     *
+     * @return the ids of the matching members, or empty if the index cannot answer the query
+     * (still building, or too many matches).
+     */
+    public Optional<Set<Long>> resolve(String query) {
+        if (!ready) {
+            return Optional.empty();
+        }
+
+        String needle = query.toLowerCase(Locale.ROOT);
+        Set<Long> matches = new HashSet<>();
+        for (String candidate : candidates(needle)) {
+            if (candidate.toLowerCase(Locale.ROOT).contains(needle)) {
+                matches.add(idsByName.get(candidate));
+                if (matches.size() > MAX_RESOLVED_NAMES) {
+                    return Optional.empty();
+                }
+            }
+        }
+        return Optional.of(matches);
+    }
+
+    /**
+     * Returns the names sharing the query's rarest trigram, or all names for queries shorter than a trigram.
+     */
+    private Set<String> candidates(String needle) {
+        if (needle.length() < GRAM_LENGTH) {
+            return idsByName.keySet();
+        }
+        Set<String> smallest = null;
+        for (String trigram : trigrams(needle)) {
+            Set<String> posting = namesByTrigram.get(trigram);
+            if (posting == null) {
+                return Set.of();
+            }
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+        return smallest;
+    }
+
+    long indexedUpTo() {
+        return indexedUpTo;
+    }
+
+    private static Set<String> trigrams(String value) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+            trigrams.add(value.substring(i, i + GRAM_LENGTH));
+        }
+        return trigrams;
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a booking request sent with an {@code Idempotency-Key}. The row is claimed before the booking
+ * runs and filled in with the response afterwards; a row without a status code is still in progress.
+ */
+@Entity
+@Table(name = "booking_idempotency", indexes = {
+        @Index(name = "idx_booking_idempotency_created_at", columnList = "created_at") // Purge of expired keys
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+public class BookingIdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String idempotencyKey;        // Key chosen by the client, unique per booking attempt
+
+    @Column(name = "request_hash", nullable = false, length = 32)
+    private String requestHash;           // Fingerprint of the request the key was first used with
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;      // When the key was claimed
+
+    @Column(name = "status_code")
+    private Integer statusCode;           // HTTP status of the response, null while the booking runs
+
+    @Column(name = "success")
+    private Boolean success;              // Success flag of the response
+
+    @Column(name = "message")
+    private String message;               // Message of the response
+
+    @Column(name = "error_code", length = 64)
+    private String errorCode;             // Error code of the response
+
+    @Column(name = "responded_at")
+    private LocalDateTime respondedAt;    // Timestamp of the response
+
+    @Column(name = "booking_id")
+    private Long bookingId;               // The created booking, if any
+
+    @Column(name = "gym_class_id")
+    private Long gymClassId;
+
+    @Column(name = "gym_class_name")
+    private String gymClassName;
+
+    @Column(name = "member_name")
+    private String memberName;
+
+    @Column(name = "participation_date")
+    private LocalDate participationDate;
+
+}
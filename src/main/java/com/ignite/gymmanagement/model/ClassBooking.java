@@ -10,11 +10,15 @@ import lombok.*;
 
 import java.time.LocalDate;
 
+/**
+ * A member's booking of a class session. On PostgreSQL the table is partitioned by month of
+ * participation date (see schema-postgresql.sql); filter by date where possible so partitions are pruned.
+ */
 @Entity
 @Table(name = "class_booking", indexes = {
-        @Index(name = "idx_booking_member_name", columnList = "member_name"),
-        @Index(name = "idx_booking_participation_date", columnList = "participation_date"),
-        @Index(name = "idx_booking_composite", columnList = "member_name, participation_date")
+        @Index(name = "idx_booking_composite", columnList = "member_id, participation_date"), // A member's bookings
+        @Index(name = "idx_booking_date_id", columnList = "participation_date, id"), // Keyset order of booking search
+        @Index(name = "idx_booking_class_date", columnList = "gym_class_id, participation_date") // Per-day counts of a class
 })
 @Getter
 @Setter
@@ -24,13 +28,15 @@ import java.time.LocalDate;
 public class ClassBooking {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "class_booking_seq")
+    @SequenceGenerator(name = "class_booking_seq", sequenceName = "class_booking_seq", allocationSize = 50) // Pooled ids keep insert batching possible
     private Long id;
 
-    @Column(name = "member_name", nullable = false)
-    private String memberName;  // Name of the member booking the class
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "member_id", nullable = false)
+    private Member member;      // Member booking the class
 
-    @ManyToOne()
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "gym_class_id", nullable = false) // Explicit foreign key definition
     private GymClass gymClass;  // Reference to the class being booked
 
@@ -0,0 +1,33 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Booked seat count of one class session, kept in step with {@link ClassBooking} rows
+ * so capacity can be enforced with a single conditional update.
+ */
+@Entity
+@Table(name = "class_occupancy")
+@Getter
+@Setter
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+public class ClassOccupancy {
+
+    @EmbeddedId
+    private ClassOccupancyId id;
+
+    @Column(name = "booked", nullable = false)
+    private int booked;          // Seats already taken for the session
+
+    @Column(name = "capacity", nullable = false)
+    private int capacity;        // Seats available for the session
+
+}
@@ -0,0 +1,29 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassOccupancyId implements Serializable {
+
+    @Column(name = "gym_class_id", nullable = false)
+    private Long gymClassId;             // Class the seats belong to
+
+    @Column(name = "participation_date", nullable = false)
+    private LocalDate participationDate; // Day of the class session
+
+}
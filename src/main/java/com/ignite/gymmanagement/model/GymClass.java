@@ -22,7 +22,8 @@ import java.time.LocalTime;
 public class GymClass {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "gym_class_seq")
+    @SequenceGenerator(name = "gym_class_seq", sequenceName = "gym_class_seq", allocationSize = 50) // Pooled ids keep insert batching possible
     private Long id;
 
     @Column(name = "name", nullable = false)
@@ -0,0 +1,33 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A member who books classes, known by name. Bookings reference members by id,
+ * so per-member lookups compare integers instead of names.
+ */
+@Entity
+@Table(name = "member", uniqueConstraints = @UniqueConstraint(name = "uk_member_name", columnNames = "name"))
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+public class Member {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq")
+    @SequenceGenerator(name = "member_seq", sequenceName = "member_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "name", nullable = false)
+    private String name;        // Name the member books with, compared exactly
+
+}
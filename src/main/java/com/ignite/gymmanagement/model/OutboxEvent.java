@@ -0,0 +1,47 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A domain event waiting to be relayed to downstream systems. It is written in the transaction of the change
+ * it describes and deleted once the relay has handed it to the sink.
+ */
+@Entity
+@Table(name = "outbox_event")
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq", allocationSize = 50)
+    private Long id;                // Allocated in blocks per node, so not in write or commit order
+
+    @Column(name = "aggregate_type", nullable = false, length = 64)
+    private String aggregateType;   // Kind of record the event is about, e.g. Booking
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;       // Id of that record
+
+    @Column(name = "event_type", nullable = false, length = 64)
+    private String eventType;       // What happened, e.g. BookingCreated
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;         // The event as JSON
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt; // When the event was written
+
+}
@@ -0,0 +1,47 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A member waiting for a seat of a full class session. Entries are promoted to bookings in the order members joined.
+ */
+@Entity
+@Table(name = "waitlist_entry",
+        uniqueConstraints = @UniqueConstraint(name = "uk_waitlist_member_slot",
+                columnNames = {"gym_class_id", "participation_date", "member_name"}),
+        indexes = @Index(name = "idx_waitlist_participation_date", columnList = "participation_date"))
+@Getter
+@Setter
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "waitlist_entry_seq")
+    @SequenceGenerator(name = "waitlist_entry_seq", sequenceName = "waitlist_entry_seq", allocationSize = 50)
+    private Long id;            // Allocated in blocks per node, so not in waiting order
+
+    @Column(name = "member_name", nullable = false)
+    private String memberName;  // Name of the waiting member
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "gym_class_id", nullable = false)
+    private GymClass gymClass;  // Class the member waits for
+
+    @Column(name = "participation_date", nullable = false)
+    private LocalDate participationDate; // Session the member waits for
+
+    @Column(name = "joined_at", nullable = false)
+    private LocalDateTime joinedAt;      // When the member joined the waitlist, gives the waiting order
+
+}
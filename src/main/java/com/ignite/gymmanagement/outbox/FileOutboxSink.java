@@ -0,0 +1,66 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ignite.gymmanagement.config.OutboxProperties;
+import com.ignite.gymmanagement.model.OutboxEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends relayed events to a file, one JSON object per line, for local consumers that tail the file.
+ * Each batch is written with one append, so a batch relayed again after a failure may appear twice.
+ */
+@Component
+@ConditionalOnProperty(prefix = "gym.outbox", name = "sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+
+    private final ObjectMapper objectMapper;
+    private final Path file;
+
+    public FileOutboxSink(ObjectMapper objectMapper, OutboxProperties properties) {
+        this.objectMapper = objectMapper;
+        this.file = properties.file();
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) {
+        StringBuilder lines = new StringBuilder();
+        try {
+            for (OutboxEvent event : events) {
+                ObjectNode line = objectMapper.createObjectNode()
+                        .put("id", event.getId())
+                        .put("aggregateType", event.getAggregateType())
+                        .put("aggregateId", event.getAggregateId())
+                        .put("eventType", event.getEventType())
+                        .put("createdAt", event.getCreatedAt().toString());
+                line.set("payload", objectMapper.readTree(event.getPayload()));
+                lines.append(objectMapper.writeValueAsString(line)).append('\n');
+            }
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(lines.toString());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append outbox events to " + file, e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.outbox;
+
+import com.ignite.gymmanagement.model.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Logs relayed events, for running locally without downstream systems.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "gym.outbox", name = "sink", havingValue = "log", matchIfMissing = true)
+public class LogOutboxSink implements OutboxSink {
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            log.info("Outbox event {} {} of {} {}: {}", event.getId(), event.getEventType(),
+                    event.getAggregateType(), event.getAggregateId(), event.getPayload());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.outbox;
+
+import com.ignite.gymmanagement.config.OutboxProperties;
+import com.ignite.gymmanagement.model.OutboxEvent;
+import com.ignite.gymmanagement.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Relays outbox events to the sink in batches.
+ * <p>
+ * Each batch is locked with {@code FOR UPDATE SKIP LOCKED}, handed to the sink and deleted in one transaction,
+ * so a batch the sink fails on stays in the outbox and is relayed again. Relays on other nodes skip the locked
+ * rows and take the next batch instead of waiting. A run relays full batches until the outbox is drained or
+ * {@code maxBatchesPerRun} is reached.
+ * <p>
+ * Delivery is not ordered. Ids are allocated in blocks per node and follow neither write nor commit order,
+ * and several relays publish batches concurrently. Consumers must accept events of an aggregate in any order,
+ * e.g. a cancellation before its booking.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "gym.outbox", name = "relay-enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxProperties properties;
+
+    private final DistributionSummary batchSizes;
+    private final Counter publishedEvents;
+    private final Counter failedBatches;
+    private final Timer publishTime;
+    private final Timer lag;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, OutboxSink sink,
+                       PlatformTransactionManager transactionManager, OutboxProperties properties,
+                       MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.sink = sink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.batchSizes = DistributionSummary.builder("gym.outbox.batch.size")
+                .description("Events relayed per batch")
+                .register(meterRegistry);
+        this.publishedEvents = Counter.builder("gym.outbox.events.published")
+                .description("Events handed to the outbox sink; its rate is the relay throughput")
+                .register(meterRegistry);
+        this.failedBatches = Counter.builder("gym.outbox.batches.failed")
+                .description("Batches left in the outbox because the sink or the database failed")
+                .register(meterRegistry);
+        this.publishTime = Timer.builder("gym.outbox.publish")
+                .description("Time the sink took to publish a batch")
+                .register(meterRegistry);
+        this.lag = Timer.builder("gym.outbox.lag")
+                .description("Age of the oldest event of a batch when it was relayed")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${gym.outbox.poll-interval}")
+    public void relay() {
+        for (int batch = 0; batch < properties.maxBatchesPerRun(); batch++) {
+            if (relayBatch() < properties.batchSize()) {
+                return; // Drained, or failed and retried next run
+            }
+        }
+    }
+
+    /**
+     * Relays a batch of unlocked events in one transaction.
+     *
+     * @return the number of events relayed, 0 if there were none or the batch failed.
+     */
+    int relayBatch() {
+        try {
+            List<OutboxEvent> events = transactionTemplate.execute(status -> {
+                List<OutboxEvent> batch = outboxEventRepository.lockNextBatch(properties.batchSize());
+                if (!batch.isEmpty()) {
+                    publishTime.record(() -> sink.publish(batch));
+                    outboxEventRepository.deleteAllByIdInBatch(batch.stream().map(OutboxEvent::getId).toList());
+                }
+                return batch;
+            });
+            if (events == null || events.isEmpty()) {
+                return 0;
+            }
+
+            batchSizes.record(events.size());
+            publishedEvents.increment(events.size());
+            LocalDateTime oldest = events.stream().map(OutboxEvent::getCreatedAt).min(Comparator.naturalOrder()).orElseThrow();
+            lag.record(Duration.between(oldest, LocalDateTime.now()));
+            log.debug("Relayed {} outbox events", events.size());
+            return events.size();
+        } catch (RuntimeException e) {
+            failedBatches.increment();
+            log.error("Outbox relay failed, the batch stays in the outbox: {}", e.getMessage(), e);
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.outbox;
+
+import com.ignite.gymmanagement.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Destination of the events relayed from the outbox, e.g. a message broker.
+ * <p>
+ * A batch is removed from the outbox only if {@link #publish} returns normally; if it throws, the whole batch
+ * is relayed again later. Delivery is therefore at least once, and consumers should skip event ids they
+ * have already seen.
+ */
+public interface OutboxSink {
+
+    /**
+     * Publishes a batch of events, in no guaranteed order.
+     */
+    void publish(List<OutboxEvent> events);
+}
@@ -0,0 +1,69 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ignite.gymmanagement.event.BookingCancelledEvent;
+import com.ignite.gymmanagement.event.BookingCreatedEvent;
+import com.ignite.gymmanagement.event.ClassCreatedEvent;
+import com.ignite.gymmanagement.model.OutboxEvent;
+import com.ignite.gymmanagement.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Writes the domain events of bookings and classes to the outbox, in the transaction that published them.
+ * <p>
+ * Events are written just before that transaction commits, so the outbox row commits or rolls back with the
+ * change it describes, and no event is written for a change that was rolled back. A failing write fails the
+ * commit. Events published outside a transaction are written in a transaction of their own.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    static final String BOOKING = "Booking";
+    static final String GYM_CLASS = "GymClass";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onBookingCreated(BookingCreatedEvent event) {
+        write(BOOKING, event.bookingId(), "BookingCreated", event);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onBookingCancelled(BookingCancelledEvent event) {
+        write(BOOKING, event.bookingId(), "BookingCancelled", event);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onClassCreated(ClassCreatedEvent event) {
+        write(GYM_CLASS, event.gymClassId(), "ClassCreated", event);
+    }
+
+    private void write(String aggregateType, Long aggregateId, String eventType, Object event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + eventType + " event of " + aggregateType + " " + aggregateId, e);
+        }
+        outboxEventRepository.save(OutboxEvent.builder()
+                .aggregateType(aggregateType)
+                .aggregateId(aggregateId)
+                .eventType(eventType)
+                .payload(payload)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.ratelimit;
+
+import com.ignite.gymmanagement.config.RateLimitProperties;
+import com.ignite.gymmanagement.exception.RateLimitExceededException;
+import com.ignite.gymmanagement.util.ResponseConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for bookings: token buckets per member name and, optionally, per client IP.
+ * <p>
+ * The controller asks the limiter before any service call, so a client flooding the booking endpoint
+ * is turned away with 429 before it can hold a bulkhead permit or a database connection. Member names
+ * are hashed ignoring case, so changing the case of a name does not get a client a fresh bucket.
+ */
+@Component
+public class BookingRateLimiter {
+
+    static final String MEMBER = "member";
+    static final String CLIENT_IP = "client_ip";
+
+    private final RateLimitProperties properties;
+    private final StripedTokenBucket memberBuckets;    // null when members are not limited
+    private final StripedTokenBucket clientIpBuckets;  // null when client IPs are not limited
+    private final Counter memberRejections;
+    private final Counter clientIpRejections;
+
+    public BookingRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.memberBuckets = buckets(properties.stripes(), properties.member());
+        this.clientIpBuckets = buckets(properties.stripes(), properties.clientIp());
+        this.memberRejections = registerMeters(meterRegistry, MEMBER, memberBuckets);
+        this.clientIpRejections = registerMeters(meterRegistry, CLIENT_IP, clientIpBuckets);
+    }
+
+    /**
+     * Takes a token for the member and the client IP.
+     *
+     * @throws RateLimitExceededException if either of them has used up its tokens.
+     */
+    public void acquire(String memberName, String clientIp) {
+        if (memberBuckets != null && memberName != null) {
+            check(memberBuckets.tryAcquire(caseInsensitiveHash(memberName)), memberRejections);
+        }
+        if (clientIpBuckets != null && clientIp != null) {
+            check(clientIpBuckets.tryAcquire(clientIp.hashCode()), clientIpRejections);
+        }
+    }
+
+    /**
+     * Settings and current state of the limiter, per key type.
+     */
+    public Map<String, Object> state() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put(MEMBER, state(properties.member(), memberBuckets, memberRejections));
+        state.put(CLIENT_IP, state(properties.clientIp(), clientIpBuckets, clientIpRejections));
+        return state;
+    }
+
+    private static void check(long waitMillis, Counter rejections) {
+        if (waitMillis > 0) {
+            rejections.increment();
+            throw new RateLimitExceededException(ResponseConstants.ERROR_RATE_LIMITED,
+                    Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMillis + 999)));
+        }
+    }
+
+    private static Map<String, Object> state(RateLimitProperties.Limit limit, StripedTokenBucket buckets, Counter rejections) {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("enabled", buckets != null);
+        state.put("capacity", limit.capacity());
+        state.put("refillPerSecond", limit.refillPerSecond());
+        if (buckets != null) {
+            state.put("stripes", buckets.stripes());
+            state.put("activeStripes", buckets.activeStripes());
+            state.put("exhaustedStripes", buckets.exhaustedStripes());
+        }
+        state.put("rejections", (long) rejections.count());
+        return state;
+    }
+
+    private static StripedTokenBucket buckets(int stripes, RateLimitProperties.Limit limit) {
+        return limit.enabled() ? new StripedTokenBucket(stripes, limit.capacity(), limit.refillPerSecond()) : null;
+    }
+
+    /**
+     * Registers the rejection counter of a key type, and the exhausted buckets gauge if it is limited.
+     */
+    private static Counter registerMeters(MeterRegistry meterRegistry, String key, StripedTokenBucket buckets) {
+        if (buckets != null) {
+            Gauge.builder("gym.rate.limit.exhausted.stripes", buckets, StripedTokenBucket::exhaustedStripes)
+                    .description("Token buckets with no token left, so requests hashing to them are rejected")
+                    .tag("key", key)
+                    .register(meterRegistry);
+        }
+        return Counter.builder("gym.rate.limit.rejections")
+                .description("Booking requests rejected by the rate limiter")
+                .tag("key", key)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Same as {@code name.toLowerCase().hashCode()} for most names, without creating the lower-case copy.
+     */
+    static int caseInsensitiveHash(String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + Character.toLowerCase(name.charAt(i));
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.ratelimit;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Shows the settings of the booking rate limiter, how many of its buckets are in use or exhausted,
+ * and how many requests it rejected, under {@code /actuator/ratelimiter}.
+ */
+@Component
+@AllArgsConstructor
+@Endpoint(id = "ratelimiter")
+public class RateLimiterEndpoint {
+
+    private final BookingRateLimiter bookingRateLimiter;
+
+    @ReadOperation
+    public Map<String, Object> rateLimiter() {
+        return bookingRateLimiter.state();
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Fixed number of token buckets, each shared by all keys hashing to it.
+ * <p>
+ * Every bucket is a single long in an {@link AtomicLongArray}: the time of its last refill in milliseconds
+ * in the upper 40 bits, and the milli-tokens taken from it in the lower 24 bits. A fresh bucket is
+ * therefore 0 and full. Taking a token is one compare-and-set; a rejection only reads. Neither allocates,
+ * and the memory used does not grow with the number of keys. Keys sharing a bucket share its tokens,
+ * which only makes the limit stricter for them.
+ */
+class StripedTokenBucket {
+
+    private static final int DEBT_BITS = 24;
+    private static final long DEBT_MASK = (1L << DEBT_BITS) - 1;
+    private static final long MILLI_TOKENS = 1000;
+    static final int MAX_CAPACITY = (int) (DEBT_MASK / MILLI_TOKENS);
+
+    private final AtomicLongArray buckets;
+    private final int mask;
+    private final long capacity;          // In milli-tokens
+    private final double refillPerMilli;  // Milli-tokens per millisecond, the same number as tokens per second
+    private final LongSupplier nanoTime;
+    private final long origin;
+
+    StripedTokenBucket(int stripes, int capacity, double refillPerSecond) {
+        this(stripes, capacity, refillPerSecond, System::nanoTime);
+    }
+
+    StripedTokenBucket(int stripes, int capacity, double refillPerSecond, LongSupplier nanoTime) {
+        if (stripes < 1 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Stripes must be a power of two, got " + stripes);
+        }
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY + ", got " + capacity);
+        }
+        if (refillPerSecond < 0.001) {
+            throw new IllegalArgumentException("Refill rate must be at least 0.001 tokens per second, got " + refillPerSecond);
+        }
+        this.buckets = new AtomicLongArray(stripes);
+        this.mask = stripes - 1;
+        this.capacity = capacity * MILLI_TOKENS;
+        this.refillPerMilli = refillPerSecond;
+        this.nanoTime = nanoTime;
+        this.origin = nanoTime.getAsLong();
+    }
+
+    /**
+     * Takes a token from the bucket of the given key hash.
+     *
+     * @return 0 if a token was taken, otherwise the milliseconds until the bucket holds one again.
+     */
+    long tryAcquire(int hash) {
+        int index = spread(hash) & mask;
+        long now = nowMillis();
+        while (true) {
+            long state = buckets.get(index);
+            long refilledAt = state >>> DEBT_BITS;
+            long debt = state & DEBT_MASK;
+            long refilled = refilled(refilledAt, now);
+            if (refilled > 0) {
+                debt = Math.max(0, debt - refilled);
+                refilledAt = now;
+            }
+            long newDebt = debt + MILLI_TOKENS;
+            if (newDebt > capacity) {
+                return Math.max(1, (long) Math.ceil((newDebt - capacity) / refillPerMilli));
+            }
+            if (buckets.compareAndSet(index, state, (refilledAt << DEBT_BITS) | newDebt)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Counts the buckets that are not full, that is the stripes with recent traffic.
+     */
+    int activeStripes() {
+        long now = nowMillis();
+        int active = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            if (debtAt(buckets.get(i), now) > 0) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Counts the buckets that hold less than one token, so requests hashing to them are rejected.
+     */
+    int exhaustedStripes() {
+        long now = nowMillis();
+        int exhausted = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            if (debtAt(buckets.get(i), now) + MILLI_TOKENS > capacity) {
+                exhausted++;
+            }
+        }
+        return exhausted;
+    }
+
+    int stripes() {
+        return buckets.length();
+    }
+
+    /**
+     * Milli-tokens taken from a bucket, after refilling it up to now. The refill time only moves on once
+     * at least one milli-token was refilled, so slow rates still add up.
+     */
+    private long debtAt(long state, long now) {
+        return Math.max(0, (state & DEBT_MASK) - refilled(state >>> DEBT_BITS, now));
+    }
+
+    private long refilled(long refilledAt, long now) {
+        return (long) ((now - refilledAt) * refillPerMilli);
+    }
+
+    private long nowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(nanoTime.getAsLong() - origin);
+    }
+
+    /**
+     * Mixes the high bits of the hash into the low ones used for the index.
+     */
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.ratelimit;
\ No newline at end of file
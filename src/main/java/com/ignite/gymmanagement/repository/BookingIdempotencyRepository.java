@@ -0,0 +1,58 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.repository;
+
+import com.ignite.gymmanagement.model.BookingIdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface BookingIdempotencyRepository extends JpaRepository<BookingIdempotencyRecord, String> {
+
+    /**
+     * Claims an idempotency key for a new booking attempt.
+     *
+     * @return 1 if the key was claimed, 0 if it is already taken.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO booking_idempotency (idempotency_key, request_hash, created_at) " +
+            "VALUES (:key, :requestHash, :createdAt) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int claim(@Param("key") String key,
+              @Param("requestHash") String requestHash,
+              @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * Takes over a claim whose booking never recorded a response, e.g. because the node died.
+     *
+     * @return 1 if the claim was taken over, 0 if it completed or is still fresh.
+     */
+    @Modifying
+    @Query("UPDATE BookingIdempotencyRecord r SET r.createdAt = :now " +
+            "WHERE r.idempotencyKey = :key AND r.requestHash = :requestHash " +
+            "AND r.statusCode IS NULL AND r.createdAt < :staleBefore")
+    int takeOverStale(@Param("key") String key,
+                      @Param("requestHash") String requestHash,
+                      @Param("now") LocalDateTime now,
+                      @Param("staleBefore") LocalDateTime staleBefore);
+
+    /**
+     * Releases a claim whose booking was rolled back, so a retry with the key can book. Keys with a
+     * stored response are kept.
+     */
+    @Modifying
+    @Query("DELETE FROM BookingIdempotencyRecord r WHERE r.idempotencyKey = :key AND r.statusCode IS NULL")
+    int releaseClaim(@Param("key") String key);
+
+    /**
+     * Drops the keys claimed before the given time.
+     */
+    @Modifying
+    @Query("DELETE FROM BookingIdempotencyRecord r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
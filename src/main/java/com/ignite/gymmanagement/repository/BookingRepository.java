@@ -15,7 +15,8 @@ import org.springframework.data.repository.query.Param;
 import java.time.LocalDate;
 import java.util.List;
 
-public interface BookingRepository extends JpaRepository<ClassBooking, Long>, JpaSpecificationExecutor<ClassBooking> {
+public interface BookingRepository extends JpaRepository<ClassBooking, Long>, JpaSpecificationExecutor<ClassBooking>,
+        BookingSearchRepository {
 
     /**
      * Counts bookings for a given class on a specific date.
@@ -26,10 +27,35 @@ public interface BookingRepository extends JpaRepository<ClassBooking, Long>, Jp
      * Fetches bookings based on optional filters (member name, start date, end date).
      */
     @Query("SELECT b FROM ClassBooking b " +
-            "WHERE (:memberName IS NULL OR LOWER(b.memberName) LIKE LOWER(CONCAT('%', :memberName, '%'))) " +
+            "WHERE (:memberName IS NULL OR LOWER(b.member.name) LIKE LOWER(CONCAT('%', :memberName, '%'))) " +
             "AND (:startDate IS NULL OR b.participationDate >= :startDate) " +
             "AND (:endDate IS NULL OR b.participationDate <= :endDate)")
     List<ClassBooking> findBookings(@Param("memberName") String memberName,
                                     @Param("startDate") LocalDate startDate,
                                     @Param("endDate") LocalDate endDate);
+
+    /**
+     * Counts the bookings of a class per day within a date range, in one aggregate query.
+     * Days without bookings are absent. Not cached here: availability responses are cached, and evicted on
+     * every booking, by {@link com.ignite.gymmanagement.service.ResponseCacheService}.
+     */
+    @Query("SELECT new com.ignite.gymmanagement.repository.DailyBookingCount(b.participationDate, COUNT(b)) " +
+            "FROM ClassBooking b " +
+            "WHERE b.gymClass.id = :gymClassId AND b.participationDate BETWEEN :from AND :to " +
+            "GROUP BY b.participationDate")
+    List<DailyBookingCount> countBookingsPerDay(@Param("gymClassId") Long gymClassId,
+                                                @Param("from") LocalDate from,
+                                                @Param("to") LocalDate to);
+
+    /**
+     * Returns the earliest participation date of any booking, or null if there are no bookings.
+     */
+    @Query("SELECT MIN(b.participationDate) FROM ClassBooking b")
+    LocalDate findFirstParticipationDate();
+
+    /**
+     * Returns the latest participation date of any booking, or null if there are no bookings.
+     */
+    @Query("SELECT MAX(b.participationDate) FROM ClassBooking b")
+    LocalDate findLastParticipationDate();
 }
@@ -0,0 +1,31 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.repository;
+
+import com.ignite.gymmanagement.dto.ClassBookingResponseDto;
+import com.ignite.gymmanagement.model.ClassBooking;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Booking search queries that select the API columns directly instead of loading entities.
+ * Results are ordered by (participationDate, id).
+ */
+public interface BookingSearchRepository {
+
+    /**
+     * Fetches at most {@code limit} bookings matching the specification.
+     */
+    List<ClassBookingResponseDto> searchBookings(Specification<ClassBooking> spec, int limit);
+
+    /**
+     * Streams all bookings matching the specification through a forward-only cursor.
+     * Must be called inside a transaction and the stream must be closed.
+     */
+    Stream<ClassBookingResponseDto> streamBookings(Specification<ClassBooking> spec, int fetchSize);
+}
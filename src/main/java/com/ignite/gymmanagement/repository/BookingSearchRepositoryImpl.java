@@ -0,0 +1,60 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.repository;
+
+import com.ignite.gymmanagement.dto.ClassBookingResponseDto;
+import com.ignite.gymmanagement.model.ClassBooking;
+import com.ignite.gymmanagement.model.GymClass;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class BookingSearchRepositoryImpl implements BookingSearchRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<ClassBookingResponseDto> searchBookings(Specification<ClassBooking> spec, int limit) {
+        return createQuery(spec)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<ClassBookingResponseDto> streamBookings(Specification<ClassBooking> spec, int fetchSize) {
+        return createQuery(spec)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    private TypedQuery<ClassBookingResponseDto> createQuery(Specification<ClassBooking> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ClassBookingResponseDto> query = cb.createQuery(ClassBookingResponseDto.class);
+        Root<ClassBooking> root = query.from(ClassBooking.class);
+        Join<ClassBooking, GymClass> gymClass = root.join("gymClass");
+
+        query.select(cb.construct(ClassBookingResponseDto.class,
+                root.get("id"),
+                root.get("member").get("name"),
+                gymClass.get("id"),
+                gymClass.get("name"),
+                root.get("participationDate")));
+        query.where(spec.toPredicate(root, query, cb));
+        query.orderBy(cb.asc(root.get("participationDate")), cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query);
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.repository;
+
+import com.ignite.gymmanagement.model.ClassOccupancy;
+import com.ignite.gymmanagement.model.ClassOccupancyId;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface ClassOccupancyRepository extends JpaRepository<ClassOccupancy, ClassOccupancyId> {
+
+    /**
+     * Takes one seat of a session if it is not full yet.
+     *
+     * @return 1 if a seat was taken, 0 if the session is full or has no occupancy row yet.
+     */
+    @Modifying
+    @Query("UPDATE ClassOccupancy o SET o.booked = o.booked + 1 " +
+            "WHERE o.id.gymClassId = :gymClassId AND o.id.participationDate = :participationDate " +
+            "AND o.booked < o.capacity")
+    int reserveSeat(@Param("gymClassId") Long gymClassId,
+                    @Param("participationDate") LocalDate participationDate);
+
+    /**
+     * Gives back one seat of a session. Sessions without an occupancy row are left alone,
+     * the row counts the remaining bookings when it is created.
+     */
+    @Modifying
+    @Query("UPDATE ClassOccupancy o SET o.booked = o.booked - 1 " +
+            "WHERE o.id.gymClassId = :gymClassId AND o.id.participationDate = :participationDate " +
+            "AND o.booked > 0")
+    int releaseSeat(@Param("gymClassId") Long gymClassId,
+                    @Param("participationDate") LocalDate participationDate);
+
+    /**
+     * Creates the occupancy row of a session, counting bookings made before the row existed.
+     * Does nothing if the row already exists, so concurrent first bookings are safe.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO class_occupancy (gym_class_id, participation_date, booked, capacity) " +
+            "SELECT :gymClassId, :participationDate, COUNT(*), :capacity FROM class_booking " +
+            "WHERE gym_class_id = :gymClassId AND participation_date = :participationDate " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true) // The primary key is the only unique constraint
+    int createIfAbsent(@Param("gymClassId") Long gymClassId,
+                       @Param("participationDate") LocalDate participationDate,
+                       @Param("capacity") int capacity);
+
+    /**
+     * Loads the occupancy row of a session and locks it until the end of the transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM ClassOccupancy o WHERE o.id = :id")
+    Optional<ClassOccupancy> findForUpdate(@Param("id") ClassOccupancyId id);
+
+    /**
+     * Sums the booked seats of every class per day of the week within a date range.
+     * Sessions without bookings are absent.
+     */
+    @Query("SELECT new com.ignite.gymmanagement.repository.WeekdayBookingCount(" +
+            "o.id.gymClassId, EXTRACT(DAY OF WEEK FROM o.id.participationDate), SUM(o.booked)) " +
+            "FROM ClassOccupancy o " +
+            "WHERE o.id.participationDate BETWEEN :from AND :to AND o.booked > 0 " +
+            "GROUP BY o.id.gymClassId, EXTRACT(DAY OF WEEK FROM o.id.participationDate)")
+    List<WeekdayBookingCount> countBookingsPerWeekday(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Locks the occupancy rows of a date range, waiting for bookings still reserving seats in it.
+     * The end of the range is exclusive. Rows are locked in class then date order, the order batch
+     * bookings lock their slots in, so the two cannot deadlock.
+     */
+    @Query(value = "SELECT gym_class_id FROM class_occupancy " +
+            "WHERE participation_date >= :from AND participation_date < :until " +
+            "ORDER BY gym_class_id, participation_date FOR UPDATE", nativeQuery = true)
+    List<Long> lockSessions(@Param("from") LocalDate from, @Param("until") LocalDate until);
+
+    /**
+     * Sets the booked seats of every occupancy row in a date range to its number of bookings.
+     * The end of the range is exclusive.
+     */
+    @Modifying
+    @Query(value = "UPDATE class_occupancy o SET booked = (SELECT COUNT(*) FROM class_booking b " +
+            "WHERE b.gym_class_id = o.gym_class_id AND b.participation_date = o.participation_date) " +
+            "WHERE o.participation_date >= :from AND o.participation_date < :until", nativeQuery = true)
+    int recountSessions(@Param("from") LocalDate from, @Param("until") LocalDate until);
+
+    /**
+     * Creates the missing occupancy rows of booked sessions in a date range. The end of the range is exclusive.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO class_occupancy (gym_class_id, participation_date, booked, capacity) " +
+            "SELECT b.gym_class_id, b.participation_date, COUNT(*), c.capacity " +
+            "FROM class_booking b JOIN gym_class c ON c.id = b.gym_class_id " +
+            "WHERE b.participation_date >= :from AND b.participation_date < :until " +
+            "GROUP BY b.gym_class_id, b.participation_date, c.capacity " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int createMissingSessions(@Param("from") LocalDate from, @Param("until") LocalDate until);
+}
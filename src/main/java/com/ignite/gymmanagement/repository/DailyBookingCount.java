@@ -0,0 +1,14 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Number of bookings of a class on one day.
+ */
+public record DailyBookingCount(LocalDate participationDate, long bookings) {
+}
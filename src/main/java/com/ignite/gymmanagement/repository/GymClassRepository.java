@@ -5,20 +5,47 @@
 
 package com.ignite.gymmanagement.repository;
 
+import com.ignite.gymmanagement.config.CacheConfig;
 import com.ignite.gymmanagement.model.GymClass;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
 
 public interface GymClassRepository extends JpaRepository<GymClass, Long> {
 
     boolean existsByStartDate(LocalDate startDate);
 
-    // Check if any class exists that overlaps with the requested schedule
-    @Query("SELECT COUNT(c) FROM GymClass c WHERE " +
-            "(c.startDate <= :endDate AND c.endDate >= :startDate)")
-    long countOverlappingClasses(@Param("startDate") LocalDate startDate,
-                                 @Param("endDate") LocalDate endDate);
+    /**
+     * Returns the classes whose schedule overlaps a date range.
+     */
+    @Query("SELECT c FROM GymClass c WHERE c.startDate <= :to AND c.endDate >= :from ORDER BY c.id")
+    List<GymClass> findScheduledBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Read-through: unknown ids are not cached, so a class created later is found right away
+    @Override
+    @Cacheable(cacheNames = CacheConfig.GYM_CLASSES, unless = "#result == null")
+    Optional<GymClass> findById(Long id);
+
+    // Not put on save, which may still roll back: a new class is cached by its first read once committed
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.GYM_CLASSES, key = "#p0.id", condition = "#p0.id != null")
+    <S extends GymClass> S save(S gymClass);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.GYM_CLASSES, allEntries = true)
+    <S extends GymClass> List<S> saveAll(Iterable<S> gymClasses);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.GYM_CLASSES)
+    void deleteById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.GYM_CLASSES, key = "#p0.id")
+    void delete(GymClass gymClass);
 }
@@ -0,0 +1,40 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.repository;
+
+import com.ignite.gymmanagement.model.Member;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface MemberRepository extends JpaRepository<Member, Long> {
+
+    Optional<Member> findByName(String name);
+
+    /**
+     * Creates a member unless one with the name exists, so concurrent first bookings of a member are safe.
+     *
+     * @return 1 if the member was created, 0 if it already existed.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO member (id, name) VALUES (nextval('member_seq'), :name) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true) // The name is the only unique column besides the id
+    int createIfAbsent(@Param("name") String name);
+
+    /**
+     * Streams the members with an id above the given one, all members for a negative id.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT m FROM Member m WHERE m.id > :id")
+    Stream<Member> streamAfter(@Param("id") long id);
+}
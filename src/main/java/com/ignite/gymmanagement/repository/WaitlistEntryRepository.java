@@ -0,0 +1,63 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.repository;
+
+import com.ignite.gymmanagement.model.GymClass;
+import com.ignite.gymmanagement.model.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    /**
+     * Checks whether a member is already waiting for a session.
+     */
+    boolean existsByGymClassAndParticipationDateAndMemberName(GymClass gymClass, LocalDate participationDate, String memberName);
+
+    /**
+     * Counts the members waiting for a session.
+     */
+    @Query("SELECT COUNT(w) FROM WaitlistEntry w WHERE w.gymClass.id = :gymClassId AND w.participationDate = :participationDate")
+    long countWaiting(@Param("gymClassId") Long gymClassId, @Param("participationDate") LocalDate participationDate);
+
+    /**
+     * Lists the upcoming sessions that have members waiting.
+     */
+    @Query("SELECT DISTINCT new com.ignite.gymmanagement.repository.WaitlistSession(w.gymClass.id, w.participationDate) " +
+            "FROM WaitlistEntry w WHERE w.participationDate >= :today")
+    List<WaitlistSession> findWaitingSessions(@Param("today") LocalDate today);
+
+    /**
+     * Locks the longest-waiting entries of a session, skipping entries another promoter has locked.
+     * Ids are allocated in blocks per node, so the waiting order is taken from {@code joined_at}.
+     */
+    @Query(value = "SELECT * FROM waitlist_entry WHERE gym_class_id = :gymClassId AND participation_date = :participationDate " +
+            "ORDER BY joined_at, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<WaitlistEntry> lockNextWaiting(@Param("gymClassId") Long gymClassId,
+                                        @Param("participationDate") LocalDate participationDate,
+                                        @Param("limit") int limit);
+
+    /**
+     * Deletes promoted entries.
+     *
+     * @return the number of entries deleted.
+     */
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.id IN :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * Drops the entries of sessions that have already taken place.
+     */
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.participationDate < :today")
+    int deletePast(@Param("today") LocalDate today);
+}
@@ -0,0 +1,14 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.repository;
+
+import java.time.LocalDate;
+
+/**
+ * A class session with members on its waitlist.
+ */
+public record WaitlistSession(Long gymClassId, LocalDate participationDate) {
+}
@@ -0,0 +1,12 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.repository;
+
+/**
+ * Number of booked seats of a class on one day of the week, numbered from 1 for Sunday to 7 for Saturday.
+ */
+public record WeekdayBookingCount(Long gymClassId, int dayOfWeek, long bookings) {
+}
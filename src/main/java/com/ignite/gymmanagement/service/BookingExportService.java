@@ -0,0 +1,74 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ignite.gymmanagement.dto.ClassBookingResponseDto;
+import com.ignite.gymmanagement.index.MemberNameIndex;
+import com.ignite.gymmanagement.repository.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes bookings as newline-delimited JSON straight from a forward-only database cursor.
+ * Rows are fetched in chunks as flat projections that never enter the persistence context,
+ * so memory use does not depend on the size of the export.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookingExportService {
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private final BookingRepository bookingRepository;
+    private final ObjectMapper objectMapper;
+    private final MemberNameIndex memberNameIndex;
+
+    /**
+     * Exports the bookings matching the same filters as the booking search.
+     *
+     * @return the number of exported bookings.
+     */
+    @Transactional(readOnly = true)
+    public long exportBookings(String memberName, LocalDate startDate, LocalDate endDate, OutputStream out) throws IOException {
+        long exported = 0;
+        try (Stream<ClassBookingResponseDto> bookings = bookingRepository.streamBookings(
+                memberNameIndex.filterBookings(memberName, startDate, endDate), FETCH_SIZE);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            // Rows are flushed per chunk, not per row
+            ObjectWriter rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+            Iterator<ClassBookingResponseDto> rows = bookings.iterator();
+            while (rows.hasNext()) {
+                rowWriter.writeValue(generator, rows.next());
+                generator.writeRaw('\n');
+
+                if (++exported % FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+        }
+
+        log.info("Exported {} bookings - Member: {}, StartDate: {}, EndDate: {}", exported, memberName, startDate, endDate);
+        return exported;
+    }
+}
@@ -0,0 +1,378 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.ignite.gymmanagement.config.GroupCommitProperties;
+import com.ignite.gymmanagement.dto.ClassBookingRequestDto;
+import com.ignite.gymmanagement.dto.ClassBookingResponseDto;
+import com.ignite.gymmanagement.event.BookingCreatedEvent;
+import com.ignite.gymmanagement.exception.BulkheadFullException;
+import com.ignite.gymmanagement.exception.CustomException;
+import com.ignite.gymmanagement.model.ClassBooking;
+import com.ignite.gymmanagement.model.GymClass;
+import com.ignite.gymmanagement.model.Member;
+import com.ignite.gymmanagement.repository.BookingRepository;
+import com.ignite.gymmanagement.repository.GymClassRepository;
+import com.ignite.gymmanagement.util.GenericResponse;
+import com.ignite.gymmanagement.util.ResponseConstants;
+import com.ignite.gymmanagement.util.ResponseUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Books single classes through one writer thread that commits bookings in groups.
+ * <p>
+ * The request thread validates the booking, resolves the member, takes the seat from the in-memory counter and
+ * queues the booking. The writer collects up to {@code maxGroupSize} bookings, or whatever arrived within
+ * {@code maxDelay} of the first one. It confirms the seats and inserts the whole group in one transaction, then
+ * completes every caller once the group is durable. One commit per group instead of one per booking trades a few
+ * milliseconds of latency for much higher insert throughput on a single connection. If the group's transaction
+ * fails, its bookings are committed again one per transaction, so only a booking that fails on its own is failed.
+ * <p>
+ * A booking is taken exactly once, either by the writer or by its caller giving up after {@code commitTimeout}.
+ * A caller that gives up first withdraws the booking, so it is never committed; once the writer has taken it,
+ * the caller waits up to another {@code commitTimeout} for the outcome of its group instead.
+ */
+@Slf4j
+@Service
+public class BookingGroupCommitService {
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final GymClassRepository gymClassRepository;
+    private final BookingRepository bookingRepository;
+    private final SeatReservationService seatReservationService;
+    private final WaitlistService waitlistService;
+    private final MemberService memberService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final GroupCommitProperties properties;
+
+    private final BlockingQueue<PendingBooking> queue;
+    private volatile boolean running;
+    private Thread writer;
+
+    public BookingGroupCommitService(GymClassRepository gymClassRepository, BookingRepository bookingRepository,
+                                     SeatReservationService seatReservationService, WaitlistService waitlistService,
+                                     MemberService memberService, ApplicationEventPublisher eventPublisher,
+                                     PlatformTransactionManager transactionManager, GroupCommitProperties properties) {
+        this.gymClassRepository = gymClassRepository;
+        this.bookingRepository = bookingRepository;
+        this.seatReservationService = seatReservationService;
+        this.waitlistService = waitlistService;
+        this.memberService = memberService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.enabled()) {
+            return;
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("booking-group-commit").daemon().start(this::drainQueue);
+        log.info("Group-commit booking enabled: up to {} bookings or {} per transaction",
+                properties.maxGroupSize(), properties.maxDelay());
+    }
+
+    /**
+     * Lets the writer commit what is already queued, then fails whatever is left.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(properties.commitTimeout().toMillis());
+        List<PendingBooking> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        abandoned.stream()
+                .filter(PendingBooking::take)
+                .forEach(pending -> pending.result().completeExceptionally(new IllegalStateException("Shutting down")));
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Books a class for a member and waits until the booking's group has committed.
+     */
+    public GenericResponse<ClassBookingResponseDto> bookClass(ClassBookingRequestDto bookingRequest) {
+        try {
+            if (bookingRequest == null) {
+                return ResponseUtils.error("Invalid request. Data cannot be null.", HttpStatus.BAD_REQUEST, ResponseConstants.BOOKING_ERROR_CODE);
+            }
+
+            GymClass gymClass = gymClassRepository.findById(bookingRequest.getGymClassId())
+                    .orElseThrow(() -> new CustomException(ResponseConstants.ERROR_CLASS_NOT_FOUND, ResponseConstants.BOOKING_ERROR_CODE));
+
+            LocalDate participationDate = bookingRequest.getParticipationDate();
+            if (!GymService.isWithinSchedule(gymClass, participationDate)) {
+                return ResponseUtils.error("Participation date must be within the class schedule range (" +
+                        gymClass.getStartDate() + " to " + gymClass.getEndDate() + ")", HttpStatus.BAD_REQUEST, ResponseConstants.BOOKING_ERROR_CODE);
+            }
+
+            // Resolved up front, so a member that cannot be created fails its own request and not a whole group
+            Member member = resolveMember(bookingRequest.getMemberName());
+
+            if (seatReservationService.reserveLocally(gymClass, participationDate, 1) == 0) {
+                log.error("Class capacity exceeded for class {} on {}", gymClass.getId(), participationDate);
+                return slotFull(gymClass, bookingRequest.getMemberName(), participationDate, bookingRequest.isJoinWaitlist());
+            }
+
+            PendingBooking pending = new PendingBooking(gymClass, member, participationDate,
+                    bookingRequest.isJoinWaitlist(), new CompletableFuture<>(), new AtomicBoolean());
+            if (!running || !queue.offer(pending)) {
+                seatReservationService.releaseLocally(gymClass, participationDate, 1);
+                throw new BulkheadFullException("Booking queue is full, please retry shortly");
+            }
+
+            return awaitOutcome(pending);
+        } catch (CustomException ex) {
+            log.error("Booking failed: {}", ex.getMessage());
+            return ResponseUtils.error(ex.getMessage(), HttpStatus.BAD_REQUEST, ResponseConstants.BOOKING_ERROR_CODE);
+        } catch (ExecutionException ex) {
+            log.error("Unexpected error during booking: {}", ex.getCause().getMessage());
+            return ResponseUtils.error(ResponseConstants.ERROR_BOOKING_FAILED, HttpStatus.INTERNAL_SERVER_ERROR, ResponseConstants.BOOKING_ERROR_CODE);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return ResponseUtils.error(ResponseConstants.ERROR_BOOKING_NOT_CONFIRMED, HttpStatus.SERVICE_UNAVAILABLE, ResponseConstants.BOOKING_ERROR_CODE);
+        }
+    }
+
+    private Member resolveMember(String memberName) {
+        Member member = memberService.cached(memberName);
+        return member != null ? member : transactionTemplate.execute(status -> memberService.resolve(memberName));
+    }
+
+    /**
+     * Waits up to {@code commitTimeout} for the booking's group. Past that the booking is withdrawn if the writer
+     * has not taken it yet, otherwise the caller waits up to another {@code commitTimeout} for the group's
+     * transaction to finish.
+     */
+    private GenericResponse<ClassBookingResponseDto> awaitOutcome(PendingBooking pending) throws ExecutionException, InterruptedException {
+        try {
+            return pending.result().get(properties.commitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            if (!pending.take()) {
+                return awaitCommit(pending); // The writer is committing it and completes it either way
+            }
+            pending.result().cancel(false);
+            seatReservationService.releaseLocally(pending.gymClass(), pending.participationDate(), 1);
+            log.error("Booking withdrawn, not taken by the writer within {}: class {} on {}",
+                    properties.commitTimeout(), pending.gymClass().getId(), pending.participationDate());
+            return ResponseUtils.error(ResponseConstants.ERROR_BOOKING_WITHDRAWN, HttpStatus.SERVICE_UNAVAILABLE, ResponseConstants.BOOKING_ERROR_CODE);
+        }
+    }
+
+    private GenericResponse<ClassBookingResponseDto> awaitCommit(PendingBooking pending) throws ExecutionException, InterruptedException {
+        try {
+            return pending.result().get(properties.commitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            log.error("Booking taken by the writer but not committed within {}: class {} on {}",
+                    properties.commitTimeout(), pending.gymClass().getId(), pending.participationDate());
+            return ResponseUtils.error(ResponseConstants.ERROR_BOOKING_NOT_CONFIRMED, HttpStatus.SERVICE_UNAVAILABLE, ResponseConstants.BOOKING_ERROR_CODE);
+        }
+    }
+
+    private void drainQueue() {
+        List<PendingBooking> group = new ArrayList<>(properties.maxGroupSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingBooking first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                collectGroup(group, System.nanoTime() + properties.maxDelay().toNanos());
+                commitGroup(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Group-commit writer failed: {}", e.getMessage(), e);
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void collectGroup(List<PendingBooking> group, long deadline) throws InterruptedException {
+        while (group.size() < properties.maxGroupSize()) {
+            if (queue.drainTo(group, properties.maxGroupSize() - group.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            PendingBooking next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (next == null) {
+                return;
+            }
+            group.add(next);
+        }
+    }
+
+    /**
+     * Commits a group in one transaction. If that fails, commits its bookings one per transaction instead.
+     */
+    void commitGroup(List<PendingBooking> group) {
+        group.removeIf(pending -> !pending.take()); // Withdrawn by a caller that timed out
+        if (group.isEmpty()) {
+            return;
+        }
+
+        try {
+            commit(group);
+        } catch (RuntimeException e) {
+            if (group.size() == 1) {
+                log.error("Booking commit failed: {}", e.getMessage(), e);
+                group.getFirst().result().completeExceptionally(e);
+                return;
+            }
+            log.error("Group commit of {} bookings failed, committing them one by one: {}", group.size(), e.getMessage(), e);
+            group.forEach(this::commitAlone);
+        }
+    }
+
+    /**
+     * Commits a booking of a failed group in its own transaction. The failed group gave its seats back,
+     * so the seat is taken from the local counter again first.
+     */
+    private void commitAlone(PendingBooking pending) {
+        try {
+            if (seatReservationService.reserveLocally(pending.gymClass(), pending.participationDate(), 1) == 0) {
+                pending.result().complete(slotFull(pending.gymClass(), pending.member().getName(), pending.participationDate(),
+                        pending.joinWaitlist()));
+                return;
+            }
+            commit(List.of(pending));
+        } catch (RuntimeException e) {
+            log.error("Booking commit failed for class {} on {}: {}", pending.gymClass().getId(), pending.participationDate(),
+                    e.getMessage(), e);
+            pending.result().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Confirms the seats and inserts the bookings in one transaction, then completes their callers.
+     * If the transaction fails, the seats are back in the local counters and the callers are not completed.
+     */
+    private void commit(List<PendingBooking> group) {
+        Map<BookingSlot, List<PendingBooking>> bookingsBySlot = new TreeMap<>();
+        for (PendingBooking pending : group) {
+            bookingsBySlot.computeIfAbsent(new BookingSlot(pending.gymClass().getId(), pending.participationDate()),
+                    slot -> new ArrayList<>()).add(pending);
+        }
+
+        Set<BookingSlot> confirmedSlots = new HashSet<>();
+        List<PendingBooking> accepted = new ArrayList<>();
+        List<PendingBooking> rejected = new ArrayList<>();
+        Map<PendingBooking, Boolean> waitlisted = new HashMap<>();
+        try {
+            List<ClassBooking> savedBookings = transactionTemplate.execute(status -> {
+                List<ClassBooking> bookings = new ArrayList<>();
+                for (Map.Entry<BookingSlot, List<PendingBooking>> slotBookings : bookingsBySlot.entrySet()) {
+                    List<PendingBooking> pendings = slotBookings.getValue();
+                    PendingBooking first = pendings.getFirst();
+                    int granted = seatReservationService.confirmReserved(first.gymClass(), first.participationDate(), pendings.size());
+                    confirmedSlots.add(slotBookings.getKey());
+
+                    for (int i = 0; i < pendings.size(); i++) {
+                        PendingBooking pending = pendings.get(i);
+                        if (i < granted) {
+                            bookings.add(new ClassBooking(null, pending.member(), pending.gymClass(), pending.participationDate()));
+                            accepted.add(pending);
+                        } else if (pending.joinWaitlist()) {
+                            waitlisted.put(pending, waitlistService.join(pending.gymClass(), pending.member().getName(),
+                                    pending.participationDate()));
+                        } else {
+                            rejected.add(pending);
+                        }
+                    }
+                }
+
+                List<ClassBooking> saved = bookingRepository.saveAll(bookings);
+                saved.forEach(booking -> eventPublisher.publishEvent(new BookingCreatedEvent(booking.getId(),
+                        booking.getGymClass().getId(), booking.getMember().getName(), booking.getParticipationDate())));
+                return saved;
+            });
+
+            for (int i = 0; i < accepted.size(); i++) {
+                PendingBooking pending = accepted.get(i);
+                pending.result().complete(ResponseUtils.success(GymService.toBookingResponse(savedBookings.get(i), pending.gymClass()),
+                        ResponseConstants.BOOKING_SUCCESS, HttpStatus.CREATED));
+            }
+            rejected.forEach(pending -> pending.result().complete(capacityExceeded()));
+            waitlisted.forEach((pending, joined) -> pending.result().complete(waitlisted(joined)));
+            log.debug("Committed a group of {} bookings, {} rejected", accepted.size(), group.size() - accepted.size());
+        } catch (RuntimeException e) {
+            // Confirmed seats are given back by the rollback, the others still sit in the local counters
+            bookingsBySlot.forEach((slot, pendings) -> {
+                if (!confirmedSlots.contains(slot)) {
+                    PendingBooking first = pendings.getFirst();
+                    seatReservationService.releaseLocally(first.gymClass(), first.participationDate(), pendings.size());
+                }
+            });
+            throw e;
+        }
+    }
+
+    private GenericResponse<ClassBookingResponseDto> slotFull(GymClass gymClass, String memberName, LocalDate participationDate,
+                                                             boolean joinWaitlist) {
+        if (!joinWaitlist) {
+            return capacityExceeded();
+        }
+        boolean joined = Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                waitlistService.join(gymClass, memberName, participationDate)));
+        return waitlisted(joined);
+    }
+
+    private static GenericResponse<ClassBookingResponseDto> capacityExceeded() {
+        return ResponseUtils.error(ResponseConstants.ERROR_CAPACITY_EXCEEDED, HttpStatus.BAD_REQUEST, ResponseConstants.BOOKING_ERROR_CODE);
+    }
+
+    private static GenericResponse<ClassBookingResponseDto> waitlisted(boolean joined) {
+        return ResponseUtils.success(null, joined ? ResponseConstants.WAITLIST_JOINED : ResponseConstants.WAITLIST_ALREADY_JOINED,
+                HttpStatus.ACCEPTED);
+    }
+
+    record PendingBooking(GymClass gymClass, Member member, LocalDate participationDate, boolean joinWaitlist,
+                          CompletableFuture<GenericResponse<ClassBookingResponseDto>> result, AtomicBoolean taken) {
+
+        /**
+         * Takes the booking for the writer or for a caller withdrawing it; only the first one succeeds.
+         */
+        boolean take() {
+            return !result.isDone() && taken.compareAndSet(false, true);
+        }
+    }
+}
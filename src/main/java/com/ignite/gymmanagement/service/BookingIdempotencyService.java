@@ -0,0 +1,307 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ignite.gymmanagement.aspect.GymServiceBulkhead;
+import com.ignite.gymmanagement.config.IdempotencyProperties;
+import com.ignite.gymmanagement.dto.ClassBookingRequestDto;
+import com.ignite.gymmanagement.dto.ClassBookingResponseDto;
+import com.ignite.gymmanagement.model.BookingIdempotencyRecord;
+import com.ignite.gymmanagement.repository.BookingIdempotencyRepository;
+import com.ignite.gymmanagement.util.GenericResponse;
+import com.ignite.gymmanagement.util.ResponseConstants;
+import com.ignite.gymmanagement.util.ResponseUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a booking at most once per {@code Idempotency-Key}, so clients can safely retry it.
+ * <p>
+ * Completed responses are kept in a bounded Caffeine cache that evicts them after the retention period,
+ * so retries are answered from memory. A duplicate arriving while the original still runs on this node
+ * waits for its response. Across nodes and restarts the {@code booking_idempotency} table decides:
+ * its primary key lets only one request claim a key, and the claiming request stores its response there
+ * in the booking transaction, so a booking never commits without its response or the other way round.
+ * The booking must therefore run in the calling thread. The service bulkhead permit is taken before that
+ * transaction opens, so a booking waiting for one holds no connection. Responses of server errors are not kept
+ * and their booking is rolled back, so the client can retry them with the same key.
+ */
+@Slf4j
+@Service
+public class BookingIdempotencyService {
+
+    public static final String CACHE_NAME = "bookingIdempotency";
+
+    private final BookingIdempotencyRepository bookingIdempotencyRepository;
+    private final GymServiceBulkhead gymServiceBulkhead;
+    private final TransactionTemplate transactionTemplate;
+    private final IdempotencyProperties properties;
+
+    private final Cache<String, CompletedBooking> completedBookings;
+    private final ConcurrentMap<String, CompletableFuture<CompletedBooking>> inFlight = new ConcurrentHashMap<>();
+
+    public BookingIdempotencyService(BookingIdempotencyRepository bookingIdempotencyRepository,
+                                     GymServiceBulkhead gymServiceBulkhead,
+                                     PlatformTransactionManager transactionManager, IdempotencyProperties properties,
+                                     MeterRegistry meterRegistry) {
+        this.bookingIdempotencyRepository = bookingIdempotencyRepository;
+        this.gymServiceBulkhead = gymServiceBulkhead;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.completedBookings = Caffeine.newBuilder()
+                .maximumSize(properties.maxCachedResponses())
+                .expireAfterWrite(properties.retention())
+                .recordStats()
+                .build();
+        // Same tag keys as the Spring caches, which Prometheus requires of meters sharing a name
+        CaffeineCacheMetrics.monitor(meterRegistry, completedBookings, CACHE_NAME,
+                Tags.of("cache.manager", "bookingIdempotencyService", "name", CACHE_NAME));
+    }
+
+    /**
+     * Runs the booking unless a request with the same key already did, in which case its response is returned.
+     */
+    public Result bookOnce(String key, ClassBookingRequestDto request, Supplier<GenericResponse<ClassBookingResponseDto>> booking) {
+        String requestHash = fingerprint(request);
+
+        CompletedBooking completed = completedBookings.getIfPresent(key);
+        if (completed != null) {
+            return replay(completed, requestHash);
+        }
+
+        CompletableFuture<CompletedBooking> attempt = new CompletableFuture<>();
+        CompletableFuture<CompletedBooking> original = inFlight.putIfAbsent(key, attempt);
+        if (original != null) {
+            return awaitOriginal(key, original, requestHash);
+        }
+
+        boolean claimed = false;
+        try {
+            Result existing = claim(key, requestHash);
+            if (existing != null) {
+                attempt.complete(null);
+                return existing;
+            }
+            claimed = true;
+
+            // The booking joins this transaction, so its response row commits or rolls back with it
+            BookingAttempt booked = gymServiceBulkhead.withPermit("BookingIdempotencyService.bookOnce(..)",
+                    () -> transactionTemplate.execute(status -> {
+                        GenericResponse<ClassBookingResponseDto> response = booking.get();
+                        if (status.isRollbackOnly() || response.getStatusCode() >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                            status.setRollbackOnly(); // Nothing of a failed booking is kept
+                            return new BookingAttempt(response, false);
+                        }
+                        bookingIdempotencyRepository.save(toRecord(key, new CompletedBooking(requestHash, response)));
+                        return new BookingAttempt(response, true);
+                    }));
+            GenericResponse<ClassBookingResponseDto> response = booked.response();
+            CompletedBooking outcome = new CompletedBooking(requestHash, response);
+            if (response.getStatusCode() >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                release(key); // The booking was rolled back, so a retry may book
+            } else {
+                if (!booked.committed()) {
+                    // A client error rolled the booking back; its response is kept on its own
+                    transactionTemplate.executeWithoutResult(status -> bookingIdempotencyRepository.save(toRecord(key, outcome)));
+                }
+                completedBookings.put(key, outcome);
+            }
+            attempt.complete(outcome);
+            return new Result(response, false);
+        } catch (RuntimeException e) {
+            // Only a claim without a response is released: if the booking committed after all, its response stays
+            if (claimed) {
+                release(key);
+            }
+            attempt.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, attempt);
+        }
+    }
+
+    /**
+     * Returns the stored response of an earlier request with the same key, or null if no request with the key
+     * has completed yet. Lets a retry be answered before it is charged like a new booking.
+     */
+    public Result findCompleted(String key, ClassBookingRequestDto request) {
+        String requestHash = fingerprint(request);
+        CompletedBooking completed = completedBookings.getIfPresent(key);
+        if (completed == null) {
+            BookingIdempotencyRecord record = bookingIdempotencyRepository.findById(key).orElse(null);
+            if (record == null || record.getStatusCode() == null) {
+                return null;
+            }
+            completed = remember(key, record);
+        }
+        return replay(completed, requestHash);
+    }
+
+    /**
+     * Drops keys older than the retention period from the database. The cache expires them on its own.
+     */
+    @Scheduled(fixedDelayString = "${gym.booking.idempotency.purge-interval}")
+    public void purgeExpired() {
+        Integer purged = transactionTemplate.execute(status ->
+                bookingIdempotencyRepository.deleteCreatedBefore(LocalDateTime.now().minus(properties.retention())));
+        if (purged != null && purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    /**
+     * Claims the key in the database.
+     *
+     * @return null if this request may run the booking, otherwise the response to give instead.
+     */
+    private Result claim(String key, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        Boolean claimed = transactionTemplate.execute(status ->
+                bookingIdempotencyRepository.claim(key, requestHash, now) == 1
+                        || bookingIdempotencyRepository.takeOverStale(key, requestHash, now, now.minus(properties.staleClaimAfter())) == 1);
+        if (Boolean.TRUE.equals(claimed)) {
+            return null;
+        }
+
+        BookingIdempotencyRecord record = bookingIdempotencyRepository.findById(key).orElse(null);
+        if (record == null) {
+            // The other claim was released in the meantime
+            return inProgress();
+        }
+        if (!record.getRequestHash().equals(requestHash)) {
+            return keyReused();
+        }
+        if (record.getStatusCode() == null) {
+            return inProgress();
+        }
+
+        return replay(remember(key, record), requestHash);
+    }
+
+    private CompletedBooking remember(String key, BookingIdempotencyRecord record) {
+        CompletedBooking completed = new CompletedBooking(record.getRequestHash(), toResponse(record));
+        completedBookings.put(key, completed);
+        return completed;
+    }
+
+    private Result awaitOriginal(String key, CompletableFuture<CompletedBooking> original, String requestHash) {
+        try {
+            CompletedBooking completed = original.get(properties.inFlightWait().toMillis(), TimeUnit.MILLISECONDS);
+            if (completed == null) {
+                // The original was answered from the database rather than by running the booking
+                completed = completedBookings.getIfPresent(key);
+            }
+            return completed != null ? replay(completed, requestHash) : inProgress();
+        } catch (ExecutionException | TimeoutException e) {
+            return inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inProgress();
+        }
+    }
+
+    private void release(String key) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> bookingIdempotencyRepository.releaseClaim(key));
+        } catch (RuntimeException e) {
+            log.error("Could not release idempotency key {}: {}", key, e.getMessage());
+        }
+    }
+
+    private static Result replay(CompletedBooking completed, String requestHash) {
+        if (!completed.requestHash().equals(requestHash)) {
+            return keyReused();
+        }
+        return new Result(completed.response(), true);
+    }
+
+    private static Result inProgress() {
+        return new Result(ResponseUtils.error(ResponseConstants.ERROR_IDEMPOTENCY_KEY_IN_PROGRESS, HttpStatus.CONFLICT,
+                ResponseConstants.IDEMPOTENCY_ERROR_CODE), false);
+    }
+
+    private static Result keyReused() {
+        return new Result(ResponseUtils.error(ResponseConstants.ERROR_IDEMPOTENCY_KEY_REUSED, HttpStatus.UNPROCESSABLE_ENTITY,
+                ResponseConstants.IDEMPOTENCY_ERROR_CODE), false);
+    }
+
+    /**
+     * Hashes the fields that make up a booking request. The member name is length-prefixed, so no name can
+     * make two different requests hash the same.
+     */
+    static String fingerprint(ClassBookingRequestDto request) {
+        String memberName = String.valueOf(request.getMemberName());
+        String fields = request.getGymClassId() + "|" + memberName.length() + ":" + memberName + "|"
+                + request.getParticipationDate() + "|" + request.isJoinWaitlist();
+        return DigestUtils.md5DigestAsHex(fields.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static BookingIdempotencyRecord toRecord(String key, CompletedBooking completed) {
+        GenericResponse<ClassBookingResponseDto> response = completed.response();
+        ClassBookingResponseDto booking = response.getData();
+        return BookingIdempotencyRecord.builder()
+                .idempotencyKey(key)
+                .requestHash(completed.requestHash())
+                .createdAt(LocalDateTime.now())
+                .statusCode(response.getStatusCode())
+                .success(response.isSuccess())
+                .message(response.getMessage())
+                .errorCode(response.getErrorCode())
+                .respondedAt(response.getTimestamp())
+                .bookingId(booking != null ? booking.getId() : null)
+                .gymClassId(booking != null ? booking.getGymClassId() : null)
+                .gymClassName(booking != null ? booking.getGymClassName() : null)
+                .memberName(booking != null ? booking.getMemberName() : null)
+                .participationDate(booking != null ? booking.getParticipationDate() : null)
+                .build();
+    }
+
+    private static GenericResponse<ClassBookingResponseDto> toResponse(BookingIdempotencyRecord record) {
+        ClassBookingResponseDto booking = record.getBookingId() == null ? null : new ClassBookingResponseDto(
+                record.getBookingId(), record.getMemberName(), record.getGymClassId(), record.getGymClassName(),
+                record.getParticipationDate());
+        return GenericResponse.<ClassBookingResponseDto>builder()
+                .data(booking)
+                .message(record.getMessage())
+                .success(Boolean.TRUE.equals(record.getSuccess()))
+                .statusCode(record.getStatusCode())
+                .errorCode(record.getErrorCode())
+                .timestamp(record.getRespondedAt())
+                .build();
+    }
+
+    /**
+     * Response to a booking request, and whether it is the stored response of an earlier request.
+     */
+    public record Result(GenericResponse<ClassBookingResponseDto> response, boolean replayed) {
+    }
+
+    private record BookingAttempt(GenericResponse<ClassBookingResponseDto> response, boolean committed) {
+    }
+
+    private record CompletedBooking(String requestHash, GenericResponse<ClassBookingResponseDto> response) {
+    }
+}
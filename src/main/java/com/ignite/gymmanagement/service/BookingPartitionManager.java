@@ -0,0 +1,104 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.ignite.gymmanagement.config.PartitioningProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of {@code class_booking} ahead of the calendar and archives old ones.
+ * <p>
+ * Partitions are created by the {@code create_class_booking_partition} function of {@code schema-postgresql.sql},
+ * which also moves bookings that landed in the default partition. Partitions older than the retention period are
+ * detached and renamed to {@code class_booking_archive_yyyy_MM}: their bookings drop out of every query, but the
+ * table stays in the database until it is dumped or dropped. Runs at startup and then every check interval.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "gym.booking.partitioning", name = "enabled", havingValue = "true")
+public class BookingPartitionManager {
+
+    static final String CREATE_PARTITION = "SELECT create_class_booking_partition(?)";
+    static final String ATTACHED_PARTITIONS = "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'class_booking'::regclass";
+
+    private static final Pattern MONTHLY_PARTITION = Pattern.compile("class_booking_\\d{4}_\\d{2}");
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PartitioningProperties properties;
+
+    public BookingPartitionManager(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   PartitioningProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedDelayString = "${gym.booking.partitioning.check-interval}")
+    public void maintainPartitions() {
+        maintainPartitions(LocalDate.now());
+    }
+
+    /**
+     * Creates the partitions from the month of the given day up to {@code monthsAhead} months later and
+     * archives those older than the retention period. A failing partition is logged and retried next run.
+     */
+    void maintainPartitions(LocalDate today) {
+        YearMonth currentMonth = YearMonth.from(today);
+        for (int month = 0; month <= properties.monthsAhead(); month++) {
+            LocalDate firstDay = currentMonth.plusMonths(month).atDay(1);
+            try {
+                String partition = jdbcTemplate.queryForObject(CREATE_PARTITION, String.class, firstDay);
+                log.debug("Booking partition {} is in place", partition);
+            } catch (DataAccessException e) {
+                log.error("Could not create the booking partition for {}: {}", firstDay, e.getMessage(), e);
+            }
+        }
+
+        if (properties.retentionMonths() > 0) {
+            YearMonth oldestKept = currentMonth.minusMonths(properties.retentionMonths());
+            List<String> partitions = jdbcTemplate.queryForList(ATTACHED_PARTITIONS, String.class);
+            for (String partition : partitions) {
+                if (MONTHLY_PARTITION.matcher(partition).matches() && month(partition).isBefore(oldestKept)) {
+                    archive(partition);
+                }
+            }
+        }
+    }
+
+    private void archive(String partition) {
+        String archive = "class_booking_archive_" + partition.substring("class_booking_".length());
+        try {
+            // Plain DETACH: the CONCURRENTLY variant is not allowed while a default partition exists
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("ALTER TABLE class_booking DETACH PARTITION " + partition);
+                jdbcTemplate.execute("ALTER TABLE " + partition + " RENAME TO " + archive);
+            });
+            log.info("Archived booking partition {} as {}", partition, archive);
+        } catch (DataAccessException e) {
+            log.error("Could not archive booking partition {}: {}", partition, e.getMessage(), e);
+        }
+    }
+
+    private static YearMonth month(String partition) {
+        return YearMonth.parse(partition.substring("class_booking_".length()), MONTH_SUFFIX);
+    }
+}
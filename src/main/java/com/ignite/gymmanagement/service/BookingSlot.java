@@ -0,0 +1,21 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import java.time.LocalDate;
+
+/**
+ * A (class, participation date) slot. Slots sort by class then date, the order in which
+ * occupancy rows are locked so concurrent writers cannot deadlock each other.
+ */
+record BookingSlot(Long gymClassId, LocalDate participationDate) implements Comparable<BookingSlot> {
+
+    @Override
+    public int compareTo(BookingSlot other) {
+        int byClass = gymClassId.compareTo(other.gymClassId);
+        return byClass != 0 ? byClass : participationDate.compareTo(other.participationDate);
+    }
+}
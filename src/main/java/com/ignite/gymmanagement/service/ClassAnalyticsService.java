@@ -0,0 +1,273 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.ignite.gymmanagement.dto.AnalyticsRebuildDto;
+import com.ignite.gymmanagement.dto.ClassUtilisationDto;
+import com.ignite.gymmanagement.dto.UtilisationDto;
+import com.ignite.gymmanagement.dto.UtilisationReportDto;
+import com.ignite.gymmanagement.model.GymClass;
+import com.ignite.gymmanagement.repository.BookingRepository;
+import com.ignite.gymmanagement.repository.ClassOccupancyRepository;
+import com.ignite.gymmanagement.repository.GymClassRepository;
+import com.ignite.gymmanagement.repository.WeekdayBookingCount;
+import com.ignite.gymmanagement.util.GenericResponse;
+import com.ignite.gymmanagement.util.ResponseConstants;
+import com.ignite.gymmanagement.util.ResponseUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports how well classes fill up, per class, per day of the week and per time slot.
+ * <p>
+ * Reports read the booked seats from {@code class_occupancy}, the per-session rollup that every booking and
+ * cancellation updates in its own transaction, so they never scan {@code class_booking}. The seats offered are
+ * derived from the class schedules. A rebuild recounts the rollup from {@code class_booking}, one month per
+ * transaction on a few threads in parallel, should it ever drift from the bookings.
+ */
+@Slf4j
+@Service
+public class ClassAnalyticsService {
+
+    static final int DEFAULT_RANGE_DAYS = 28;
+    static final int MAX_RANGE_DAYS = 366;
+
+    private final GymClassRepository gymClassRepository;
+    private final BookingRepository bookingRepository;
+    private final ClassOccupancyRepository classOccupancyRepository;
+    private final SeatReservationService seatReservationService;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildParallelism;
+
+    public ClassAnalyticsService(GymClassRepository gymClassRepository, BookingRepository bookingRepository,
+                                 ClassOccupancyRepository classOccupancyRepository,
+                                 SeatReservationService seatReservationService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${gym.analytics.rebuild-parallelism:4}") int rebuildParallelism) {
+        this.gymClassRepository = gymClassRepository;
+        this.bookingRepository = bookingRepository;
+        this.classOccupancyRepository = classOccupancyRepository;
+        this.seatReservationService = seatReservationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildParallelism = rebuildParallelism;
+    }
+
+    /**
+     * Reports the utilisation of the classes scheduled between from and to, by default the last four weeks.
+     */
+    @Transactional(readOnly = true)
+    public GenericResponse<UtilisationReportDto> getUtilisation(LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS - 1);
+        if (end.isBefore(start)) {
+            return ResponseUtils.error(ResponseConstants.ERROR_INVALID_ANALYTICS_RANGE, HttpStatus.BAD_REQUEST, ResponseConstants.ANALYTICS_ERROR_CODE);
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_RANGE_DAYS) {
+            return ResponseUtils.error("Analytics can be requested for at most " + MAX_RANGE_DAYS + " days at a time",
+                    HttpStatus.BAD_REQUEST, ResponseConstants.ANALYTICS_ERROR_CODE);
+        }
+
+        try {
+            Map<Long, long[]> bookedByClass = new HashMap<>();
+            for (WeekdayBookingCount count : classOccupancyRepository.countBookingsPerWeekday(start, end)) {
+                bookedByClass.computeIfAbsent(count.gymClassId(), id -> new long[7])[weekdayIndex(count.dayOfWeek())] += count.bookings();
+            }
+
+            List<ClassUtilisationDto> classes = new ArrayList<>();
+            Map<DayOfWeek, Tally> weekdays = new EnumMap<>(DayOfWeek.class);
+            Map<LocalTime, Tally> timeSlots = new TreeMap<>();
+            for (GymClass gymClass : gymClassRepository.findScheduledBetween(start, end)) {
+                LocalDate first = gymClass.getStartDate().isAfter(start) ? gymClass.getStartDate() : start;
+                LocalDate last = gymClass.getEndDate().isBefore(end) ? gymClass.getEndDate() : end;
+                long[] sessions = sessionsPerWeekday(first, last);
+                long[] booked = bookedByClass.getOrDefault(gymClass.getId(), new long[7]);
+
+                Tally classTally = new Tally();
+                Tally timeSlotTally = timeSlots.computeIfAbsent(gymClass.getStartTime(), time -> new Tally());
+                for (DayOfWeek day : DayOfWeek.values()) {
+                    int index = day.ordinal();
+                    if (sessions[index] == 0) {
+                        continue;
+                    }
+                    long seats = sessions[index] * gymClass.getCapacity();
+                    classTally.add(sessions[index], seats, booked[index]);
+                    timeSlotTally.add(sessions[index], seats, booked[index]);
+                    weekdays.computeIfAbsent(day, d -> new Tally()).add(sessions[index], seats, booked[index]);
+                }
+
+                classes.add(ClassUtilisationDto.builder()
+                        .gymClassId(gymClass.getId())
+                        .gymClassName(gymClass.getName())
+                        .startTime(gymClass.getStartTime())
+                        .sessions(classTally.sessions)
+                        .seats(classTally.seats)
+                        .booked(classTally.booked)
+                        .fillRate(classTally.fillRate())
+                        .build());
+            }
+
+            UtilisationReportDto report = UtilisationReportDto.builder()
+                    .from(start)
+                    .to(end)
+                    .classes(classes)
+                    .weekdays(toDtos(weekdays, new EnumMap<>(DayOfWeek.class)))
+                    .timeSlots(toDtos(timeSlots, new TreeMap<>()))
+                    .build();
+            return ResponseUtils.success(report, ResponseConstants.DEFAULT_SUCCESS_MESSAGE, HttpStatus.OK);
+        } catch (Exception e) {
+            log.error("Error computing utilisation from {} to {}: {}", start, end, e.getMessage(), e);
+            return ResponseUtils.error(ResponseConstants.DEFAULT_ERROR_MESSAGE, HttpStatus.INTERNAL_SERVER_ERROR, ResponseConstants.ANALYTICS_ERROR_CODE);
+        }
+    }
+
+    /**
+     * Recounts the booked seats of every session between from and to from {@code class_booking}, by default
+     * of all sessions with bookings. Each month is rebuilt in its own transaction; months run in parallel.
+     * A rebuild only rewrites counts, so a failed one can simply be run again.
+     */
+    public GenericResponse<AnalyticsRebuildDto> rebuild(LocalDate from, LocalDate to) {
+        long startedAt = System.nanoTime();
+        LocalDate start = from != null ? from : bookingRepository.findFirstParticipationDate();
+        LocalDate end = to != null ? to : bookingRepository.findLastParticipationDate();
+        if (start == null || end == null) {
+            // No bookings, so there is nothing to recount
+            return ResponseUtils.success(new AnalyticsRebuildDto(from, to, 0, 0, 0),
+                    ResponseConstants.ANALYTICS_REBUILD_COMPLETED, HttpStatus.OK);
+        }
+        if (end.isBefore(start)) {
+            return ResponseUtils.error(ResponseConstants.ERROR_INVALID_ANALYTICS_RANGE, HttpStatus.BAD_REQUEST, ResponseConstants.ANALYTICS_ERROR_CODE);
+        }
+
+        List<LocalDate> chunkStarts = new ArrayList<>();
+        for (LocalDate chunkStart = start; !chunkStart.isAfter(end); chunkStart = YearMonth.from(chunkStart).plusMonths(1).atDay(1)) {
+            chunkStarts.add(chunkStart);
+        }
+
+        long sessions = 0;
+        int failed = 0;
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(rebuildParallelism, chunkStarts.size()),
+                Thread.ofPlatform().name("analytics-rebuild-", 0).factory())) {
+            List<Future<Integer>> chunks = chunkStarts.stream()
+                    .map(chunkStart -> executor.submit(() -> rebuildChunk(chunkStart, chunkEnd(chunkStart, end))))
+                    .toList();
+            for (Future<Integer> chunk : chunks) {
+                try {
+                    sessions += chunk.get();
+                } catch (ExecutionException e) {
+                    failed++;
+                    log.error("Analytics rebuild chunk failed: {}", e.getCause().getMessage(), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseUtils.error(ResponseConstants.ERROR_ANALYTICS_REBUILD_FAILED, HttpStatus.INTERNAL_SERVER_ERROR, ResponseConstants.ANALYTICS_ERROR_CODE);
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        if (failed > 0) {
+            log.warn("Analytics rebuild from {} to {} failed for {} of {} months", start, end, failed, chunkStarts.size());
+            return ResponseUtils.error(ResponseConstants.ERROR_ANALYTICS_REBUILD_FAILED, HttpStatus.INTERNAL_SERVER_ERROR, ResponseConstants.ANALYTICS_ERROR_CODE);
+        }
+        log.info("Rebuilt analytics from {} to {}: {} sessions in {} months, {} ms", start, end, sessions, chunkStarts.size(), elapsedMillis);
+        return ResponseUtils.success(new AnalyticsRebuildDto(start, end, chunkStarts.size(), sessions, elapsedMillis),
+                ResponseConstants.ANALYTICS_REBUILD_COMPLETED, HttpStatus.OK);
+    }
+
+    /**
+     * Recounts the sessions from the given day until the exclusive end day in one transaction.
+     * Locking the rows first makes bookings in the range wait, so none is counted twice or missed.
+     * Once committed, this node's seat counters of the range are reseeded, as the booked seats may have changed.
+     */
+    private int rebuildChunk(LocalDate from, LocalDate until) {
+        Integer sessions = transactionTemplate.execute(status -> {
+            classOccupancyRepository.lockSessions(from, until);
+            return classOccupancyRepository.recountSessions(from, until)
+                    + classOccupancyRepository.createMissingSessions(from, until);
+        });
+        seatReservationService.forget(from, until);
+        log.debug("Rebuilt analytics from {} until {}: {} sessions", from, until, sessions);
+        return sessions == null ? 0 : sessions;
+    }
+
+    /**
+     * Returns the exclusive end of the chunk starting on the given day: the next month, or the day after the range.
+     */
+    private static LocalDate chunkEnd(LocalDate chunkStart, LocalDate end) {
+        LocalDate nextMonth = YearMonth.from(chunkStart).plusMonths(1).atDay(1);
+        return nextMonth.isAfter(end) ? end.plusDays(1) : nextMonth;
+    }
+
+    /**
+     * Counts the days from first to last, both included, per day of the week, indexed by {@link DayOfWeek#ordinal()}.
+     */
+    static long[] sessionsPerWeekday(LocalDate first, LocalDate last) {
+        long[] sessions = new long[7];
+        long days = ChronoUnit.DAYS.between(first, last) + 1;
+        if (days <= 0) {
+            return sessions;
+        }
+        Arrays.fill(sessions, days / 7);
+        int firstDay = first.getDayOfWeek().ordinal();
+        for (int day = 0; day < days % 7; day++) {
+            sessions[(firstDay + day) % 7]++;
+        }
+        return sessions;
+    }
+
+    /**
+     * Maps a day of the week as numbered by the database, 1 for Sunday to 7 for Saturday, to its ordinal.
+     */
+    private static int weekdayIndex(int dayOfWeek) {
+        return DayOfWeek.SUNDAY.plus(dayOfWeek - 1L).ordinal();
+    }
+
+    private static <K> Map<K, UtilisationDto> toDtos(Map<K, Tally> tallies, Map<K, UtilisationDto> dtos) {
+        tallies.forEach((key, tally) -> dtos.put(key, new UtilisationDto(tally.sessions, tally.seats, tally.booked, tally.fillRate())));
+        return dtos;
+    }
+
+    /**
+     * Running totals of one group of sessions.
+     */
+    private static final class Tally {
+        private long sessions;
+        private long seats;
+        private long booked;
+
+        void add(long sessions, long seats, long booked) {
+            this.sessions += sessions;
+            this.seats += seats;
+            this.booked += booked;
+        }
+
+        double fillRate() {
+            return seats == 0 ? 0 : (double) booked / seats;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ignite.gymmanagement.dto.ClassImportResultDto;
+import com.ignite.gymmanagement.dto.GymClassRequestDto;
+import com.ignite.gymmanagement.index.ClassScheduleIndex;
+import com.ignite.gymmanagement.model.GymClass;
+import com.ignite.gymmanagement.repository.GymClassRepository;
+import com.ignite.gymmanagement.util.GenericResponse;
+import com.ignite.gymmanagement.util.ResponseConstants;
+import com.ignite.gymmanagement.util.ResponseUtils;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Creates the classes of a whole timetable from CSV or JSON lines, reporting the outcome of every row.
+ * <p>
+ * The input is read line by line and never held in memory as a whole. Valid rows are gathered into chunks;
+ * each chunk is checked for clashes against the schedule index and against its own earlier rows, then
+ * inserted with one batched {@code saveAll} and added to the index, all under the index lock that
+ * single class creation uses too. Classes clashing with an earlier row of the import are rejected like
+ * those clashing with an existing class. The classes of a chunk commit together with their outbox events.
+ */
+@Slf4j
+@Service
+public class ClassImportService {
+
+    static final int CHUNK_SIZE = 500;
+    static final int MAX_ROWS = 10_000;
+    static final List<String> CSV_COLUMNS = List.of("name", "startDate", "endDate", "startTime", "duration", "capacity");
+
+    private final GymClassRepository gymClassRepository;
+    private final ClassScheduleIndex classScheduleIndex;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public ClassImportService(GymClassRepository gymClassRepository, ClassScheduleIndex classScheduleIndex,
+                              ObjectMapper objectMapper, Validator validator, ApplicationEventPublisher eventPublisher,
+                              PlatformTransactionManager transactionManager) {
+        this.gymClassRepository = gymClassRepository;
+        this.classScheduleIndex = classScheduleIndex;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public enum Format {
+        CSV,    // Comma-separated, with a header line naming the columns in any order
+        NDJSON  // One GymClassRequestDto as JSON per line
+    }
+
+    public GenericResponse<List<ClassImportResultDto>> importClasses(InputStream input, Format format) {
+        List<ClassImportResultDto> results = new ArrayList<>();
+        List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        int created = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            Map<String, Integer> csvColumns = null;
+            if (format == Format.CSV) {
+                csvColumns = csvColumns(reader.readLine());
+                if (csvColumns == null) {
+                    return ResponseUtils.error(ResponseConstants.ERROR_IMPORT_CSV_HEADER, HttpStatus.BAD_REQUEST, ResponseConstants.CLASS_CREATION_ERROR_CODE);
+                }
+            }
+
+            int row = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                row++;
+                if (row > MAX_ROWS) {
+                    // One result for the rest of the input, which is not read
+                    results.add(rowFailed(row, ResponseConstants.ERROR_IMPORT_TOO_MANY_ROWS + MAX_ROWS + "."));
+                    break;
+                }
+
+                GymClassRequestDto request;
+                try {
+                    request = format == Format.CSV ? parseCsvRow(line, csvColumns) : objectMapper.readValue(line, GymClassRequestDto.class);
+                } catch (JsonProcessingException e) {
+                    results.add(rowFailed(row, ResponseConstants.ERROR_IMPORT_ROW_UNREADABLE + e.getOriginalMessage()));
+                    continue;
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    results.add(rowFailed(row, ResponseConstants.ERROR_IMPORT_ROW_UNREADABLE + e.getMessage()));
+                    continue;
+                }
+
+                String error = validate(request);
+                if (error != null) {
+                    results.add(rowFailed(row, error));
+                    continue;
+                }
+                chunk.add(new ImportRow(row, toGymClass(request)));
+                if (chunk.size() == CHUNK_SIZE) {
+                    created += importChunk(chunk, results);
+                    chunk.clear();
+                }
+            }
+            created += importChunk(chunk, results);
+        } catch (IOException e) {
+            log.error("Class import aborted after {} created classes: {}", created, e.getMessage(), e);
+            return ResponseUtils.error(ResponseConstants.DEFAULT_ERROR_MESSAGE, HttpStatus.INTERNAL_SERVER_ERROR, ResponseConstants.CLASS_CREATION_ERROR_CODE);
+        }
+
+        if (results.isEmpty()) {
+            return ResponseUtils.error(ResponseConstants.ERROR_IMPORT_EMPTY, HttpStatus.BAD_REQUEST, ResponseConstants.CLASS_CREATION_ERROR_CODE);
+        }
+        results.sort(Comparator.comparingInt(ClassImportResultDto::getRow));
+        log.info("Class import completed: {} of {} rows created", created, results.size());
+        if (created == results.size()) {
+            return ResponseUtils.success(results, ResponseConstants.CLASS_IMPORT_COMPLETED, HttpStatus.CREATED);
+        }
+        return ResponseUtils.success(results, ResponseConstants.CLASS_IMPORT_PARTIAL, HttpStatus.MULTI_STATUS);
+    }
+
+    /**
+     * Creates the classes of a chunk that clash with neither the index nor an earlier row.
+     *
+     * @return the number of created classes.
+     */
+    private int importChunk(List<ImportRow> chunk, List<ClassImportResultDto> results) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        Lock scheduleLock = classScheduleIndex.writeLock();
+        scheduleLock.lock();
+        try {
+            boolean[] clashes = classScheduleIndex.overlaps(chunk.stream().map(ImportRow::gymClass).toList());
+            List<ImportRow> accepted = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                if (clashes[i]) {
+                    results.add(rowFailed(chunk.get(i).row(), ResponseConstants.ERROR_CLASS_SCHEDULE_OVERLAP));
+                } else {
+                    accepted.add(chunk.get(i));
+                }
+            }
+
+            List<GymClass> savedClasses;
+            try {
+                savedClasses = transactionTemplate.execute(status -> {
+                    List<GymClass> saved = gymClassRepository.saveAll(accepted.stream().map(ImportRow::gymClass).toList());
+                    saved.forEach(gymClass -> eventPublisher.publishEvent(GymService.toClassCreatedEvent(gymClass)));
+                    return saved;
+                });
+            } catch (RuntimeException e) {
+                log.error("Could not insert {} imported classes: {}", accepted.size(), e.getMessage(), e);
+                accepted.forEach(row -> results.add(rowFailed(row.row(), ResponseConstants.DEFAULT_ERROR_MESSAGE)));
+                return 0;
+            }
+            classScheduleIndex.addAll(savedClasses);
+
+            for (int i = 0; i < savedClasses.size(); i++) {
+                results.add(ClassImportResultDto.builder()
+                        .row(accepted.get(i).row())
+                        .success(true)
+                        .message(ResponseConstants.CLASS_CREATED_SUCCESS)
+                        .gymClass(GymService.toClassResponse(savedClasses.get(i)))
+                        .build());
+            }
+            return savedClasses.size();
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    /**
+     * Returns why a row cannot be created, or null if it can.
+     */
+    private String validate(GymClassRequestDto request) {
+        Set<ConstraintViolation<GymClassRequestDto>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+        if (request.getEndDate().isBefore(request.getStartDate())) {
+            return ResponseConstants.ERROR_END_DATE_BEFORE_START_DATE;
+        }
+        return null;
+    }
+
+    /**
+     * Maps every expected column to its position in the header line, or returns null if one is missing.
+     */
+    private static Map<String, Integer> csvColumns(String header) {
+        if (header == null) {
+            return null;
+        }
+        Map<String, Integer> positions = new HashMap<>();
+        List<String> names = splitCsvLine(header);
+        for (int i = 0; i < names.size(); i++) {
+            positions.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (String column : CSV_COLUMNS) {
+            Integer position = positions.get(column.toLowerCase(Locale.ROOT));
+            if (position == null) {
+                return null;
+            }
+            columns.put(column, position);
+        }
+        return columns;
+    }
+
+    private static GymClassRequestDto parseCsvRow(String line, Map<String, Integer> columns) {
+        List<String> fields = splitCsvLine(line);
+        if (fields.size() < columns.size()) {
+            throw new IllegalArgumentException("expected " + columns.size() + " columns, found " + fields.size());
+        }
+        return GymClassRequestDto.builder()
+                .name(field(fields, columns, "name"))
+                .startDate(LocalDate.parse(field(fields, columns, "startDate")))
+                .endDate(LocalDate.parse(field(fields, columns, "endDate")))
+                .startTime(LocalTime.parse(field(fields, columns, "startTime")))
+                .duration(Integer.parseInt(field(fields, columns, "duration")))
+                .capacity(Integer.parseInt(field(fields, columns, "capacity")))
+                .build();
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        return fields.get(columns.get(column)).trim();
+    }
+
+    /**
+     * Splits a CSV line into its fields. Fields may be quoted with double quotes, which are escaped by doubling.
+     */
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static GymClass toGymClass(GymClassRequestDto request) {
+        return GymClass.builder()
+                .name(request.getName())
+                .capacity(request.getCapacity())
+                .startDate(request.getStartDate())
+                .endDate(request.getEndDate())
+                .startTime(request.getStartTime())
+                .duration(request.getDuration())
+                .build();
+    }
+
+    private static ClassImportResultDto rowFailed(int row, String message) {
+        return ClassImportResultDto.builder()
+                .row(row)
+                .success(false)
+                .message(message)
+                .build();
+    }
+
+    private record ImportRow(int row, GymClass gymClass) {
+    }
+}
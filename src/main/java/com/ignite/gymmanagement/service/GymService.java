@@ -5,95 +5,209 @@
 
 package com.ignite.gymmanagement.service;
 
+import com.ignite.gymmanagement.dto.BatchBookingResultDto;
+import com.ignite.gymmanagement.dto.ClassAvailabilityDto;
 import com.ignite.gymmanagement.dto.ClassBookingRequestDto;
 import com.ignite.gymmanagement.dto.ClassBookingResponseDto;
 import com.ignite.gymmanagement.dto.GymClassRequestDto;
 import com.ignite.gymmanagement.dto.GymClassResponseDto;
+import com.ignite.gymmanagement.event.BookingCancelledEvent;
+import com.ignite.gymmanagement.event.BookingCreatedEvent;
+import com.ignite.gymmanagement.event.ClassCreatedEvent;
 import com.ignite.gymmanagement.exception.CustomException;
+import com.ignite.gymmanagement.index.ClassScheduleIndex;
+import com.ignite.gymmanagement.index.MemberNameIndex;
 import com.ignite.gymmanagement.model.ClassBooking;
 import com.ignite.gymmanagement.model.GymClass;
 import com.ignite.gymmanagement.repository.BookingRepository;
+import com.ignite.gymmanagement.repository.DailyBookingCount;
 import com.ignite.gymmanagement.repository.GymClassRepository;
 import com.ignite.gymmanagement.specifications.BookingSpecifications;
+import com.ignite.gymmanagement.util.BookingSearchCursor;
 import com.ignite.gymmanagement.util.GenericResponse;
 import com.ignite.gymmanagement.util.ResponseConstants;
 import com.ignite.gymmanagement.util.ResponseUtils;
-import lombok.RequiredArgsConstructor;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class GymService {
+    static final int MAX_AVAILABILITY_DAYS = 366;
+
     private final GymClassRepository gymClassRepository;
     private final BookingRepository bookingRepository;
+    private final SeatReservationService seatReservationService;
+    private final Validator validator;
+    private final MemberNameIndex memberNameIndex;
+    private final MemberService memberService;
+    private final ClassScheduleIndex classScheduleIndex;
+    private final WaitlistService waitlistService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public GymService(GymClassRepository gymClassRepository, BookingRepository bookingRepository,
+                      SeatReservationService seatReservationService, Validator validator, MemberNameIndex memberNameIndex,
+                      MemberService memberService, ClassScheduleIndex classScheduleIndex, WaitlistService waitlistService,
+                      ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+        this.gymClassRepository = gymClassRepository;
+        this.bookingRepository = bookingRepository;
+        this.seatReservationService = seatReservationService;
+        this.validator = validator;
+        this.memberNameIndex = memberNameIndex;
+        this.memberService = memberService;
+        this.classScheduleIndex = classScheduleIndex;
+        this.waitlistService = waitlistService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
 
     /**
-     * Searches for class bookings based on member name and date range.
+     * Searches for class bookings based on member name and date range, one page at a time.
+     * Pages are read in (participationDate, id) order starting after the given cursor,
+     * so deep pages cost the same as the first one. Only the columns of the response are selected.
+     * Runs on the read replica when one is configured.
      */
-    public GenericResponse<List<ClassBooking>> searchBookings(String memberName, LocalDate startDate, LocalDate endDate) {
+    @Transactional(readOnly = true)
+    public GenericResponse<List<ClassBookingResponseDto>> searchBookings(String memberName, LocalDate startDate, LocalDate endDate,
+                                                                         String cursor, int pageSize) {
         try {
-            // List<ClassBooking> bookings = bookingRepository.findBookings(memberName, startDate, endDate);
-            Specification<ClassBooking> spec = BookingSpecifications.filterBookings(memberName, startDate, endDate);
-            List<ClassBooking> bookings = bookingRepository.findAll(spec);
+            Specification<ClassBooking> spec = memberNameIndex.filterBookings(memberName, startDate, endDate);
+            if (cursor != null && !cursor.isEmpty()) {
+                spec = spec.and(BookingSpecifications.after(BookingSearchCursor.decode(cursor)));
+            }
+
+            // Fetch one extra row to find out whether another page follows
+            List<ClassBookingResponseDto> bookings = bookingRepository.searchBookings(spec, pageSize + 1);
 
             if (bookings.isEmpty()) {
                 return ResponseUtils.success(List.of(), ResponseConstants.NO_BOOKINGS_FOUND, HttpStatus.OK);
             }
 
-            return ResponseUtils.success(bookings, ResponseConstants.DEFAULT_SUCCESS_MESSAGE, HttpStatus.OK);
+            String nextCursor = null;
+            if (bookings.size() > pageSize) {
+                bookings = List.copyOf(bookings.subList(0, pageSize));
+                ClassBookingResponseDto last = bookings.getLast();
+                nextCursor = new BookingSearchCursor(last.getParticipationDate(), last.getId()).encode();
+            }
+
+            return ResponseUtils.success(bookings, ResponseConstants.DEFAULT_SUCCESS_MESSAGE, HttpStatus.OK, nextCursor);
+        } catch (CustomException ex) {
+            log.error("Invalid booking search: {}", ex.getMessage());
+            return ResponseUtils.error(ex.getMessage(), HttpStatus.BAD_REQUEST, ex.getErrorCode());
         } catch (Exception e) {
             log.error("Error fetching bookings: {}", e.getMessage(), e);
+            markRollbackOnly();
             return ResponseUtils.error(ResponseConstants.DEFAULT_ERROR_MESSAGE, HttpStatus.INTERNAL_SERVER_ERROR, ResponseConstants.BOOKING_ERROR_CODE);
         }
     }
 
     /**
-     * Creates a new GymClass.
+     * Returns the remaining seats of a class per day. The range defaults to, and is clipped to, the class schedule.
+     * Bookings are counted with one aggregate over the whole range; days without bookings have every seat free.
+     * Runs on the read replica when one is configured.
+     */
+    @Transactional(readOnly = true)
+    public GenericResponse<List<ClassAvailabilityDto>> getAvailability(Long gymClassId, LocalDate from, LocalDate to) {
+        try {
+            GymClass gymClass = gymClassRepository.findById(gymClassId).orElse(null);
+            if (gymClass == null) {
+                return ResponseUtils.error(ResponseConstants.ERROR_CLASS_NOT_FOUND, HttpStatus.NOT_FOUND, ResponseConstants.AVAILABILITY_ERROR_CODE);
+            }
+
+            LocalDate start = from == null || from.isBefore(gymClass.getStartDate()) ? gymClass.getStartDate() : from;
+            LocalDate end = to == null || to.isAfter(gymClass.getEndDate()) ? gymClass.getEndDate() : to;
+            if (end.isBefore(start)) {
+                return ResponseUtils.error(ResponseConstants.ERROR_INVALID_AVAILABILITY_RANGE, HttpStatus.BAD_REQUEST, ResponseConstants.AVAILABILITY_ERROR_CODE);
+            }
+            if (ChronoUnit.DAYS.between(start, end) >= MAX_AVAILABILITY_DAYS) {
+                return ResponseUtils.error("Availability can be requested for at most " + MAX_AVAILABILITY_DAYS + " days at a time",
+                        HttpStatus.BAD_REQUEST, ResponseConstants.AVAILABILITY_ERROR_CODE);
+            }
+
+            Map<LocalDate, Long> bookedByDate = bookingRepository.countBookingsPerDay(gymClassId, start, end).stream()
+                    .collect(Collectors.toMap(DailyBookingCount::participationDate, DailyBookingCount::bookings));
+
+            int capacity = gymClass.getCapacity();
+            List<ClassAvailabilityDto> availability = start.datesUntil(end.plusDays(1))
+                    .map(date -> {
+                        long booked = bookedByDate.getOrDefault(date, 0L);
+                        return new ClassAvailabilityDto(date, capacity, booked, Math.max(0, capacity - booked));
+                    })
+                    .toList();
+
+            return ResponseUtils.success(availability, ResponseConstants.DEFAULT_SUCCESS_MESSAGE, HttpStatus.OK);
+        } catch (Exception e) {
+            log.error("Error fetching availability of class {}: {}", gymClassId, e.getMessage(), e);
+            markRollbackOnly();
+            return ResponseUtils.error(ResponseConstants.DEFAULT_ERROR_MESSAGE, HttpStatus.INTERNAL_SERVER_ERROR, ResponseConstants.AVAILABILITY_ERROR_CODE);
+        }
+    }
+
+    /**
+     * Creates a new GymClass. The overlap check, the insert and its commit run under the schedule index lock,
+     * so concurrent requests cannot create clashing classes. The class and its outbox event commit together,
+     * and the class is only added to the index once committed.
      */
     public GenericResponse<GymClassResponseDto> createClass(GymClassRequestDto gymClassRequest) {
         try {
             // Validation: Ensure endDate is after startDate
             if (gymClassRequest.getEndDate().isBefore(gymClassRequest.getStartDate())) {
-                return ResponseUtils.error("End date must be after start date", HttpStatus.BAD_REQUEST, ResponseConstants.CLASS_CREATION_ERROR_CODE);
+                return ResponseUtils.error(ResponseConstants.ERROR_END_DATE_BEFORE_START_DATE, HttpStatus.BAD_REQUEST, ResponseConstants.CLASS_CREATION_ERROR_CODE);
             }
 
-            // Check if any existing class overlaps with the requested schedule
-            long existingClassCount = gymClassRepository.countOverlappingClasses(
-                    gymClassRequest.getStartDate(), gymClassRequest.getEndDate()
-            );
-
-            if (existingClassCount > 0) {
-                return ResponseUtils.error("A class is already scheduled in this date range", HttpStatus.BAD_REQUEST, ResponseConstants.CLASS_CREATION_ERROR_CODE);
-            }
+            GymClass savedClass;
+            Lock scheduleLock = classScheduleIndex.writeLock();
+            scheduleLock.lock();
+            try {
+                // Check if any existing class runs at an overlapping time on one of the requested days
+                if (classScheduleIndex.overlaps(gymClassRequest.getStartDate(), gymClassRequest.getEndDate(),
+                        gymClassRequest.getStartTime(), gymClassRequest.getDuration())) {
+                    return ResponseUtils.error(ResponseConstants.ERROR_CLASS_SCHEDULE_OVERLAP, HttpStatus.BAD_REQUEST, ResponseConstants.CLASS_CREATION_ERROR_CODE);
+                }
 
-            // Convert DTO to Entity
-            GymClass gymClass = GymClass.builder()
-                    .name(gymClassRequest.getName())
-                    .capacity(gymClassRequest.getCapacity())
-                    .startDate(gymClassRequest.getStartDate())
-                    .endDate(gymClassRequest.getEndDate())
-                    .startTime(gymClassRequest.getStartTime())
-                    .duration(gymClassRequest.getDuration())
-                    .build();
+                // Convert DTO to Entity
+                GymClass gymClass = GymClass.builder()
+                        .name(gymClassRequest.getName())
+                        .capacity(gymClassRequest.getCapacity())
+                        .startDate(gymClassRequest.getStartDate())
+                        .endDate(gymClassRequest.getEndDate())
+                        .startTime(gymClassRequest.getStartTime())
+                        .duration(gymClassRequest.getDuration())
+                        .build();
 
-            GymClass savedClass = gymClassRepository.save(gymClass);
+                savedClass = transactionTemplate.execute(status -> {
+                    GymClass saved = gymClassRepository.save(gymClass);
+                    eventPublisher.publishEvent(toClassCreatedEvent(saved));
+                    return saved;
+                });
+                classScheduleIndex.add(savedClass);
+            } finally {
+                scheduleLock.unlock();
+            }
 
-            GymClassResponseDto responseDto = GymClassResponseDto.builder()
-                    .id(savedClass.getId())
-                    .name(savedClass.getName())
-                    .capacity(savedClass.getCapacity())
-                    .startDate(savedClass.getStartDate())
-                    .endDate(savedClass.getEndDate())
-                    .startTime(savedClass.getStartTime())
-                    .duration(savedClass.getDuration())
-                    .build();
+            GymClassResponseDto responseDto = toClassResponse(savedClass);
 
             log.info("Class created successfully: {}", responseDto);
             return ResponseUtils.success(responseDto, ResponseConstants.CLASS_CREATED_SUCCESS, HttpStatus.CREATED);
@@ -104,8 +218,9 @@ public class GymService {
     }
 
     /**
-     * Books a class for a member.
+     * Books a class for a member. The seat reservation and the booking insert commit together.
      */
+    @Transactional
     public GenericResponse<ClassBookingResponseDto> bookClass(ClassBookingRequestDto bookingRequest) {
         try {
             // Validate request
@@ -122,8 +237,7 @@ public class GymService {
 
 
             // Validate that participation date is within class start and end date
-            if (bookingRequest.getParticipationDate().isBefore(gymClass.getStartDate()) ||
-                    bookingRequest.getParticipationDate().isAfter(gymClass.getEndDate())) {
+            if (!isWithinSchedule(gymClass, bookingRequest.getParticipationDate())) {
                 log.error("Participation date {} is outside the allowed range for class {} ({} to {})",
                         bookingRequest.getParticipationDate(), gymClass.getId(), gymClass.getStartDate(), gymClass.getEndDate());
 
@@ -132,31 +246,26 @@ public class GymService {
             }
 
 
-            // Check Class Capacity
-            long currentBookings = bookingRepository.countByGymClassAndParticipationDate(
-                    gymClass, bookingRequest.getParticipationDate()
-            );
-
-            log.info("Current bookings for class {} on {}: {}", gymClass.getId(), bookingRequest.getParticipationDate(), currentBookings);
-            if (currentBookings >= gymClass.getCapacity()) {
+            // Reserve a seat before inserting, so concurrent bookers cannot overbook the slot
+            if (!seatReservationService.tryReserve(gymClass, bookingRequest.getParticipationDate())) {
                 log.error("Class capacity exceeded for class {} on {}", gymClass.getId(), bookingRequest.getParticipationDate());
+                if (bookingRequest.isJoinWaitlist()) {
+                    boolean joined = waitlistService.join(gymClass, bookingRequest.getMemberName(), bookingRequest.getParticipationDate());
+                    return ResponseUtils.success(null, joined ? ResponseConstants.WAITLIST_JOINED : ResponseConstants.WAITLIST_ALREADY_JOINED, HttpStatus.ACCEPTED);
+                }
                 return ResponseUtils.error(ResponseConstants.ERROR_CAPACITY_EXCEEDED, HttpStatus.BAD_REQUEST, ResponseConstants.BOOKING_ERROR_CODE);
             }
 
             // Create and Save Booking
             ClassBooking booking = new ClassBooking();
             booking.setGymClass(gymClass);
-            booking.setMemberName(bookingRequest.getMemberName());
+            booking.setMember(memberService.resolve(bookingRequest.getMemberName()));
             booking.setParticipationDate(bookingRequest.getParticipationDate());
 
             ClassBooking savedBooking = bookingRepository.save(booking);
+            publishBookingCreated(savedBooking);
 
-            ClassBookingResponseDto responseDto = ClassBookingResponseDto.builder()
-                    .id(savedBooking.getId())
-                    .memberName(savedBooking.getMemberName())
-                    .gymClassName(gymClass.getName())
-                    .participationDate(savedBooking.getParticipationDate())
-                    .build();
+            ClassBookingResponseDto responseDto = toBookingResponse(savedBooking, gymClass);
 
             log.info("Class booked successfully: {}", responseDto);
             return ResponseUtils.success(responseDto, ResponseConstants.BOOKING_SUCCESS, HttpStatus.CREATED);
@@ -165,7 +274,195 @@ public class GymService {
             return ResponseUtils.error(ex.getMessage(), HttpStatus.BAD_REQUEST, ResponseConstants.BOOKING_ERROR_CODE);
         } catch (Exception e) {
             log.error("Unexpected error during booking: {}", e.getMessage(), e);
+            markRollbackOnly();
             return ResponseUtils.error(ResponseConstants.ERROR_BOOKING_FAILED, HttpStatus.INTERNAL_SERVER_ERROR, ResponseConstants.BOOKING_ERROR_CODE);
         }
     }
+
+    /**
+     * Cancels a booking. The freed seat goes to the session's waitlist when members are waiting for it.
+     */
+    @Transactional
+    public GenericResponse<Void> cancelBooking(Long bookingId) {
+        try {
+            ClassBooking booking = bookingRepository.findById(bookingId).orElse(null);
+            if (booking == null) {
+                return ResponseUtils.error(ResponseConstants.ERROR_BOOKING_NOT_FOUND, HttpStatus.NOT_FOUND, ResponseConstants.BOOKING_ERROR_CODE);
+            }
+            LocalDate participationDate = booking.getParticipationDate();
+            if (participationDate.isBefore(LocalDate.now())) {
+                return ResponseUtils.error(ResponseConstants.ERROR_PAST_BOOKING_CANCELLATION, HttpStatus.BAD_REQUEST, ResponseConstants.BOOKING_ERROR_CODE);
+            }
+
+            GymClass gymClass = booking.getGymClass();
+            bookingRepository.delete(booking);
+
+            boolean keepForWaitlist = waitlistService.hasWaiters(gymClass.getId(), participationDate);
+            seatReservationService.release(gymClass, participationDate, keepForWaitlist);
+            if (keepForWaitlist) {
+                waitlistService.seatFreed(gymClass.getId(), participationDate);
+            }
+            eventPublisher.publishEvent(new BookingCancelledEvent(booking.getId(), gymClass.getId(),
+                    booking.getMember().getName(), participationDate));
+
+            log.info("Booking {} cancelled for class {} on {}", bookingId, gymClass.getId(), participationDate);
+            return ResponseUtils.success(null, ResponseConstants.BOOKING_CANCELLED, HttpStatus.OK);
+        } catch (Exception e) {
+            log.error("Unexpected error cancelling booking {}: {}", bookingId, e.getMessage(), e);
+            markRollbackOnly();
+            return ResponseUtils.error(ResponseConstants.DEFAULT_ERROR_MESSAGE, HttpStatus.INTERNAL_SERVER_ERROR, ResponseConstants.BOOKING_ERROR_CODE);
+        }
+    }
+
+    /**
+     * Books a batch of classes in one transaction. Seats are reserved once per (class, date) group and the
+     * bookings are inserted with JDBC batching. Every item reports its own outcome.
+     */
+    @Transactional
+    public GenericResponse<List<BatchBookingResultDto>> bookClasses(List<ClassBookingRequestDto> bookingRequests) {
+        try {
+            BatchBookingResultDto[] results = new BatchBookingResultDto[bookingRequests.size()];
+
+            Set<Long> gymClassIds = bookingRequests.stream()
+                    .filter(request -> request != null && request.getGymClassId() != null)
+                    .map(ClassBookingRequestDto::getGymClassId)
+                    .collect(Collectors.toSet());
+            Map<Long, GymClass> gymClasses = gymClassRepository.findAllById(gymClassIds).stream()
+                    .collect(Collectors.toMap(GymClass::getId, Function.identity()));
+
+            // Group bookable items per slot. Slots are visited in a fixed order so concurrent batches
+            // lock the occupancy rows in the same order and cannot deadlock each other.
+            Map<BookingSlot, List<Integer>> itemsBySlot = new TreeMap<>();
+            for (int i = 0; i < bookingRequests.size(); i++) {
+                ClassBookingRequestDto request = bookingRequests.get(i);
+                String error = validateBatchItem(request, gymClasses);
+                if (error != null) {
+                    results[i] = batchItemFailed(i, error);
+                } else {
+                    itemsBySlot.computeIfAbsent(new BookingSlot(request.getGymClassId(), request.getParticipationDate()),
+                            slot -> new ArrayList<>()).add(i);
+                }
+            }
+
+            List<ClassBooking> bookings = new ArrayList<>();
+            List<Integer> bookedItems = new ArrayList<>();
+            for (Map.Entry<BookingSlot, List<Integer>> slotItems : itemsBySlot.entrySet()) {
+                BookingSlot slot = slotItems.getKey();
+                List<Integer> items = slotItems.getValue();
+                GymClass gymClass = gymClasses.get(slot.gymClassId());
+
+                int granted = seatReservationService.tryReserve(gymClass, slot.participationDate(), items.size());
+                for (int j = 0; j < items.size(); j++) {
+                    int item = items.get(j);
+                    if (j < granted) {
+                        ClassBooking booking = new ClassBooking();
+                        booking.setGymClass(gymClass);
+                        booking.setMember(memberService.resolve(bookingRequests.get(item).getMemberName()));
+                        booking.setParticipationDate(slot.participationDate());
+                        bookings.add(booking);
+                        bookedItems.add(item);
+                    } else {
+                        results[item] = batchItemFailed(item, ResponseConstants.ERROR_CAPACITY_EXCEEDED);
+                    }
+                }
+            }
+
+            List<ClassBooking> savedBookings = bookingRepository.saveAll(bookings);
+            for (int k = 0; k < savedBookings.size(); k++) {
+                ClassBooking savedBooking = savedBookings.get(k);
+                int item = bookedItems.get(k);
+                publishBookingCreated(savedBooking);
+                results[item] = BatchBookingResultDto.builder()
+                        .index(item)
+                        .success(true)
+                        .message(ResponseConstants.BOOKING_SUCCESS)
+                        .booking(toBookingResponse(savedBooking, savedBooking.getGymClass()))
+                        .build();
+            }
+
+            log.info("Batch booking completed: {} of {} items booked", savedBookings.size(), bookingRequests.size());
+            if (savedBookings.size() == bookingRequests.size()) {
+                return ResponseUtils.success(List.of(results), ResponseConstants.BATCH_BOOKING_COMPLETED, HttpStatus.CREATED);
+            }
+            return ResponseUtils.success(List.of(results), ResponseConstants.BATCH_BOOKING_PARTIAL, HttpStatus.MULTI_STATUS);
+        } catch (Exception e) {
+            log.error("Unexpected error during batch booking: {}", e.getMessage(), e);
+            markRollbackOnly();
+            return ResponseUtils.error(ResponseConstants.ERROR_BOOKING_FAILED, HttpStatus.INTERNAL_SERVER_ERROR, ResponseConstants.BOOKING_ERROR_CODE);
+        }
+    }
+
+    /**
+     * Returns why a batch item cannot be booked, or null if it can.
+     */
+    private String validateBatchItem(ClassBookingRequestDto request, Map<Long, GymClass> gymClasses) {
+        if (request == null) {
+            return "Invalid request. Data cannot be null.";
+        }
+        Set<ConstraintViolation<ClassBookingRequestDto>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+        GymClass gymClass = gymClasses.get(request.getGymClassId());
+        if (gymClass == null) {
+            return ResponseConstants.ERROR_CLASS_NOT_FOUND;
+        }
+        if (!isWithinSchedule(gymClass, request.getParticipationDate())) {
+            return ResponseConstants.ERROR_PARTICIPATION_DATE_OUT_OF_RANGE;
+        }
+        return null;
+    }
+
+    private void publishBookingCreated(ClassBooking booking) {
+        eventPublisher.publishEvent(new BookingCreatedEvent(
+                booking.getId(), booking.getGymClass().getId(), booking.getMember().getName(), booking.getParticipationDate()));
+    }
+
+    private static BatchBookingResultDto batchItemFailed(int index, String message) {
+        return BatchBookingResultDto.builder()
+                .index(index)
+                .success(false)
+                .message(message)
+                .build();
+    }
+
+    static boolean isWithinSchedule(GymClass gymClass, LocalDate participationDate) {
+        return !participationDate.isBefore(gymClass.getStartDate()) && !participationDate.isAfter(gymClass.getEndDate());
+    }
+
+    static GymClassResponseDto toClassResponse(GymClass gymClass) {
+        return GymClassResponseDto.builder()
+                .id(gymClass.getId())
+                .name(gymClass.getName())
+                .capacity(gymClass.getCapacity())
+                .startDate(gymClass.getStartDate())
+                .endDate(gymClass.getEndDate())
+                .startTime(gymClass.getStartTime())
+                .duration(gymClass.getDuration())
+                .build();
+    }
+
+    static ClassCreatedEvent toClassCreatedEvent(GymClass gymClass) {
+        return new ClassCreatedEvent(gymClass.getId(), gymClass.getName(), gymClass.getStartDate(), gymClass.getEndDate(),
+                gymClass.getStartTime(), gymClass.getDuration(), gymClass.getCapacity());
+    }
+
+    static ClassBookingResponseDto toBookingResponse(ClassBooking booking, GymClass gymClass) {
+        return ClassBookingResponseDto.builder()
+                .id(booking.getId())
+                .memberName(booking.getMember().getName())
+                .gymClassId(gymClass.getId())
+                .gymClassName(gymClass.getName())
+                .participationDate(booking.getParticipationDate())
+                .build();
+    }
+
+    /**
+     * Rolls back the current transaction when an error is turned into an error response instead of being thrown.
+     */
+    private static void markRollbackOnly() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        }
+    }
 }
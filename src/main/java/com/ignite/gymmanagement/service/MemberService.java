@@ -0,0 +1,131 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ignite.gymmanagement.index.MemberNameIndex;
+import com.ignite.gymmanagement.model.Member;
+import com.ignite.gymmanagement.repository.MemberRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolves the member names of booking requests to members, creating a member on its first booking.
+ * <p>
+ * Ids of known names are kept in a bounded Caffeine cache, so a booking usually resolves its member without
+ * a query. Other names are looked up, and inserted when new, in the caller's transaction. Members resolved
+ * there are kept with the transaction and only cached once it commits, so a member it created and then rolled
+ * back is never handed out; later resolves in the same transaction reuse them without a query.
+ */
+@Slf4j
+@Service
+public class MemberService {
+
+    public static final String CACHE_NAME = "memberIds";
+
+    private final MemberRepository memberRepository;
+    private final MemberNameIndex memberNameIndex;
+    private final Cache<String, Long> memberIds;
+
+    public MemberService(MemberRepository memberRepository, MemberNameIndex memberNameIndex,
+                         @Value("${gym.member.max-cached-ids:100000}") long maxCachedIds, MeterRegistry meterRegistry) {
+        this.memberRepository = memberRepository;
+        this.memberNameIndex = memberNameIndex;
+        this.memberIds = Caffeine.newBuilder()
+                .maximumSize(maxCachedIds)
+                .recordStats()
+                .build();
+        // Same tag keys as the Spring caches, which Prometheus requires of meters sharing a name
+        CaffeineCacheMetrics.monitor(meterRegistry, memberIds, CACHE_NAME,
+                Tags.of("cache.manager", "memberService", "name", CACHE_NAME));
+    }
+
+    /**
+     * Returns the member with the given name, creating it in the caller's transaction if there is none.
+     * Only the id and name of the returned member are set; it is meant to be referenced by bookings.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Member resolve(String name) {
+        Long id = memberIds.getIfPresent(name);
+        if (id != null) {
+            return new Member(id, name);
+        }
+
+        Map<String, Long> resolved = TransactionSynchronizationManager.isSynchronizationActive() ? resolvedInTransaction() : null;
+        id = resolved != null ? resolved.get(name) : null;
+        if (id != null) {
+            return new Member(id, name);
+        }
+
+        Member member = memberRepository.findByName(name).orElse(null);
+        if (member == null) {
+            // Does nothing when a concurrent booking created the member first
+            boolean created = memberRepository.createIfAbsent(name) > 0;
+            member = memberRepository.findByName(name)
+                    .orElseThrow(() -> new IllegalStateException("Member missing after insert: " + name));
+            if (created) {
+                log.debug("Created member {} with id {}", name, member.getId());
+            }
+        }
+        if (resolved != null) {
+            resolved.put(name, member.getId());
+        } else {
+            remember(name, member.getId()); // No transaction to roll the insert back
+        }
+        return member;
+    }
+
+    /**
+     * Returns the member with the given name if its id is cached, without a query; otherwise null.
+     */
+    public Member cached(String name) {
+        Long id = memberIds.getIfPresent(name);
+        return id != null ? new Member(id, name) : null;
+    }
+
+    private void remember(String name, Long id) {
+        memberIds.put(name, id);
+        memberNameIndex.add(name, id);
+    }
+
+    /**
+     * Ids of the members resolved in the current transaction, cached when it commits and dropped when it ends.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> resolvedInTransaction() {
+        Map<String, Long> resolved = (Map<String, Long>) TransactionSynchronizationManager.getResource(this);
+        if (resolved != null) {
+            return resolved;
+        }
+
+        Map<String, Long> members = new HashMap<>();
+        TransactionSynchronizationManager.bindResource(this, members);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                members.forEach(MemberService.this::remember);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(MemberService.this);
+            }
+        });
+        return members;
+    }
+}
@@ -0,0 +1,246 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.ignite.gymmanagement.config.ResponseCacheProperties;
+import com.ignite.gymmanagement.event.BookingCancelledEvent;
+import com.ignite.gymmanagement.event.BookingCreatedEvent;
+import com.ignite.gymmanagement.util.GenericResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Serialized bodies and ETags of GET responses, so repeated queries skip both the database and Jackson.
+ * <p>
+ * Every response is cached with the class and the days it covers. A committed booking or cancellation evicts
+ * the responses covering its class and day; responses covering only past days can never change and are kept
+ * longer. To find them without scanning the cache, keys are indexed by class and by month of the days they
+ * cover; responses of all classes or of open or long ranges go to catch-all buckets. The cache is bounded by
+ * the bytes it holds. ETags are computed from the data of a response, not its
+ * timestamp, so a client keeps getting 304 for the same data after the entry was reloaded.
+ */
+@Slf4j
+@Service
+public class ResponseCacheService implements MeterBinder {
+
+    public static final String CACHE_NAME = "serializedResponses";
+    private static final int MAX_INDEXED_MONTHS = 24; // Longer ranges go to the catch-all bucket of their class
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, SerializedResponse> responses;
+    private final AtomicLong evictions = new AtomicLong();  // Bumped before every booking-driven eviction
+    private final ConcurrentMap<Bucket, Set<String>> keysByBucket = new ConcurrentHashMap<>();
+
+    public ResponseCacheService(ObjectMapper objectMapper, ResponseCacheProperties properties) {
+        this.objectMapper = objectMapper;
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(properties.maxSize().toBytes())
+                .weigher((String key, SerializedResponse response) -> key.length() + response.body().length)
+                .expireAfter(new Expiry<String, SerializedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, SerializedResponse response, long currentTime) {
+                        return (response.pastOnly() ? properties.pastTtl() : properties.ttl()).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, SerializedResponse response, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, response, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, SerializedResponse response, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                // Runs atomically with the removal, like every other index update of a key
+                .evictionListener((String key, SerializedResponse response, RemovalCause cause) -> unindex(key, response))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached response for the key, or loads, serializes and caches it. Only 200 responses are cached.
+     *
+     * @param gymClassId Class the response covers, null for all classes.
+     * @param from       First day the response covers, null for no limit.
+     * @param to         Last day the response covers, null for no limit.
+     */
+    public SerializedResponse get(String key, Long gymClassId, LocalDate from, LocalDate to,
+                                  Supplier<? extends GenericResponse<?>> loader) {
+        SerializedResponse cached = responses.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long evictionsBefore = evictions.get();
+        GenericResponse<?> response = loader.get();
+        if (response.getStatusCode() != HttpStatus.OK.value()) {
+            return new SerializedResponse(response.getStatusCode(), serialize(response), null, gymClassId, from, to, false);
+        }
+
+        boolean pastOnly = to != null && to.isBefore(LocalDate.now());
+        SerializedResponse serialized = new SerializedResponse(response.getStatusCode(), serialize(response),
+                etag(response), gymClassId, from, to, pastOnly);
+        if (pastOnly || evictionsBefore == evictions.get()) {
+            store(key, serialized);
+            // A booking committed while this response was loaded may have missed it when evicting
+            if (!pastOnly && evictionsBefore != evictions.get()) {
+                remove(key, cachedResponse -> cachedResponse == serialized);
+            }
+        }
+        return serialized;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingCreated(BookingCreatedEvent event) {
+        evict(event.gymClassId(), event.participationDate());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingCancelled(BookingCancelledEvent event) {
+        evict(event.gymClassId(), event.participationDate());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, responses, CACHE_NAME,
+                Tags.of("cache.manager", "responseCacheService", "name", CACHE_NAME));
+    }
+
+    private void evict(Long gymClassId, LocalDate participationDate) {
+        evictions.incrementAndGet();
+        YearMonth month = YearMonth.from(participationDate);
+        for (Bucket bucket : List.of(new Bucket(gymClassId, month), new Bucket(gymClassId, null),
+                new Bucket(null, month), new Bucket(null, null))) {
+            Set<String> keys = keysByBucket.get(bucket);
+            if (keys != null) {
+                List.copyOf(keys).forEach(key -> remove(key, response -> response.covers(gymClassId, participationDate)));
+            }
+        }
+    }
+
+    /**
+     * Number of keys in the index, counting a key once per bucket it is in.
+     */
+    int indexedKeys() {
+        return keysByBucket.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void store(String key, SerializedResponse response) {
+        responses.asMap().compute(key, (k, previous) -> {
+            if (previous != null) {
+                unindex(k, previous);
+            }
+            index(k, response);
+            return response;
+        });
+    }
+
+    private void remove(String key, Predicate<SerializedResponse> condition) {
+        responses.asMap().computeIfPresent(key, (k, response) -> {
+            if (!condition.test(response)) {
+                return response;
+            }
+            unindex(k, response);
+            return null;
+        });
+    }
+
+    private void index(String key, SerializedResponse response) {
+        for (Bucket bucket : bucketsOf(response)) {
+            keysByBucket.compute(bucket, (b, keys) -> {
+                Set<String> bucketKeys = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                bucketKeys.add(key);
+                return bucketKeys;
+            });
+        }
+    }
+
+    private void unindex(String key, SerializedResponse response) {
+        for (Bucket bucket : bucketsOf(response)) {
+            keysByBucket.computeIfPresent(bucket, (b, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    private static List<Bucket> bucketsOf(SerializedResponse response) {
+        if (response.from() == null || response.to() == null || response.to().isBefore(response.from())) {
+            return List.of(new Bucket(response.gymClassId(), null));
+        }
+        YearMonth first = YearMonth.from(response.from());
+        YearMonth last = YearMonth.from(response.to());
+        if (first.until(last, ChronoUnit.MONTHS) >= MAX_INDEXED_MONTHS) {
+            return List.of(new Bucket(response.gymClassId(), null));
+        }
+        List<Bucket> buckets = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            buckets.add(new Bucket(response.gymClassId(), month));
+        }
+        return buckets;
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String etag(GenericResponse<?> response) {
+        byte[] data = serialize(new Object[]{response.getData(), response.getNextCursor()});
+        return "\"" + DigestUtils.md5DigestAsHex(data) + "\"";
+    }
+
+    /**
+     * A response as sent to the client.
+     *
+     * @param etag Strong ETag of the response, null for responses that are not cached.
+     */
+    public record SerializedResponse(int statusCode, byte[] body, String etag, Long gymClassId,
+                                     LocalDate from, LocalDate to, boolean pastOnly) {
+
+        boolean covers(Long bookedClassId, LocalDate day) {
+            return (gymClassId == null || gymClassId.equals(bookedClassId))
+                    && (from == null || !day.isBefore(from))
+                    && (to == null || !day.isAfter(to));
+        }
+    }
+
+    /**
+     * Index bucket of a class, null for all classes, and a month, null for open or long ranges.
+     */
+    private record Bucket(Long gymClassId, YearMonth month) {
+    }
+}
@@ -0,0 +1,333 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.ignite.gymmanagement.model.ClassOccupancy;
+import com.ignite.gymmanagement.model.ClassOccupancyId;
+import com.ignite.gymmanagement.model.GymClass;
+import com.ignite.gymmanagement.repository.BookingRepository;
+import com.ignite.gymmanagement.repository.ClassOccupancyRepository;
+import com.ignite.gymmanagement.repository.WaitlistEntryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reserves seats of a (class, participation date) slot.
+ * <p>
+ * The {@code class_occupancy} row of the slot is the source of truth: a seat is taken with one
+ * conditional update in the caller's transaction, which stays correct when several nodes share the database.
+ * Groups of seats are taken under a row lock instead, so a batch costs one round trip per slot.
+ * In front of it every node keeps an in-memory counter of remaining seats, seeded once per slot and
+ * decremented with a CAS. A slot it reports as full is rejected without a database round trip.
+ * <p>
+ * A cancelled seat goes back to the counter of the node that cancelled it, unless members are waiting for
+ * the slot: then it is left to the waitlist, which books against the occupancy row directly. A counter can
+ * therefore miss seats freed on another node. An empty counter is refreshed from the occupancy row, at most
+ * once per {@link #RECHECK_INTERVAL} per slot, so such seats are found again. Seeding and refreshing leave out
+ * one seat per waiting member, so seats held for the waitlist never go to direct bookings.
+ * <p>
+ * Past days can no longer be booked, so their counters are swept periodically to keep the maps bounded
+ * by the slots still ahead.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SeatReservationService {
+
+    private static final int SEED_LOCK_STRIPES = 64;
+    static final Duration RECHECK_INTERVAL = Duration.ofSeconds(1);
+
+    private final BookingRepository bookingRepository;
+    private final ClassOccupancyRepository classOccupancyRepository;
+    private final WaitlistEntryRepository waitlistEntryRepository;
+
+    private final ConcurrentMap<SlotKey, AtomicInteger> remainingSeats = new ConcurrentHashMap<>();
+    private final ConcurrentMap<SlotKey, Long> checkedAt = new ConcurrentHashMap<>(); // Last time the database showed a slot full
+    private final Lock[] seedLocks = createSeedLocks();
+
+    /**
+     * Reserves one seat for the given slot. The reservation is undone if the surrounding transaction rolls back.
+     *
+     * @return true if a seat was reserved, false if the slot is already full.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean tryReserve(GymClass gymClass, LocalDate participationDate) {
+        AtomicInteger remaining = seatsFor(gymClass, participationDate);
+        if (take(gymClass, participationDate, remaining, 1) == 0) {
+            return false;
+        }
+
+        if (!reserveInDatabase(gymClass, participationDate)) {
+            // Another node filled the slot, remember it locally
+            markFull(gymClass, participationDate, remaining);
+            return false;
+        }
+
+        releaseOnRollback(remaining, 1);
+        return true;
+    }
+
+    /**
+     * Reserves up to {@code seats} seats for the given slot at once, locking the slot's occupancy row.
+     * The reservation is undone if the surrounding transaction rolls back.
+     *
+     * @return the number of seats reserved, between 0 and {@code seats}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int tryReserve(GymClass gymClass, LocalDate participationDate, int seats) {
+        int locallyReserved = reserveLocally(gymClass, participationDate, seats);
+        if (locallyReserved == 0) {
+            return 0;
+        }
+        return confirmReserved(gymClass, participationDate, locallyReserved);
+    }
+
+    /**
+     * Takes up to {@code seats} seats from this node's counter only, without touching the database.
+     * The seats must later be confirmed with {@link #confirmReserved} or given back with {@link #releaseLocally}.
+     *
+     * @return the number of seats taken, between 0 and {@code seats}.
+     */
+    public int reserveLocally(GymClass gymClass, LocalDate participationDate, int seats) {
+        return take(gymClass, participationDate, seatsFor(gymClass, participationDate), seats);
+    }
+
+    /**
+     * Gives back seats taken with {@link #reserveLocally} that will not be confirmed.
+     */
+    public void releaseLocally(GymClass gymClass, LocalDate participationDate, int seats) {
+        seatsFor(gymClass, participationDate).addAndGet(seats);
+    }
+
+    /**
+     * Books seats taken with {@link #reserveLocally} in the database, locking the slot's occupancy row.
+     * Seats the database no longer has are not granted. The granted seats are given back if the
+     * surrounding transaction rolls back.
+     *
+     * @return the number of seats granted, between 0 and {@code seats}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int confirmReserved(GymClass gymClass, LocalDate participationDate, int seats) {
+        AtomicInteger remaining = seatsFor(gymClass, participationDate);
+        int granted = grantFromOccupancy(gymClass, participationDate, seats);
+        if (granted < seats) {
+            // The database had fewer seats than this node knew of, so the slot is full now
+            markFull(gymClass, participationDate, remaining);
+        }
+
+        releaseOnRollback(remaining, granted);
+        return granted;
+    }
+
+    /**
+     * Books up to {@code seats} seats for waitlisted members in the database only, locking the slot's occupancy row.
+     * The local counter is left alone: these are seats that were freed without being given back to it.
+     *
+     * @return the number of seats granted, between 0 and {@code seats}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int reserveForWaitlist(GymClass gymClass, LocalDate participationDate, int seats) {
+        return grantFromOccupancy(gymClass, participationDate, seats);
+    }
+
+    /**
+     * Gives back one booked seat of the slot in the caller's transaction. Once the transaction commits the seat
+     * is also returned to this node's counter, unless {@code keepForWaitlist} reserves it for waiting members.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(GymClass gymClass, LocalDate participationDate, boolean keepForWaitlist) {
+        classOccupancyRepository.releaseSeat(gymClass.getId(), participationDate);
+
+        // An unseeded counter will count the remaining bookings when it is seeded
+        AtomicInteger remaining = remainingSeats.get(new SlotKey(gymClass.getId(), participationDate));
+        if (!keepForWaitlist && remaining != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remaining.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops this node's counters of the slots from the given day until the exclusive end day, so they are
+     * seeded again from the bookings on their next use. Called after the occupancy rows were rewritten.
+     */
+    public void forget(LocalDate from, LocalDate until) {
+        remainingSeats.keySet().removeIf(key -> key.inRange(from, until));
+        checkedAt.keySet().removeIf(key -> key.inRange(from, until));
+    }
+
+    /**
+     * Drops this node's counters of the slots before today.
+     */
+    @Scheduled(fixedDelayString = "${gym.booking.seat-counter-sweep-interval}")
+    public void forgetPastSlots() {
+        int before = remainingSeats.size();
+        forget(LocalDate.MIN, LocalDate.now());
+        log.debug("Dropped {} seat counters of past days", before - remainingSeats.size());
+    }
+
+    private int grantFromOccupancy(GymClass gymClass, LocalDate participationDate, int seats) {
+        ClassOccupancyId id = new ClassOccupancyId(gymClass.getId(), participationDate);
+        classOccupancyRepository.createIfAbsent(gymClass.getId(), participationDate, gymClass.getCapacity());
+        ClassOccupancy occupancy = classOccupancyRepository.findForUpdate(id)
+                .orElseThrow(() -> new IllegalStateException("Occupancy row missing for " + id));
+
+        int granted = Math.min(seats, Math.max(0, occupancy.getCapacity() - occupancy.getBooked()));
+        occupancy.setBooked(occupancy.getBooked() + granted);
+        return granted;
+    }
+
+    private boolean reserveInDatabase(GymClass gymClass, LocalDate participationDate) {
+        if (classOccupancyRepository.reserveSeat(gymClass.getId(), participationDate) > 0) {
+            return true;
+        }
+        // First booking of the day, or the slot is full. Creating the row is a no-op when it already exists.
+        classOccupancyRepository.createIfAbsent(gymClass.getId(), participationDate, gymClass.getCapacity());
+        return classOccupancyRepository.reserveSeat(gymClass.getId(), participationDate) > 0;
+    }
+
+    private static void releaseOnRollback(AtomicInteger remaining, int seats) {
+        if (seats > 0 && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        remaining.addAndGet(seats);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Takes up to {@code seats} seats from the counter. An empty counter is first refreshed from the occupancy
+     * row when the slot is due for a recheck.
+     */
+    private int take(GymClass gymClass, LocalDate participationDate, AtomicInteger remaining, int seats) {
+        int taken = decrement(remaining, seats);
+        if (taken == 0 && recheck(gymClass, participationDate, remaining)) {
+            taken = decrement(remaining, seats);
+        }
+        return taken;
+    }
+
+    /**
+     * Refills an empty counter with the seats the occupancy row has left, which other nodes may have freed.
+     * Only one caller per slot and {@link #RECHECK_INTERVAL} reads the row; the others keep rejecting locally.
+     *
+     * @return true if the counter was refilled.
+     */
+    private boolean recheck(GymClass gymClass, LocalDate participationDate, AtomicInteger remaining) {
+        SlotKey key = new SlotKey(gymClass.getId(), participationDate);
+        long now = System.nanoTime();
+        Long lastCheck = checkedAt.get(key);
+        if (lastCheck != null && now - lastCheck < RECHECK_INTERVAL.toNanos()) {
+            return false;
+        }
+        boolean claimed = lastCheck == null ? checkedAt.putIfAbsent(key, now) == null : checkedAt.replace(key, lastCheck, now);
+        if (!claimed) {
+            return false;
+        }
+
+        int free = classOccupancyRepository.findById(new ClassOccupancyId(gymClass.getId(), participationDate))
+                .map(occupancy -> occupancy.getCapacity() - occupancy.getBooked())
+                .orElse(0);
+        if (free > 0) {
+            free = withoutWaitlistSeats(gymClass, participationDate, free);
+        }
+        if (free > 0 && remaining.compareAndSet(0, free)) {
+            log.debug("Refilled seat counter for class {} on {} with {} seats freed elsewhere",
+                    gymClass.getId(), participationDate, free);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Leaves the free seats the waitlist promoter is due to book for waiting members.
+     */
+    private int withoutWaitlistSeats(GymClass gymClass, LocalDate participationDate, int free) {
+        long waiting = waitlistEntryRepository.countWaiting(gymClass.getId(), participationDate);
+        return (int) Math.max(0, free - waiting);
+    }
+
+    private void markFull(GymClass gymClass, LocalDate participationDate, AtomicInteger remaining) {
+        remaining.set(0);
+        checkedAt.put(new SlotKey(gymClass.getId(), participationDate), System.nanoTime());
+    }
+
+    private static int decrement(AtomicInteger remaining, int seats) {
+        int current;
+        int taken;
+        do {
+            current = remaining.get();
+            taken = Math.min(current, seats);
+            if (taken <= 0) {
+                return 0;
+            }
+        } while (!remaining.compareAndSet(current, current - taken));
+        return taken;
+    }
+
+    private AtomicInteger seatsFor(GymClass gymClass, LocalDate participationDate) {
+        SlotKey key = new SlotKey(gymClass.getId(), participationDate);
+        AtomicInteger remaining = remainingSeats.get(key);
+        if (remaining != null) {
+            return remaining;
+        }
+
+        // Seed outside of the map's own bin locks so a slow count never blocks unrelated slots.
+        // Not synchronized, which would pin a virtual thread to its carrier during the query.
+        Lock seedLock = seedLocks[Math.floorMod(key.hashCode(), SEED_LOCK_STRIPES)];
+        seedLock.lock();
+        try {
+            remaining = remainingSeats.get(key);
+            if (remaining == null) {
+                long booked = bookingRepository.countByGymClassAndParticipationDate(gymClass, participationDate);
+                int free = (int) Math.max(0, gymClass.getCapacity() - booked);
+                remaining = new AtomicInteger(free > 0 ? withoutWaitlistSeats(gymClass, participationDate, free) : 0);
+                remainingSeats.put(key, remaining);
+                log.debug("Seeded seat counter for class {} on {} with {} remaining seats",
+                        gymClass.getId(), participationDate, remaining.get());
+            }
+            return remaining;
+        } finally {
+            seedLock.unlock();
+        }
+    }
+
+    private static Lock[] createSeedLocks() {
+        Lock[] locks = new Lock[SEED_LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    private record SlotKey(Long gymClassId, LocalDate participationDate) {
+
+        boolean inRange(LocalDate from, LocalDate until) {
+            return !participationDate.isBefore(from) && participationDate.isBefore(until);
+        }
+    }
+}
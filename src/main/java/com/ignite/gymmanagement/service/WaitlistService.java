@@ -0,0 +1,255 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.ignite.gymmanagement.config.WaitlistProperties;
+import com.ignite.gymmanagement.event.BookingCreatedEvent;
+import com.ignite.gymmanagement.model.ClassBooking;
+import com.ignite.gymmanagement.model.GymClass;
+import com.ignite.gymmanagement.model.WaitlistEntry;
+import com.ignite.gymmanagement.repository.BookingRepository;
+import com.ignite.gymmanagement.repository.GymClassRepository;
+import com.ignite.gymmanagement.repository.WaitlistEntryRepository;
+import com.ignite.gymmanagement.repository.WaitlistSession;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Waitlists of full class sessions, promoted to bookings when seats free up.
+ * <p>
+ * Waiters are {@code waitlist_entry} rows, shared by all nodes. Every node keeps the set of sessions it knows
+ * to have waiters, so a cancellation can tell without a query whether to keep the seat for the waitlist.
+ * A scheduled promoter claims the longest-waiting entries of a session with {@code FOR UPDATE SKIP LOCKED},
+ * books as many of them as the session's occupancy row has free seats, and deletes exactly those entries,
+ * for up to {@code promotionBatchSize} waiters across sessions in one transaction. Promoters on several
+ * nodes therefore never book the same entry, and entries created on any node are promoted.
+ * <p>
+ * Only sessions flagged by a cancellation or a new waiter are checked on every run. Every
+ * {@code fullSweepInterval} the waiting sessions are reloaded from the database and all of them are checked,
+ * which picks up waiters and seats of other nodes.
+ */
+@Slf4j
+@Service
+public class WaitlistService {
+
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final GymClassRepository gymClassRepository;
+    private final BookingRepository bookingRepository;
+    private final SeatReservationService seatReservationService;
+    private final MemberService memberService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final WaitlistProperties properties;
+
+    private final Set<BookingSlot> waitingSlots = ConcurrentHashMap.newKeySet();
+    private final Set<BookingSlot> flaggedSlots = ConcurrentHashMap.newKeySet();
+    private long lastFullSweep = System.nanoTime();
+
+    public WaitlistService(WaitlistEntryRepository waitlistEntryRepository, GymClassRepository gymClassRepository,
+                           BookingRepository bookingRepository, SeatReservationService seatReservationService,
+                           MemberService memberService, ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager, WaitlistProperties properties) {
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.gymClassRepository = gymClassRepository;
+        this.bookingRepository = bookingRepository;
+        this.seatReservationService = seatReservationService;
+        this.memberService = memberService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    /**
+     * Loads the upcoming sessions with waiters and checks all of them on the next promotion run.
+     */
+    @PostConstruct
+    public void load() {
+        List<WaitlistSession> sessions = waitlistEntryRepository.findWaitingSessions(LocalDate.now());
+        sessions.forEach(session -> waitingSlots.add(new BookingSlot(session.gymClassId(), session.participationDate())));
+        flaggedSlots.addAll(waitingSlots);
+        log.info("Waitlists loaded for {} sessions", sessions.size());
+    }
+
+    /**
+     * Puts a member on the waitlist of a session in the caller's transaction. The session is flagged for
+     * promotion once the transaction commits.
+     *
+     * @return false if the member was already waiting for the session.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean join(GymClass gymClass, String memberName, LocalDate participationDate) {
+        if (waitlistEntryRepository.existsByGymClassAndParticipationDateAndMemberName(gymClass, participationDate, memberName)) {
+            return false;
+        }
+
+        WaitlistEntry entry = waitlistEntryRepository.saveAndFlush(WaitlistEntry.builder()
+                .gymClass(gymClass)
+                .memberName(memberName)
+                .participationDate(participationDate)
+                .joinedAt(LocalDateTime.now())
+                .build());
+
+        BookingSlot slot = new BookingSlot(gymClass.getId(), participationDate);
+        afterCommit(() -> {
+            waitingSlots.add(slot);
+            // This node's counter may be missing seats freed elsewhere, so look at the occupancy row
+            flaggedSlots.add(slot);
+        });
+        log.info("Member {} joined the waitlist of class {} on {} as entry {}", memberName, gymClass.getId(), participationDate,
+                entry.getId());
+        return true;
+    }
+
+    /**
+     * Tells whether this node knows of members waiting for a session.
+     */
+    public boolean hasWaiters(Long gymClassId, LocalDate participationDate) {
+        return waitingSlots.contains(new BookingSlot(gymClassId, participationDate));
+    }
+
+    /**
+     * Flags a session for the next promotion run once the caller's transaction has freed a seat of it.
+     */
+    public void seatFreed(Long gymClassId, LocalDate participationDate) {
+        BookingSlot slot = new BookingSlot(gymClassId, participationDate);
+        afterCommit(() -> flaggedSlots.add(slot));
+    }
+
+    /**
+     * Promotes waiters of the flagged sessions, or of all waiting sessions when a full sweep is due.
+     */
+    @Scheduled(fixedDelayString = "${gym.waitlist.promotion-interval}")
+    public void promoteWaiters() {
+        if (System.nanoTime() - lastFullSweep >= properties.fullSweepInterval().toNanos()) {
+            lastFullSweep = System.nanoTime();
+            try {
+                load();
+            } catch (RuntimeException e) {
+                log.error("Reloading waiting sessions failed: {}", e.getMessage(), e);
+                flaggedSlots.addAll(waitingSlots);
+            }
+        }
+
+        List<BookingSlot> slots = new ArrayList<>();
+        for (BookingSlot slot : flaggedSlots) {
+            flaggedSlots.remove(slot);
+            if (waitingSlots.contains(slot)) {
+                slots.add(slot);
+            }
+        }
+        if (slots.isEmpty()) {
+            return;
+        }
+        slots.sort(null); // Lock occupancy rows in a fixed order
+
+        LocalDate today = LocalDate.now();
+        List<BookingSlot> pastSlots = slots.stream().filter(slot -> slot.participationDate().isBefore(today)).toList();
+        if (!pastSlots.isEmpty()) {
+            dropPastWaitlists(pastSlots, today);
+            slots.removeAll(pastSlots);
+        }
+        promote(slots);
+    }
+
+    /**
+     * Books the longest-waiting members of the given sessions in one transaction, as far as seats are free.
+     * Only entries this transaction has locked and deleted are booked.
+     *
+     * @return the number of members promoted.
+     */
+    int promote(List<BookingSlot> slots) {
+        List<BookingSlot> drainedSlots = new ArrayList<>();
+        try {
+            List<ClassBooking> savedBookings = transactionTemplate.execute(status -> {
+                List<ClassBooking> bookings = new ArrayList<>();
+                List<Long> entryIds = new ArrayList<>();
+                for (BookingSlot slot : slots) {
+                    int budget = properties.promotionBatchSize() - bookings.size();
+                    if (budget == 0) {
+                        flaggedSlots.add(slot); // Left for the next run
+                        continue;
+                    }
+                    GymClass gymClass = gymClassRepository.findById(slot.gymClassId()).orElse(null);
+                    if (gymClass == null) {
+                        continue;
+                    }
+
+                    List<WaitlistEntry> entries = waitlistEntryRepository.lockNextWaiting(slot.gymClassId(), slot.participationDate(), budget);
+                    int granted = entries.isEmpty() ? 0
+                            : seatReservationService.reserveForWaitlist(gymClass, slot.participationDate(), entries.size());
+                    for (WaitlistEntry entry : entries.subList(0, granted)) {
+                        bookings.add(new ClassBooking(null, memberService.resolve(entry.getMemberName()), gymClass, slot.participationDate()));
+                        entryIds.add(entry.getId());
+                    }
+                    if (granted == entries.size()) {
+                        if (entries.size() < budget) {
+                            drainedSlots.add(slot);
+                        } else {
+                            flaggedSlots.add(slot); // May have more waiters for the seats left
+                        }
+                    }
+                }
+
+                if (bookings.isEmpty()) {
+                    return bookings;
+                }
+                if (waitlistEntryRepository.deleteByIds(entryIds) != entryIds.size()) {
+                    throw new IllegalStateException("Waitlist entries were promoted by another node");
+                }
+                List<ClassBooking> saved = bookingRepository.saveAll(bookings);
+                saved.forEach(booking -> eventPublisher.publishEvent(new BookingCreatedEvent(booking.getId(),
+                        booking.getGymClass().getId(), booking.getMember().getName(), booking.getParticipationDate())));
+                return saved;
+            });
+
+            // A member joining meanwhile is picked up again by the next full sweep
+            drainedSlots.forEach(waitingSlots::remove);
+            if (!savedBookings.isEmpty()) {
+                log.info("Promoted {} waiting members to bookings", savedBookings.size());
+            }
+            return savedBookings.size();
+        } catch (RuntimeException e) {
+            log.error("Waitlist promotion of {} sessions failed: {}", slots.size(), e.getMessage(), e);
+            flaggedSlots.addAll(slots);
+            return 0;
+        }
+    }
+
+    private void dropPastWaitlists(List<BookingSlot> pastSlots, LocalDate today) {
+        try {
+            Integer dropped = transactionTemplate.execute(status -> waitlistEntryRepository.deletePast(today));
+            pastSlots.forEach(waitingSlots::remove);
+            log.info("Dropped {} waitlist entries of past sessions", dropped);
+        } catch (RuntimeException e) {
+            log.error("Dropping past waitlist entries failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -6,11 +6,18 @@
 package com.ignite.gymmanagement.specifications;
 
 import com.ignite.gymmanagement.model.ClassBooking;
+import com.ignite.gymmanagement.model.Member;
+import com.ignite.gymmanagement.util.BookingSearchCursor;
 
 import org.springframework.data.jpa.domain.Specification;
 import java.time.LocalDate;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 public class BookingSpecifications {
 
@@ -23,20 +30,69 @@ public class BookingSpecifications {
 
             // Filter by member name (case-insensitive)
             if (memberName != null && !memberName.isEmpty()) {
-                predicates.add(cb.like(cb.lower(root.get("memberName")), "%" + memberName.toLowerCase() + "%"));
+                predicates.add(cb.like(cb.lower(root.get("member").get("name")), "%" + memberName.toLowerCase() + "%"));
             }
 
-            // Filter by start date
-            if (startDate != null) {
-                predicates.add(cb.greaterThanOrEqualTo(root.get("participationDate"), startDate));
-            }
+            addDateRange(predicates, root, cb, startDate, endDate);
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
 
-            // Filter by end date
-            if (endDate != null) {
-                predicates.add(cb.lessThanOrEqualTo(root.get("participationDate"), endDate));
-            }
+    /**
+     * Builds a JPA Specification for bookings of exactly the given members, e.g. members resolved by
+     * the member name index. Unlike a LIKE filter this compares member ids only, which the booking index serves.
+     */
+    public static Specification<ClassBooking> filterBookings(Collection<Long> memberIds, LocalDate startDate, LocalDate endDate) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(root.get("member").get("id").in(memberIds));
+            addDateRange(predicates, root, cb, startDate, endDate);
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
 
+    /**
+     * Builds a JPA Specification for bookings of the given members, resolved by the member name index, or of
+     * members with an id above {@code indexedUpTo}, which the index may not know yet, whose name contains
+     * memberName. Only the members above {@code indexedUpTo} are matched with LIKE.
+     */
+    public static Specification<ClassBooking> filterBookings(Collection<Long> memberIds, long indexedUpTo, String memberName,
+                                                             LocalDate startDate, LocalDate endDate) {
+        return (root, query, cb) -> {
+            Subquery<Long> unindexed = query.subquery(Long.class);
+            Root<Member> member = unindexed.from(Member.class);
+            unindexed.select(member.get("id")).where(
+                    cb.greaterThan(member.get("id"), indexedUpTo),
+                    cb.like(cb.lower(member.get("name")), "%" + memberName.toLowerCase() + "%"));
+
+            List<Predicate> predicates = new ArrayList<>();
+            Path<Long> memberId = root.get("member").get("id");
+            predicates.add(cb.or(memberId.in(memberIds), memberId.in(unindexed)));
+            addDateRange(predicates, root, cb, startDate, endDate);
             return cb.and(predicates.toArray(new Predicate[0]));
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Matches bookings ordered after the given cursor in (participationDate, id) order.
+     */
+    public static Specification<ClassBooking> after(BookingSearchCursor cursor) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("participationDate"), cursor.participationDate()),
+                cb.and(cb.equal(root.get("participationDate"), cursor.participationDate()),
+                        cb.greaterThan(root.get("id"), cursor.id())));
+    }
+
+    private static void addDateRange(List<Predicate> predicates, Root<ClassBooking> root, CriteriaBuilder cb,
+                                     LocalDate startDate, LocalDate endDate) {
+        // Filter by start date
+        if (startDate != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("participationDate"), startDate));
+        }
+
+        // Filter by end date
+        if (endDate != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("participationDate"), endDate));
+        }
+    }
+}
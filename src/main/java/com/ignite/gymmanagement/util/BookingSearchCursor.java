@@ -0,0 +1,46 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.util;
+
+import com.ignite.gymmanagement.exception.CustomException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last booking of a search page, in (participation date, id) order.
+ * Clients receive it as an opaque token and send it back to fetch the next page.
+ */
+public record BookingSearchCursor(LocalDate participationDate, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Encodes this position as a URL-safe token.
+     */
+    public String encode() {
+        String raw = participationDate.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token created by {@link #encode()}.
+     *
+     * @throws CustomException if the token is malformed.
+     */
+    public static BookingSearchCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new BookingSearchCursor(LocalDate.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new CustomException(ResponseConstants.ERROR_INVALID_CURSOR, ResponseConstants.BOOKING_ERROR_CODE);
+        }
+    }
+}
@@ -5,6 +5,7 @@
 
 package com.ignite.gymmanagement.util;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
 import lombok.Getter;
@@ -30,4 +31,7 @@ public class GenericResponse<T> {
     String errorCode;         // Optional error code for debugging
     LocalDateTime timestamp;  // Response generation time
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    String nextCursor;        // Continuation token of paginated responses, null on the last page
+
 }
@@ -15,13 +15,42 @@ public class ResponseConstants {
     public static final String CLASS_CREATED_SUCCESS = "Class created successfully!";
     public static final String BOOKING_SUCCESS = "Class booked successfully!";
     public static final String NO_BOOKINGS_FOUND = "No bookings found for the given criteria.";
+    public static final String BATCH_BOOKING_COMPLETED = "Batch booking completed.";
+    public static final String BATCH_BOOKING_PARTIAL = "Batch booking completed with failures.";
+    public static final String WAITLIST_JOINED = "Class is full. You have been added to the waitlist and will be booked when a seat frees up.";
+    public static final String WAITLIST_ALREADY_JOINED = "Class is full. You are already on the waitlist.";
+    public static final String BOOKING_CANCELLED = "Booking cancelled successfully!";
+    public static final String CLASS_IMPORT_COMPLETED = "Class import completed.";
+    public static final String CLASS_IMPORT_PARTIAL = "Class import completed with failures.";
+    public static final String ANALYTICS_REBUILD_COMPLETED = "Analytics rebuild completed.";
 
     // Common Error Messages
     public static final String DEFAULT_ERROR_MESSAGE = "An unexpected error occurred.";
     public static final String ERROR_CLASS_NOT_FOUND = "Class not found.";
     public static final String ERROR_BOOKING_FAILED = "Booking could not be created.";
     public static final String ERROR_CAPACITY_EXCEEDED = "Class capacity exceeded.";
+    public static final String ERROR_IDEMPOTENCY_KEY_IN_PROGRESS = "A request with this Idempotency-Key is still being processed. Retry shortly.";
+    public static final String ERROR_IDEMPOTENCY_KEY_REUSED = "This Idempotency-Key was already used for a different booking request.";
+    public static final String ERROR_BOOKING_NOT_FOUND = "Booking not found.";
+    public static final String ERROR_PAST_BOOKING_CANCELLATION = "Past bookings cannot be cancelled.";
+    public static final String ERROR_INVALID_CURSOR = "Invalid search cursor.";
+    public static final String ERROR_BOOKING_NOT_CONFIRMED = "Booking was not confirmed in time. It may still complete, check your bookings before retrying.";
+    public static final String ERROR_BOOKING_WITHDRAWN = "Booking could not be processed in time and was not made. Retry shortly.";
+    public static final String ERROR_CLASS_SCHEDULE_OVERLAP = "A class is already scheduled in this time slot.";
+    public static final String ERROR_END_DATE_BEFORE_START_DATE = "End date must be after start date";
+    public static final String ERROR_IMPORT_EMPTY = "The import contains no classes.";
+    public static final String ERROR_IMPORT_CSV_HEADER = "The first CSV line must name the columns name, startDate, endDate, startTime, duration and capacity.";
+    public static final String ERROR_IMPORT_ROW_UNREADABLE = "Row could not be read: ";
+    public static final String ERROR_IMPORT_TOO_MANY_ROWS = "Too many rows, this and later rows were skipped. An import may have at most ";
+    public static final String ERROR_INVALID_AVAILABILITY_RANGE = "Invalid availability range. Dates must fall within the class schedule and from must not be after to.";
+    public static final String ERROR_PARTICIPATION_DATE_OUT_OF_RANGE = "Participation date must be within the class schedule range.";
+    public static final String ERROR_INVALID_ANALYTICS_RANGE = "Invalid analytics range, from must not be after to.";
+    public static final String ERROR_ANALYTICS_REBUILD_FAILED = "Analytics rebuild failed for some months. It is safe to run it again for the same range.";
+    public static final String ERROR_RATE_LIMITED = "Too many booking requests. Retry after the number of seconds given in the Retry-After header.";
 
     public static final String BOOKING_ERROR_CODE = "BOOKING_ERROR";
     public static final String CLASS_CREATION_ERROR_CODE = "CLASS_CREATION_ERROR";
+    public static final String AVAILABILITY_ERROR_CODE = "AVAILABILITY_ERROR";
+    public static final String IDEMPOTENCY_ERROR_CODE = "IDEMPOTENCY_ERROR";
+    public static final String ANALYTICS_ERROR_CODE = "ANALYTICS_ERROR";
 }
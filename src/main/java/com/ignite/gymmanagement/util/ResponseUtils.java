@@ -49,6 +49,27 @@ public class ResponseUtils {
         return buildResponse(data, message, true, status, null);
     }
 
+    /**
+     * Creates a success response for one page of a paginated result.
+     *
+     * @param data       The response payload.
+     * @param message    The success message.
+     * @param status     The HTTP status code.
+     * @param nextCursor The token of the next page, or null on the last page.
+     * @param <T>        The type of the response payload.
+     * @return A success response object.
+     */
+    public static <T> GenericResponse<T> success(T data, String message, HttpStatus status, String nextCursor) {
+        return GenericResponse.<T>builder()
+                .data(data)
+                .message(message)
+                .success(true)
+                .statusCode(status.value())
+                .timestamp(LocalDateTime.now())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     /**
      * Creates a standard error response with a custom message.
      *
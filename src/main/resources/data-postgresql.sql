@@ -0,0 +1,4 @@
+-- Ids used to come from identity columns. Move the pooled id sequences past existing rows,
+-- never backwards, so ids handed out by the sequences cannot collide with them.
+SELECT setval('gym_class_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM gym_class), (SELECT last_value FROM gym_class_seq)));
+SELECT setval('class_booking_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM class_booking), (SELECT last_value FROM class_booking_seq)));
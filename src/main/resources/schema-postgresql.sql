@@ -0,0 +1,156 @@
+-- Schema of the application, applied on every start by spring.sql.init. Every statement is idempotent.
+-- Hibernate no longer manages the schema (ddl-auto: none): class_booking is range partitioned, which
+-- entity mappings cannot express. Change tables here and keep the entities in line with them.
+-- Procedural blocks are quoted with '' instead of $$, which the script splitter does not understand.
+
+CREATE SEQUENCE IF NOT EXISTS gym_class_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS class_booking_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS waitlist_entry_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS member_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS outbox_event_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS gym_class (
+    id         BIGINT       NOT NULL PRIMARY KEY,
+    name       VARCHAR(255) NOT NULL,
+    start_date DATE         NOT NULL,
+    end_date   DATE         NOT NULL,
+    start_time TIME(6)      NOT NULL,
+    duration   INTEGER      NOT NULL,
+    capacity   INTEGER      NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS member (
+    id   BIGINT       NOT NULL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_member_name UNIQUE (name)
+);
+
+-- A class_booking table created by Hibernate is not partitioned. Rename it and drop its primary key and
+-- indexes, whose names the partitioned table takes over; its rows are copied at the end of this script.
+DO '
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass(''class_booking'')) = ''r'' THEN
+        ALTER TABLE class_booking RENAME TO class_booking_unpartitioned;
+        ALTER TABLE class_booking_unpartitioned DROP CONSTRAINT IF EXISTS class_booking_pkey;
+        DROP INDEX IF EXISTS idx_booking_member_name, idx_booking_participation_date, idx_booking_composite,
+            idx_booking_date_id, idx_booking_class_date;
+    END IF;
+END';
+
+-- One partition per month of participation_date, kept ahead of the calendar by BookingPartitionManager.
+-- The primary key has to include the partition key; ids alone are still unique, they come from a sequence.
+CREATE TABLE IF NOT EXISTS class_booking (
+    id                 BIGINT       NOT NULL,
+    member_id          BIGINT       NOT NULL REFERENCES member (id),
+    gym_class_id       BIGINT       NOT NULL REFERENCES gym_class (id),
+    participation_date DATE         NOT NULL,
+    PRIMARY KEY (id, participation_date)
+) PARTITION BY RANGE (participation_date);
+
+-- Catches bookings for months without a partition, until the manager creates it
+CREATE TABLE IF NOT EXISTS class_booking_default PARTITION OF class_booking DEFAULT;
+
+-- Bookings used to carry the member's name. Create a member per distinct name and replace the names
+-- with member ids; dropping the name column also drops the index on it, which is recreated below.
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_schema = current_schema()
+               AND table_name = ''class_booking'' AND column_name = ''member_name'') THEN
+        INSERT INTO member (id, name)
+        SELECT nextval(''member_seq''), member_name FROM (SELECT DISTINCT member_name FROM class_booking) AS names
+        ON CONFLICT DO NOTHING;
+        ALTER TABLE class_booking ADD COLUMN member_id BIGINT REFERENCES member (id);
+        UPDATE class_booking b SET member_id = m.id FROM member m WHERE m.name = b.member_name;
+        ALTER TABLE class_booking ALTER COLUMN member_id SET NOT NULL;
+        ALTER TABLE class_booking DROP COLUMN member_name;
+    END IF;
+END';
+
+-- Indexes are created on every partition. Member-only searches use the prefix of idx_booking_composite
+-- and date-only searches that of idx_booking_date_id, so neither column has an index of its own.
+CREATE INDEX IF NOT EXISTS idx_booking_composite ON class_booking (member_id, participation_date);
+CREATE INDEX IF NOT EXISTS idx_booking_date_id ON class_booking (participation_date, id);
+CREATE INDEX IF NOT EXISTS idx_booking_class_date ON class_booking (gym_class_id, participation_date);
+
+-- Creates the partition for the month of the given day unless it exists, and returns its name.
+-- Bookings of that month are moved out of the default partition first, otherwise attaching fails.
+-- Attaching a table locks class_booking more lightly than creating the partition in place.
+CREATE OR REPLACE FUNCTION create_class_booking_partition(booking_day DATE) RETURNS TEXT LANGUAGE plpgsql AS '
+DECLARE
+    month_start    DATE := date_trunc(''month'', booking_day)::date;
+    next_month     DATE := (date_trunc(''month'', booking_day) + interval ''1 month'')::date;
+    partition_name TEXT := ''class_booking_'' || to_char(booking_day, ''YYYY_MM'');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+    EXECUTE format(''CREATE TABLE %I (LIKE class_booking INCLUDING DEFAULTS INCLUDING CONSTRAINTS)'', partition_name);
+    EXECUTE format(''WITH moved AS (DELETE FROM class_booking_default WHERE participation_date >= %L AND participation_date < %L RETURNING *) ''
+                   ''INSERT INTO %I SELECT * FROM moved'', month_start, next_month, partition_name);
+    EXECUTE format(''ALTER TABLE class_booking ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)'',
+                   partition_name, month_start, next_month);
+    RETURN partition_name;
+END';
+
+CREATE TABLE IF NOT EXISTS class_occupancy (
+    gym_class_id       BIGINT  NOT NULL,
+    participation_date DATE    NOT NULL,
+    booked             INTEGER NOT NULL,
+    capacity           INTEGER NOT NULL,
+    PRIMARY KEY (gym_class_id, participation_date)
+);
+
+CREATE TABLE IF NOT EXISTS waitlist_entry (
+    id                 BIGINT       NOT NULL PRIMARY KEY,
+    member_name        VARCHAR(255) NOT NULL,
+    gym_class_id       BIGINT       NOT NULL REFERENCES gym_class (id),
+    participation_date DATE         NOT NULL,
+    joined_at          TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_waitlist_member_slot UNIQUE (gym_class_id, participation_date, member_name)
+);
+CREATE INDEX IF NOT EXISTS idx_waitlist_participation_date ON waitlist_entry (participation_date);
+
+CREATE TABLE IF NOT EXISTS booking_idempotency (
+    idempotency_key    VARCHAR(255) NOT NULL PRIMARY KEY,
+    request_hash       VARCHAR(32)  NOT NULL,
+    created_at         TIMESTAMP(6) NOT NULL,
+    status_code        INTEGER,
+    success            BOOLEAN,
+    message            VARCHAR(255),
+    error_code         VARCHAR(64),
+    responded_at       TIMESTAMP(6),
+    booking_id         BIGINT,
+    gym_class_id       BIGINT,
+    gym_class_name     VARCHAR(255),
+    member_name        VARCHAR(255),
+    participation_date DATE
+);
+CREATE INDEX IF NOT EXISTS idx_booking_idempotency_created_at ON booking_idempotency (created_at);
+
+-- Domain events waiting for the outbox relay, which publishes them in no guaranteed order and deletes them once published
+CREATE TABLE IF NOT EXISTS outbox_event (
+    id             BIGINT       NOT NULL PRIMARY KEY,
+    aggregate_type VARCHAR(64)  NOT NULL,
+    aggregate_id   BIGINT       NOT NULL,
+    event_type     VARCHAR(64)  NOT NULL,
+    payload        TEXT         NOT NULL,
+    created_at     TIMESTAMP(6) NOT NULL
+);
+
+-- Copy the bookings of a table renamed above into the partitions of their months
+DO '
+BEGIN
+    IF to_regclass(''class_booking_unpartitioned'') IS NOT NULL THEN
+        PERFORM create_class_booking_partition(month::date)
+        FROM generate_series((SELECT date_trunc(''month'', MIN(participation_date)) FROM class_booking_unpartitioned),
+                             (SELECT MAX(participation_date) FROM class_booking_unpartitioned),
+                             interval ''1 month'') AS month;
+        INSERT INTO member (id, name)
+        SELECT nextval(''member_seq''), member_name FROM (SELECT DISTINCT member_name FROM class_booking_unpartitioned) AS names
+        ON CONFLICT DO NOTHING;
+        INSERT INTO class_booking (id, member_id, gym_class_id, participation_date)
+        SELECT b.id, m.id, b.gym_class_id, b.participation_date
+        FROM class_booking_unpartitioned b JOIN member m ON m.name = b.member_name;
+        DROP TABLE class_booking_unpartitioned;
+    END IF;
+END';
@@ -0,0 +1,154 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.aspect;
+
+import com.ignite.gymmanagement.dto.ClassBookingRequestDto;
+import com.ignite.gymmanagement.exception.BulkheadFullException;
+import com.ignite.gymmanagement.service.GymService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class GymServiceBulkheadTest {
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+
+    private SimpleMeterRegistry meterRegistry;
+    private GymServiceBulkhead bulkhead;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bulkhead = new GymServiceBulkhead(1, 1, false, Duration.ofMillis(50), meterRegistry);
+        when(joinPoint.getSignature()).thenReturn(mock(Signature.class));
+    }
+
+    @Test
+    void limitConcurrency_FreePermit_ProceedsAndReleases() throws Throwable {
+        when(joinPoint.proceed()).thenReturn("result");
+
+        assertEquals("result", bulkhead.limitConcurrency(joinPoint));
+        assertEquals("result", bulkhead.limitConcurrency(joinPoint));
+        assertEquals(1.0, meterRegistry.get("gym.bulkhead.available.permits").gauge().value());
+    }
+
+    @Test
+    void limitConcurrency_FailedCall_ReleasesPermit() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new IllegalStateException("Database down")).thenReturn("result");
+
+        assertThrows(IllegalStateException.class, () -> bulkhead.limitConcurrency(joinPoint));
+        assertEquals("result", bulkhead.limitConcurrency(joinPoint));
+    }
+
+    @Test
+    void limitConcurrency_AllPermitsTaken_RejectsAfterWaiting() throws Throwable {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ProceedingJoinPoint slowCall = mock(ProceedingJoinPoint.class);
+        when(slowCall.proceed()).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await();
+            return "slow";
+        });
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Object> holder = executor.submit(() -> {
+                try {
+                    return bulkhead.limitConcurrency(slowCall);
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            entered.await();
+
+            assertThrows(BulkheadFullException.class, () -> bulkhead.limitConcurrency(joinPoint));
+
+            release.countDown();
+            assertEquals("slow", holder.get());
+        }
+    }
+
+    @Test
+    void withPermit_NestedServiceCall_RunsOnTheSamePermit() throws Throwable {
+        when(joinPoint.proceed()).thenReturn("result");
+
+        Object result = bulkhead.withPermit("test", () -> {
+            assertEquals(0.0, meterRegistry.get("gym.bulkhead.available.permits").gauge().value());
+            try {
+                return bulkhead.limitConcurrency(joinPoint);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals("result", result);
+        assertEquals(1.0, meterRegistry.get("gym.bulkhead.available.permits").gauge().value());
+    }
+
+    @Test
+    void limitConcurrency_ReadReplica_ReadOnlyCallsUseOwnPermits() throws Throwable {
+        GymServiceBulkhead splitBulkhead = new GymServiceBulkhead(1, 1, true, Duration.ofMillis(50), new SimpleMeterRegistry());
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ProceedingJoinPoint booking = joinPoint(GymService.class.getMethod("bookClass", ClassBookingRequestDto.class));
+        when(booking.proceed()).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await();
+            return "booked";
+        });
+        ProceedingJoinPoint search = joinPoint(GymService.class.getMethod("searchBookings",
+                String.class, LocalDate.class, LocalDate.class, String.class, int.class));
+        when(search.proceed()).thenReturn("found");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Object> holder = executor.submit(() -> {
+                try {
+                    return splitBulkhead.limitConcurrency(booking);
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            entered.await();
+
+            assertEquals("found", splitBulkhead.limitConcurrency(search));
+            assertThrows(BulkheadFullException.class, () -> splitBulkhead.limitConcurrency(booking));
+
+            release.countDown();
+            assertEquals("booked", holder.get());
+        }
+    }
+
+    private static ProceedingJoinPoint joinPoint(Method method) {
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(method);
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        return joinPoint;
+    }
+}
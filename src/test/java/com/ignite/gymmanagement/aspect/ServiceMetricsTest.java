@@ -0,0 +1,128 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.aspect;
+
+import com.ignite.gymmanagement.config.WaitlistProperties;
+import com.ignite.gymmanagement.exception.BulkheadFullException;
+import com.ignite.gymmanagement.repository.BookingRepository;
+import com.ignite.gymmanagement.repository.ClassOccupancyRepository;
+import com.ignite.gymmanagement.repository.GymClassRepository;
+import com.ignite.gymmanagement.repository.WaitlistEntryRepository;
+import com.ignite.gymmanagement.service.ClassAnalyticsService;
+import com.ignite.gymmanagement.service.GymService;
+import com.ignite.gymmanagement.service.MemberService;
+import com.ignite.gymmanagement.service.SeatReservationService;
+import com.ignite.gymmanagement.service.WaitlistService;
+import com.ignite.gymmanagement.util.ResponseConstants;
+import com.ignite.gymmanagement.util.ResponseUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ServiceMetricsTest {
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+
+    @Mock
+    private Signature signature;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ServiceMetrics serviceMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        serviceMetrics = new ServiceMetrics(meterRegistry);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getDeclaringType()).thenReturn(GymService.class);
+        when(signature.getName()).thenReturn("bookClass");
+    }
+
+    @Test
+    void time_CapacityExceeded_TagsOutcome() throws Throwable {
+        when(joinPoint.proceed()).thenReturn(ResponseUtils.error(ResponseConstants.ERROR_CAPACITY_EXCEEDED,
+                HttpStatus.BAD_REQUEST, ResponseConstants.BOOKING_ERROR_CODE));
+
+        serviceMetrics.time(joinPoint);
+
+        assertEquals(1, meterRegistry.get(ServiceMetrics.METRIC_NAME)
+                .tags("class", "GymService", "method", "bookClass", "outcome", "capacity_exceeded")
+                .timer().count());
+    }
+
+    @Test
+    void time_ThrownException_TagsOutcomeAndRethrows() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new BulkheadFullException("Too many concurrent requests"));
+
+        assertThrows(BulkheadFullException.class, () -> serviceMetrics.time(joinPoint));
+
+        assertEquals(1, meterRegistry.get(ServiceMetrics.METRIC_NAME).tag("outcome", "bulkhead_full").timer().count());
+    }
+
+    @Test
+    void outcomeOf_MapsResponses() {
+        assertEquals("success", ServiceMetrics.outcomeOf(ResponseUtils.success(List.of(), "ok", HttpStatus.OK)));
+        assertEquals("partial", ServiceMetrics.outcomeOf(ResponseUtils.success(List.of(),
+                ResponseConstants.BATCH_BOOKING_PARTIAL, HttpStatus.MULTI_STATUS)));
+        assertEquals("waitlisted", ServiceMetrics.outcomeOf(ResponseUtils.success(null,
+                ResponseConstants.WAITLIST_JOINED, HttpStatus.ACCEPTED)));
+        assertEquals("class_not_found", ServiceMetrics.outcomeOf(ResponseUtils.error(ResponseConstants.ERROR_CLASS_NOT_FOUND,
+                HttpStatus.BAD_REQUEST, ResponseConstants.BOOKING_ERROR_CODE)));
+        assertEquals("booking_error", ServiceMetrics.outcomeOf(ResponseUtils.error(ResponseConstants.ERROR_BOOKING_FAILED,
+                HttpStatus.INTERNAL_SERVER_ERROR, ResponseConstants.BOOKING_ERROR_CODE)));
+        assertEquals("success", ServiceMetrics.outcomeOf(false), "Only responses and exceptions give outcomes");
+        assertEquals("success", ServiceMetrics.outcomeOf(42L));
+    }
+
+    @Test
+    void pointcut_TimesEntryPointsButNotHelpers() {
+        WaitlistService target = new WaitlistService(mock(WaitlistEntryRepository.class), mock(GymClassRepository.class),
+                mock(BookingRepository.class), mock(SeatReservationService.class), mock(MemberService.class),
+                mock(ApplicationEventPublisher.class), mock(PlatformTransactionManager.class),
+                new WaitlistProperties(Duration.ofSeconds(1), 10, Duration.ofHours(1)));
+        ClassAnalyticsService analytics = new ClassAnalyticsService(mock(GymClassRepository.class), mock(BookingRepository.class),
+                mock(ClassOccupancyRepository.class), mock(SeatReservationService.class), mock(PlatformTransactionManager.class), 1);
+
+        WaitlistService waitlistProxy = proxy(target);
+        waitlistProxy.hasWaiters(1L, LocalDate.now());
+        waitlistProxy.promoteWaiters();
+        proxy(analytics).getUtilisation(LocalDate.now(), LocalDate.now().minusDays(1));
+
+        assertEquals(1, meterRegistry.get(ServiceMetrics.METRIC_NAME).timers().size());
+        assertEquals(1, meterRegistry.get(ServiceMetrics.METRIC_NAME)
+                .tags("class", "ClassAnalyticsService", "method", "getUtilisation", "outcome", "analytics_error")
+                .timer().count());
+    }
+
+    private <T> T proxy(T target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(serviceMetrics);
+        return factory.getProxy();
+    }
+}
@@ -1,13 +1,29 @@
 package com.ignite.gymmanagement.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ignite.gymmanagement.config.ResponseCacheProperties;
+import com.ignite.gymmanagement.dto.AnalyticsRebuildDto;
+import com.ignite.gymmanagement.dto.BatchBookingResultDto;
+import com.ignite.gymmanagement.dto.ClassAvailabilityDto;
 import com.ignite.gymmanagement.dto.ClassBookingRequestDto;
 import com.ignite.gymmanagement.dto.ClassBookingResponseDto;
+import com.ignite.gymmanagement.dto.ClassImportResultDto;
 import com.ignite.gymmanagement.dto.GymClassRequestDto;
 import com.ignite.gymmanagement.dto.GymClassResponseDto;
-import com.ignite.gymmanagement.model.ClassBooking;
+import com.ignite.gymmanagement.dto.UtilisationDto;
+import com.ignite.gymmanagement.dto.UtilisationReportDto;
+import com.ignite.gymmanagement.exception.BulkheadFullException;
+import com.ignite.gymmanagement.exception.RateLimitExceededException;
+import com.ignite.gymmanagement.ratelimit.BookingRateLimiter;
+import com.ignite.gymmanagement.service.BookingExportService;
+import com.ignite.gymmanagement.service.BookingGroupCommitService;
+import com.ignite.gymmanagement.service.BookingIdempotencyService;
+import com.ignite.gymmanagement.service.ClassAnalyticsService;
+import com.ignite.gymmanagement.service.ClassImportService;
 import com.ignite.gymmanagement.service.GymService;
+import com.ignite.gymmanagement.service.ResponseCacheService;
 import com.ignite.gymmanagement.util.GenericResponse;
+import com.ignite.gymmanagement.util.ResponseConstants;
 import com.ignite.gymmanagement.util.ResponseUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,24 +31,38 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Clock;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
 @WebMvcTest(GymController.class)
+@Import(ResponseCacheService.class)
+@EnableConfigurationProperties(ResponseCacheProperties.class)
 @ExtendWith(MockitoExtension.class)
 public class GymControllerTest {
 
@@ -42,6 +72,24 @@ public class GymControllerTest {
     @MockitoBean
     private GymService gymService;
 
+    @MockitoBean
+    private BookingExportService bookingExportService;
+
+    @MockitoBean
+    private BookingGroupCommitService bookingGroupCommitService;
+
+    @MockitoBean
+    private BookingIdempotencyService bookingIdempotencyService;
+
+    @MockitoBean
+    private BookingRateLimiter bookingRateLimiter;
+
+    @MockitoBean
+    private ClassImportService classImportService;
+
+    @MockitoBean
+    private ClassAnalyticsService classAnalyticsService;
+
     @InjectMocks
     private GymController gymController;
 
@@ -227,20 +275,144 @@ public class GymControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    /**
+     * Test: Batch booking
+     */
+    @Test
+    void bookClasses_ValidRequest_ReturnsPerItemResults() throws Exception {
+        BatchBookingResultDto result = BatchBookingResultDto.builder()
+                .index(0)
+                .success(true)
+                .message("Class booked successfully!")
+                .build();
+
+        when(gymService.bookClasses(anyList()))
+                .thenReturn(ResponseUtils.success(List.of(result), "Batch booking completed.", HttpStatus.CREATED));
+
+        mockMvc.perform(post("/api/v1/bookings/batch")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(List.of(bookingRequest))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data[0].success").value(true))
+                .andExpect(jsonPath("$.message").value("Batch booking completed."));
+    }
+
+    @Test
+    void bookClasses_EmptyBatch_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/bookings/batch")
+                        .contentType("application/json")
+                        .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Bad Request"));
+    }
+
+    /**
+     * Test: Class import
+     */
+    @Test
+    void importClasses_Csv_ReadsBodyAsCsvAndReturnsPerRowResults() throws Exception {
+        ClassImportResultDto result = ClassImportResultDto.builder()
+                .row(1)
+                .success(false)
+                .message("A class is already scheduled in this time slot.")
+                .build();
+        when(classImportService.importClasses(any(), eq(ClassImportService.Format.CSV)))
+                .thenReturn(ResponseUtils.success(List.of(result), "Class import completed with failures.", HttpStatus.MULTI_STATUS));
+
+        mockMvc.perform(post("/api/v1/classes/import")
+                        .contentType("text/csv")
+                        .content("name,startDate,endDate,startTime,duration,capacity\nYoga,2030-01-01,2030-01-31,09:00,60,20"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.data[0].row").value(1))
+                .andExpect(jsonPath("$.data[0].success").value(false));
+    }
+
+    @Test
+    void importClasses_JsonLines_ReadsBodyAsJsonLines() throws Exception {
+        when(classImportService.importClasses(any(), eq(ClassImportService.Format.NDJSON)))
+                .thenReturn(ResponseUtils.success(List.of(), "Class import completed.", HttpStatus.CREATED));
+
+        mockMvc.perform(post("/api/v1/classes/import")
+                        .contentType("application/x-ndjson")
+                        .content(objectMapper.writeValueAsString(gymClassRequest)))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void importClasses_UnsupportedContentType_ReturnsUnsupportedMediaType() throws Exception {
+        mockMvc.perform(post("/api/v1/classes/import")
+                        .contentType("application/json")
+                        .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+        verifyNoInteractions(classImportService);
+    }
+
+    /**
+     * Test: Utilisation analytics
+     */
+    @Test
+    void getUtilisation_ValidRange_ReturnsReport() throws Exception {
+        LocalDate from = LocalDate.of(2030, 1, 7);
+        LocalDate to = LocalDate.of(2030, 1, 13);
+        UtilisationReportDto report = UtilisationReportDto.builder()
+                .from(from)
+                .to(to)
+                .classes(List.of())
+                .weekdays(Map.of(DayOfWeek.MONDAY, new UtilisationDto(1, 20, 5, 0.25)))
+                .timeSlots(Map.of())
+                .build();
+        when(classAnalyticsService.getUtilisation(from, to))
+                .thenReturn(ResponseUtils.success(report, "Operation completed successfully.", HttpStatus.OK));
+
+        mockMvc.perform(get("/api/v1/analytics")
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.from").value("2030-01-07"))
+                .andExpect(jsonPath("$.data.weekdays.MONDAY.fillRate").value(0.25));
+    }
+
+    @Test
+    void getUtilisation_InvalidRange_ReturnsBadRequest() throws Exception {
+        when(classAnalyticsService.getUtilisation(any(), any()))
+                .thenReturn(ResponseUtils.error(ResponseConstants.ERROR_INVALID_ANALYTICS_RANGE, HttpStatus.BAD_REQUEST, ResponseConstants.ANALYTICS_ERROR_CODE));
+
+        mockMvc.perform(get("/api/v1/analytics")
+                        .param("from", "2030-01-13")
+                        .param("to", "2030-01-07"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value(ResponseConstants.ANALYTICS_ERROR_CODE));
+    }
+
+    @Test
+    void rebuildAnalytics_WithoutRange_RebuildsAllBookings() throws Exception {
+        AnalyticsRebuildDto rebuild = new AnalyticsRebuildDto(LocalDate.of(2030, 1, 1), LocalDate.of(2030, 3, 31), 3, 120, 15);
+        when(classAnalyticsService.rebuild(null, null))
+                .thenReturn(ResponseUtils.success(rebuild, ResponseConstants.ANALYTICS_REBUILD_COMPLETED, HttpStatus.OK));
+
+        mockMvc.perform(post("/api/v1/analytics/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.chunks").value(3))
+                .andExpect(jsonPath("$.data.sessions").value(120));
+    }
+
     /**
      * Test: Searching bookings with filters
      */
     @Test
     void searchBookings_ValidRequest_ReturnsResults() throws Exception {
-        ClassBooking booking = new ClassBooking();
-        booking.setId(1L);
-        booking.setMemberName("John Doe");
-        booking.setParticipationDate(LocalDate.now().plusDays(5));
+        ClassBookingResponseDto booking = ClassBookingResponseDto.builder()
+                .id(1L)
+                .memberName("John Doe")
+                .gymClassId(1L)
+                .gymClassName("Yoga")
+                .participationDate(LocalDate.now().plusDays(5))
+                .build();
 
-        GenericResponse<List<ClassBooking>> serviceResponse =
+        GenericResponse<List<ClassBookingResponseDto>> serviceResponse =
                 ResponseUtils.success(List.of(booking), "Bookings found", HttpStatus.OK);
 
-        when(gymService.searchBookings(anyString(), any(), any())).thenReturn(serviceResponse);
+        when(gymService.searchBookings(anyString(), any(), any(), any(), anyInt())).thenReturn(serviceResponse);
 
         mockMvc.perform(get("/api/v1/bookings/search")
                         .param("memberName", "John Doe")
@@ -248,6 +420,179 @@ public class GymControllerTest {
                         .param("endDate", LocalDate.now().plusDays(10).toString()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.data[0].memberName").value("John Doe"))
+                .andExpect(jsonPath("$.data[0].gymClassName").value("Yoga"))
                 .andExpect(jsonPath("$.message").value("Bookings found"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAvailability_ValidRequest_ReturnsSeatsPerDay() throws Exception {
+        LocalDate day = LocalDate.now().plusDays(1);
+        GenericResponse<List<ClassAvailabilityDto>> serviceResponse = ResponseUtils.success(
+                List.of(new ClassAvailabilityDto(day, 20, 5, 15)), "Operation completed successfully.", HttpStatus.OK);
+
+        when(gymService.getAvailability(1L, day, day)).thenReturn(serviceResponse);
+
+        mockMvc.perform(get("/api/v1/classes/1/availability")
+                        .param("from", day.toString())
+                        .param("to", day.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].date").value(day.toString()))
+                .andExpect(jsonPath("$.data[0].remainingSeats").value(15));
+    }
+
+    @Test
+    void bookClass_IdempotencyKeyRetry_ReplaysFirstResponse() throws Exception {
+        GenericResponse<ClassBookingResponseDto> firstResponse = ResponseUtils.success(
+                ClassBookingResponseDto.builder().id(1L).memberName("John Doe").build(), "Booking successful", HttpStatus.CREATED);
+
+        when(bookingIdempotencyService.bookOnce(eq("retry-1"), any(ClassBookingRequestDto.class), any()))
+                .thenReturn(new BookingIdempotencyService.Result(firstResponse, true));
+
+        mockMvc.perform(post("/api/v1/bookings")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(bookingRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.data.id").value(1));
+
+        verify(gymService, never()).bookClass(any());
+    }
+
+    @Test
+    void cancelBooking_ExistingBooking_ReturnsOk() throws Exception {
+        when(gymService.cancelBooking(5L)).thenReturn(ResponseUtils.success(null, "Booking cancelled successfully!", HttpStatus.OK));
+
+        mockMvc.perform(delete("/api/v1/bookings/5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Booking cancelled successfully!"));
+    }
+
+    @Test
+    void searchBookings_MatchingIfNoneMatch_ReturnsNotModifiedFromCache() throws Exception {
+        LocalDate day = LocalDate.now().plusDays(5);
+        when(gymService.searchBookings(any(), any(), any(), any(), anyInt())).thenReturn(ResponseUtils.success(
+                List.of(ClassBookingResponseDto.builder().id(1L).memberName("Jane Roe").participationDate(day).build()),
+                "Bookings found", HttpStatus.OK));
+
+        MvcResult first = mockMvc.perform(get("/api/v1/bookings/search")
+                        .param("memberName", "Jane Roe")
+                        .param("startDate", day.toString())
+                        .param("endDate", day.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.data[0].memberName").value("Jane Roe"))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/v1/bookings/search")
+                        .param("memberName", "Jane Roe")
+                        .param("startDate", day.toString())
+                        .param("endDate", day.toString())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+
+        verify(gymService, times(1)).searchBookings(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void searchBookings_PageSizeTooLarge_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/bookings/search")
+                        .param("size", "1000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Test: Exporting bookings
+     */
+    @Test
+    void exportBookings_StreamsNdjson() throws Exception {
+        when(bookingExportService.exportBookings(any(), any(), any(), any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(3);
+            out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/v1/bookings/export")
+                        .param("startDate", LocalDate.now().toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
+    @Test
+    void bookClass_BulkheadFull_ReturnsServiceUnavailable() throws Exception {
+        when(gymService.bookClass(any(ClassBookingRequestDto.class)))
+                .thenThrow(new BulkheadFullException("Too many concurrent requests, please retry shortly"));
+
+        mockMvc.perform(post("/api/v1/bookings")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(bookingRequest)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.status").value(503));
+    }
+
+    @Test
+    void bookClass_RateLimited_ReturnsTooManyRequestsWithoutBooking() throws Exception {
+        doThrow(new RateLimitExceededException(ResponseConstants.ERROR_RATE_LIMITED, 3))
+                .when(bookingRateLimiter).acquire(eq("John Doe"), anyString());
+
+        mockMvc.perform(post("/api/v1/bookings")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(bookingRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "3"))
+                .andExpect(jsonPath("$.status").value(429))
+                .andExpect(jsonPath("$.message").value(ResponseConstants.ERROR_RATE_LIMITED));
+
+        verifyNoInteractions(gymService, bookingIdempotencyService);
+    }
+
+    @Test
+    void bookClass_RetryOfCompletedBooking_ReplayedWithoutChargingTheRateLimiter() throws Exception {
+        GenericResponse<ClassBookingResponseDto> firstResponse = ResponseUtils.success(
+                ClassBookingResponseDto.builder().id(1L).memberName("John Doe").build(), "Booking successful", HttpStatus.CREATED);
+        when(bookingIdempotencyService.findCompleted(eq("retry-1"), any(ClassBookingRequestDto.class)))
+                .thenReturn(new BookingIdempotencyService.Result(firstResponse, true));
+        doThrow(new RateLimitExceededException(ResponseConstants.ERROR_RATE_LIMITED, 3))
+                .when(bookingRateLimiter).acquire(eq("John Doe"), anyString());
+
+        mockMvc.perform(post("/api/v1/bookings")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(bookingRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.data.id").value(1));
+
+        verifyNoInteractions(bookingRateLimiter);
+        verify(bookingIdempotencyService, never()).bookOnce(any(), any(), any());
+    }
+
+    @Test
+    void bookClass_GroupCommitEnabled_BooksThroughGroupCommit() throws Exception {
+        ClassBookingResponseDto responseDto = ClassBookingResponseDto.builder()
+                .id(1L)
+                .memberName("John Doe")
+                .participationDate(bookingRequest.getParticipationDate())
+                .build();
+        when(bookingGroupCommitService.isEnabled()).thenReturn(true);
+        when(bookingGroupCommitService.bookClass(any(ClassBookingRequestDto.class)))
+                .thenReturn(ResponseUtils.success(responseDto, "Class booked successfully!", HttpStatus.CREATED));
+
+        mockMvc.perform(post("/api/v1/bookings")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(bookingRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.id").value(1));
+
+        verify(gymService, never()).bookClass(any());
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.index;
+
+import com.ignite.gymmanagement.model.GymClass;
+import com.ignite.gymmanagement.repository.GymClassRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ClassScheduleIndexTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2026, 11, 2);
+
+    @Mock
+    private GymClassRepository gymClassRepository;
+
+    private ClassScheduleIndex classScheduleIndex;
+
+    @BeforeEach
+    void setUp() {
+        classScheduleIndex = new ClassScheduleIndex(gymClassRepository);
+    }
+
+    @Test
+    void overlaps_SameDaysDifferentTimes_DoesNotClash() {
+        when(gymClassRepository.findAll()).thenReturn(List.of(
+                gymClass(MONDAY, MONDAY.plusDays(30), LocalTime.of(9, 0), 60)));
+        classScheduleIndex.load();
+
+        assertFalse(classScheduleIndex.overlaps(MONDAY, MONDAY.plusDays(30), LocalTime.of(10, 0), 45));
+        assertFalse(classScheduleIndex.overlaps(MONDAY, MONDAY.plusDays(30), LocalTime.of(8, 0), 60));
+        assertTrue(classScheduleIndex.overlaps(MONDAY, MONDAY.plusDays(30), LocalTime.of(9, 59), 10));
+        assertTrue(classScheduleIndex.overlaps(MONDAY.plusDays(30), MONDAY.plusDays(40), LocalTime.of(8, 30), 60));
+    }
+
+    @Test
+    void overlaps_DisjointDateRanges_DoesNotClash() {
+        when(gymClassRepository.findAll()).thenReturn(List.of(
+                gymClass(MONDAY, MONDAY.plusDays(6), LocalTime.of(9, 0), 60)));
+        classScheduleIndex.load();
+
+        assertFalse(classScheduleIndex.overlaps(MONDAY.plusDays(7), MONDAY.plusDays(14), LocalTime.of(9, 0), 60));
+        assertFalse(classScheduleIndex.overlaps(MONDAY.minusDays(7), MONDAY.minusDays(1), LocalTime.of(9, 0), 60));
+    }
+
+    @Test
+    void overlaps_WindowPastMidnight_ClashesWithEarlyMorningClass() {
+        when(gymClassRepository.findAll()).thenReturn(List.of(
+                gymClass(MONDAY, MONDAY.plusDays(6), LocalTime.of(23, 30), 60)));
+        classScheduleIndex.load();
+
+        assertTrue(classScheduleIndex.overlaps(MONDAY, MONDAY.plusDays(6), LocalTime.of(0, 0), 15));
+        assertFalse(classScheduleIndex.overlaps(MONDAY, MONDAY.plusDays(6), LocalTime.of(0, 30), 15));
+    }
+
+    @Test
+    void overlaps_WindowPastMidnightOnLastDay_ClashesWithEarlyClassOnTheFollowingDate() {
+        when(gymClassRepository.findAll()).thenReturn(List.of(
+                gymClass(MONDAY, MONDAY, LocalTime.of(23, 30), 60)));
+        classScheduleIndex.load();
+
+        assertTrue(classScheduleIndex.overlaps(MONDAY.plusDays(1), MONDAY.plusDays(1), LocalTime.of(0, 15), 30));
+        assertFalse(classScheduleIndex.overlaps(MONDAY.plusDays(1), MONDAY.plusDays(1), LocalTime.of(0, 30), 30));
+        assertFalse(classScheduleIndex.overlaps(MONDAY.plusDays(2), MONDAY.plusDays(2), LocalTime.of(0, 15), 30));
+    }
+
+    @Test
+    void overlaps_EarlyClassBeforeLateClassOfThePreviousDate_Clashes() {
+        when(gymClassRepository.findAll()).thenReturn(List.of(
+                gymClass(MONDAY.plusDays(1), MONDAY.plusDays(1), LocalTime.of(0, 15), 30)));
+        classScheduleIndex.load();
+
+        assertTrue(classScheduleIndex.overlaps(MONDAY, MONDAY, LocalTime.of(23, 30), 60));
+        assertTrue(classScheduleIndex.overlaps(List.of(
+                gymClass(MONDAY.plusDays(5), MONDAY.plusDays(5), LocalTime.of(23, 45), 45),
+                gymClass(MONDAY.plusDays(6), MONDAY.plusDays(6), LocalTime.of(0, 0), 15)))[1]);
+    }
+
+    @Test
+    void add_NewClass_IsVisibleToLaterChecks() {
+        when(gymClassRepository.findAll()).thenReturn(List.of());
+        classScheduleIndex.load();
+        assertFalse(classScheduleIndex.overlaps(MONDAY, MONDAY, LocalTime.of(18, 0), 30));
+
+        classScheduleIndex.add(gymClass(MONDAY, MONDAY.plusDays(2), LocalTime.of(18, 0), 30));
+
+        assertTrue(classScheduleIndex.overlaps(MONDAY, MONDAY, LocalTime.of(18, 0), 30));
+    }
+
+    @Test
+    void overlaps_ManyClassesOnSameDates_OnlyVisitsClassesOfTheSameHour() {
+        List<GymClass> timetable = new ArrayList<>();
+        for (int minute = 0; minute < 24 * 60; minute += 15) {
+            timetable.add(gymClass(MONDAY, MONDAY.plusDays(90), LocalTime.of(minute / 60, minute % 60), 15));
+        }
+        when(gymClassRepository.findAll()).thenReturn(timetable);
+        classScheduleIndex.load();
+
+        assertTrue(classScheduleIndex.overlaps(MONDAY.plusDays(10), MONDAY.plusDays(20), LocalTime.of(9, 20), 10));
+        assertTrue(classScheduleIndex.visitedNodes(MONDAY.plusDays(10), MONDAY.plusDays(20), LocalTime.of(9, 20), 10) <= 4);
+        assertTrue(classScheduleIndex.visitedNodes(MONDAY, MONDAY, LocalTime.of(23, 50), 20) <= 8); // Spills into hour 0
+        // A whole-day window searches every hour, but each tree is pruned at its root by the end date
+        assertFalse(classScheduleIndex.overlaps(MONDAY.plusDays(91), MONDAY.plusDays(95), LocalTime.of(0, 0), 24 * 60));
+        assertEquals(24, classScheduleIndex.visitedNodes(MONDAY.plusDays(91), MONDAY.plusDays(95), LocalTime.of(0, 0), 24 * 60));
+    }
+
+    @Test
+    void overlaps_RandomSchedules_MatchesLinearScan() {
+        Random random = new Random(42);
+        List<GymClass> classes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            classes.add(randomClass(random));
+        }
+        when(gymClassRepository.findAll()).thenReturn(classes.subList(0, 250));
+        classScheduleIndex.load();
+        classes.subList(250, 500).forEach(classScheduleIndex::add);
+
+        for (int i = 0; i < 2000; i++) {
+            GymClass candidate = randomClass(random);
+            boolean expected = classes.stream().anyMatch(existing -> clashes(existing, candidate));
+            assertEquals(expected, classScheduleIndex.overlaps(candidate.getStartDate(), candidate.getEndDate(),
+                    candidate.getStartTime(), candidate.getDuration()), "Mismatch for " + candidate);
+        }
+    }
+
+    private static GymClass randomClass(Random random) {
+        LocalDate startDate = MONDAY.plusDays(random.nextInt(365));
+        return gymClass(startDate, startDate.plusDays(random.nextInt(10)),
+                LocalTime.of(6 + random.nextInt(16), random.nextInt(4) * 15), 15 + random.nextInt(4) * 15);
+    }
+
+    private static boolean clashes(GymClass a, GymClass b) {
+        int aStart = a.getStartTime().toSecondOfDay() / 60;
+        int bStart = b.getStartTime().toSecondOfDay() / 60;
+        return !a.getStartDate().isAfter(b.getEndDate()) && !b.getStartDate().isAfter(a.getEndDate())
+                && aStart < bStart + b.getDuration() && bStart < aStart + a.getDuration();
+    }
+
+    private static GymClass gymClass(LocalDate startDate, LocalDate endDate, LocalTime startTime, int duration) {
+        return GymClass.builder()
+                .name("Class")
+                .capacity(10)
+                .startDate(startDate)
+                .endDate(endDate)
+                .startTime(startTime)
+                .duration(duration)
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.index;
+
+import com.ignite.gymmanagement.model.ClassBooking;
+import com.ignite.gymmanagement.model.Member;
+import com.ignite.gymmanagement.repository.MemberRepository;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MemberNameIndexTest {
+
+    @Mock
+    private MemberRepository memberRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MemberNameIndex memberNameIndex;
+
+    @BeforeEach
+    void setUp() {
+        memberNameIndex = new MemberNameIndex(memberRepository, transactionManager);
+    }
+
+    @Test
+    void resolve_BeforeBuild_DefersToDatabase() {
+        assertEquals(Optional.empty(), memberNameIndex.resolve("john"));
+    }
+
+    @Test
+    void resolve_SubstringIgnoringCase_ReturnsMatchingMemberIds() {
+        when(memberRepository.streamAfter(-1L)).thenReturn(Stream.of(new Member(1L, "John Doe"), new Member(2L, "Jane Doe"),
+                new Member(3L, "Johnny Bravo"), new Member(4L, "Raju Khunt")));
+        memberNameIndex.build();
+
+        assertEquals(Optional.of(Set.of(1L, 3L)), memberNameIndex.resolve("JOHN"));
+        assertEquals(Optional.of(Set.of(1L, 2L)), memberNameIndex.resolve("doe"));
+        assertEquals(Optional.of(Set.of(4L)), memberNameIndex.resolve("u k"));
+        assertEquals(Optional.of(Set.of()), memberNameIndex.resolve("xyz"));
+    }
+
+    @Test
+    void resolve_ShortQuery_ScansAllNames() {
+        when(memberRepository.streamAfter(-1L)).thenReturn(Stream.of(new Member(1L, "John Doe"), new Member(4L, "Raju Khunt")));
+        memberNameIndex.build();
+
+        assertEquals(Optional.of(Set.of(4L)), memberNameIndex.resolve("aj"));
+    }
+
+    @Test
+    void refresh_MemberCommittedBehindTheIndex_IsIndexedByTheNextRefresh() {
+        // Member 51 got its id before member 101 but commits after the first refresh
+        when(memberRepository.streamAfter(-1L)).thenReturn(Stream.of(new Member(1L, "John Doe"), new Member(101L, "Johnny Bravo")),
+                Stream.of(new Member(1L, "John Doe"), new Member(51L, "Johan Smith"), new Member(101L, "Johnny Bravo")));
+        when(memberRepository.streamAfter(101L)).thenReturn(Stream.of(new Member(151L, "Johanna Berg")));
+
+        memberNameIndex.build();
+        assertEquals(-1L, memberNameIndex.indexedUpTo(), "Ids seen once may still be missing lower ones");
+        memberNameIndex.refresh();
+        assertEquals(101L, memberNameIndex.indexedUpTo());
+        assertEquals(Optional.of(Set.of(51L)), memberNameIndex.resolve("johan smith"));
+
+        memberNameIndex.refresh();
+        assertEquals(Optional.of(Set.of(1L, 51L, 101L, 151L)), memberNameIndex.resolve("joh"));
+        assertEquals(101L, memberNameIndex.indexedUpTo());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void filterBookings_MemberInsertedBehindTheIndex_IsStillMatchedByName() {
+        when(memberRepository.streamAfter(-1L)).thenReturn(Stream.of(new Member(1L, "John Doe")), Stream.of(new Member(1L, "John Doe")));
+        memberNameIndex.build();
+        memberNameIndex.refresh();
+
+        // Member 51, e.g. created by another node, is not indexed yet
+        Root<ClassBooking> root = mock(Root.class, RETURNS_DEEP_STUBS);
+        CriteriaQuery<?> query = mock(CriteriaQuery.class, RETURNS_DEEP_STUBS);
+        CriteriaBuilder cb = mock(CriteriaBuilder.class, RETURNS_DEEP_STUBS);
+        memberNameIndex.filterBookings("JOH", null, null).toPredicate(root, query, cb);
+
+        verify(cb).greaterThan(any(Expression.class), eq(1L));
+        verify(cb).like(any(), eq("%joh%"));
+        verify(root.get("member").get("id")).in(Set.of(1L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void filterBookings_BeforeIdsAreConfirmed_UsesLikeOnly() {
+        when(memberRepository.streamAfter(-1L)).thenReturn(Stream.of(new Member(1L, "John Doe")));
+        memberNameIndex.build();
+
+        CriteriaQuery<?> query = mock(CriteriaQuery.class, RETURNS_DEEP_STUBS);
+        CriteriaBuilder cb = mock(CriteriaBuilder.class, RETURNS_DEEP_STUBS);
+        memberNameIndex.filterBookings("joh", null, null).toPredicate(mock(Root.class, RETURNS_DEEP_STUBS), query, cb);
+
+        verify(cb).like(any(), eq("%joh%"));
+        verify(query, never()).subquery(any());
+    }
+
+    @Test
+    void add_NewMember_IsFoundWithoutRebuild() {
+        when(memberRepository.streamAfter(-1L)).thenReturn(Stream.empty());
+        memberNameIndex.build();
+
+        memberNameIndex.add("Alice Walker", 7L);
+
+        assertEquals(Optional.of(Set.of(7L)), memberNameIndex.resolve("walk"));
+    }
+}
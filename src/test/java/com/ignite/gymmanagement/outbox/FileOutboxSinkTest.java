@@ -0,0 +1,56 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.ignite.gymmanagement.config.OutboxProperties;
+import com.ignite.gymmanagement.model.OutboxEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileOutboxSinkTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void publish_AppendsOneJsonLinePerEvent() throws IOException {
+        ObjectMapper objectMapper = JsonMapper.builder().build();
+        Path file = directory.resolve("events/outbox.ndjson");
+        FileOutboxSink sink = new FileOutboxSink(objectMapper,
+                new OutboxProperties(true, Duration.ofSeconds(1), 100, 10, "file", file));
+
+        sink.publish(List.of(event(1L, "{\"bookingId\":1}")));
+        sink.publish(List.of(event(2L, "{\"bookingId\":2}")));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertEquals(2, objectMapper.readTree(lines.get(1)).get("id").asLong());
+        assertEquals(2, objectMapper.readTree(lines.get(1)).get("payload").get("bookingId").asLong(),
+                "The payload is embedded as JSON, not as a string");
+    }
+
+    private static OutboxEvent event(Long id, String payload) {
+        return OutboxEvent.builder()
+                .id(id)
+                .aggregateType("Booking")
+                .aggregateId(id)
+                .eventType("BookingCreated")
+                .payload(payload)
+                .createdAt(LocalDateTime.of(2030, 1, 7, 9, 0))
+                .build();
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.outbox;
+
+import com.ignite.gymmanagement.config.OutboxProperties;
+import com.ignite.gymmanagement.model.OutboxEvent;
+import com.ignite.gymmanagement.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class OutboxRelayTest {
+
+    private static final int BATCH_SIZE = 3;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxSink sink;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        meterRegistry = new SimpleMeterRegistry();
+        outboxRelay = new OutboxRelay(outboxEventRepository, sink, transactionManager,
+                new OutboxProperties(true, Duration.ofSeconds(1), BATCH_SIZE, 10, "log", Path.of("outbox.ndjson")),
+                meterRegistry);
+    }
+
+    @Test
+    void relay_PublishesAndDeletesBatchesUntilDrained() {
+        List<OutboxEvent> first = events(1, 3);
+        List<OutboxEvent> second = events(4, 4);
+        when(outboxEventRepository.lockNextBatch(BATCH_SIZE)).thenReturn(first, second);
+
+        outboxRelay.relay();
+
+        verify(sink).publish(first);
+        verify(sink).publish(second);
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(4L));
+        verify(outboxEventRepository, times(2)).lockNextBatch(BATCH_SIZE); // The short batch drained the outbox
+        assertEquals(4.0, meterRegistry.get("gym.outbox.events.published").counter().count());
+        assertEquals(2, meterRegistry.get("gym.outbox.batch.size").summary().count());
+        assertEquals(3.0, meterRegistry.get("gym.outbox.batch.size").summary().max());
+    }
+
+    @Test
+    void relay_EmptyOutbox_PublishesNothing() {
+        when(outboxEventRepository.lockNextBatch(BATCH_SIZE)).thenReturn(List.of());
+
+        outboxRelay.relay();
+
+        verify(sink, never()).publish(anyList());
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(anyList());
+        assertEquals(0, meterRegistry.get("gym.outbox.batch.size").summary().count());
+    }
+
+    @Test
+    void relay_SinkFails_LeavesBatchInOutbox() {
+        List<OutboxEvent> batch = events(1, 3);
+        when(outboxEventRepository.lockNextBatch(BATCH_SIZE)).thenReturn(batch);
+        doThrow(new IllegalStateException("Broker down")).when(sink).publish(batch);
+
+        outboxRelay.relay();
+
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(anyList());
+        verify(transactionManager).rollback(any(TransactionStatus.class));
+        verify(outboxEventRepository, times(1)).lockNextBatch(BATCH_SIZE); // Retried on the next run
+        assertEquals(1.0, meterRegistry.get("gym.outbox.batches.failed").counter().count());
+        assertEquals(0.0, meterRegistry.get("gym.outbox.events.published").counter().count());
+    }
+
+    private static List<OutboxEvent> events(long firstId, long lastId) {
+        return LongStream.rangeClosed(firstId, lastId)
+                .mapToObj(id -> OutboxEvent.builder()
+                        .id(id)
+                        .aggregateType("Booking")
+                        .aggregateId(id)
+                        .eventType("BookingCreated")
+                        .payload("{}")
+                        .createdAt(LocalDateTime.now().minusSeconds(1))
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.outbox;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ignite.gymmanagement.event.BookingCancelledEvent;
+import com.ignite.gymmanagement.event.ClassCreatedEvent;
+import com.ignite.gymmanagement.model.OutboxEvent;
+import com.ignite.gymmanagement.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class OutboxWriterTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    private OutboxWriter outboxWriter;
+
+    @BeforeEach
+    void setUp() {
+        outboxWriter = new OutboxWriter(outboxEventRepository, JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build());
+    }
+
+    @Test
+    void onBookingCancelled_WritesEventWithJsonPayload() {
+        outboxWriter.onBookingCancelled(new BookingCancelledEvent(42L, 7L, "John Doe", LocalDate.of(2030, 1, 7)));
+
+        OutboxEvent event = savedEvent();
+        assertEquals(OutboxWriter.BOOKING, event.getAggregateType());
+        assertEquals(42L, event.getAggregateId());
+        assertEquals("BookingCancelled", event.getEventType());
+        assertEquals("{\"bookingId\":42,\"gymClassId\":7,\"memberName\":\"John Doe\",\"participationDate\":\"2030-01-07\"}",
+                event.getPayload());
+        assertNotNull(event.getCreatedAt());
+    }
+
+    @Test
+    void onClassCreated_WritesEventOfTheClass() {
+        outboxWriter.onClassCreated(new ClassCreatedEvent(7L, "Yoga", LocalDate.of(2030, 1, 7), LocalDate.of(2030, 1, 31),
+                LocalTime.of(9, 0), 60, 20));
+
+        OutboxEvent event = savedEvent();
+        assertEquals(OutboxWriter.GYM_CLASS, event.getAggregateType());
+        assertEquals(7L, event.getAggregateId());
+        assertEquals("ClassCreated", event.getEventType());
+        assertTrue(event.getPayload().contains("\"startTime\":\"09:00:00\""));
+    }
+
+    private OutboxEvent savedEvent() {
+        ArgumentCaptor<OutboxEvent> captor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository).save(captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.ratelimit;
+
+import com.ignite.gymmanagement.config.RateLimitProperties;
+import com.ignite.gymmanagement.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingRateLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookingRateLimiter bookingRateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bookingRateLimiter = new BookingRateLimiter(new RateLimitProperties(1024,
+                new RateLimitProperties.Limit(true, 2, 0.1),
+                new RateLimitProperties.Limit(true, 3, 0.1)), meterRegistry);
+    }
+
+    @Test
+    void acquire_MemberOverLimit_RejectedAndCounted() {
+        bookingRateLimiter.acquire("John Doe", null);
+        bookingRateLimiter.acquire("JOHN DOE", null);
+
+        RateLimitExceededException ex = assertThrows(RateLimitExceededException.class,
+                () -> bookingRateLimiter.acquire("john doe", null));
+        assertEquals(10, ex.getRetryAfterSeconds(), "One token comes back every 10s at 0.1 per second");
+        assertEquals(0, ex.getStackTrace().length);
+        assertEquals(1.0, meterRegistry.get("gym.rate.limit.rejections").tag("key", "member").counter().count());
+
+        assertDoesNotThrow(() -> bookingRateLimiter.acquire("Jane Doe", null), "Other members have their own bucket");
+    }
+
+    @Test
+    void acquire_ClientIpOverLimit_RejectedAcrossMembers() {
+        bookingRateLimiter.acquire("Alice", "10.0.0.1");
+        bookingRateLimiter.acquire("Bob", "10.0.0.1");
+        bookingRateLimiter.acquire("Carol", "10.0.0.1");
+
+        assertThrows(RateLimitExceededException.class, () -> bookingRateLimiter.acquire("Dave", "10.0.0.1"));
+        assertEquals(1.0, meterRegistry.get("gym.rate.limit.rejections").tag("key", "client_ip").counter().count());
+        assertDoesNotThrow(() -> bookingRateLimiter.acquire("Erin", "10.0.0.2"));
+    }
+
+    @Test
+    void acquire_Disabled_NeverRejects() {
+        bookingRateLimiter = new BookingRateLimiter(new RateLimitProperties(1024,
+                new RateLimitProperties.Limit(false, 1, 1),
+                new RateLimitProperties.Limit(false, 1, 1)), new SimpleMeterRegistry());
+
+        for (int i = 0; i < 100; i++) {
+            bookingRateLimiter.acquire("John Doe", "10.0.0.1");
+        }
+        assertEquals(false, ((Map<?, ?>) bookingRateLimiter.state().get("member")).get("enabled"));
+    }
+
+    @Test
+    void state_ReportsExhaustedBucketsAndRejections() {
+        bookingRateLimiter.acquire("John Doe", null);
+        bookingRateLimiter.acquire("John Doe", null);
+        assertThrows(RateLimitExceededException.class, () -> bookingRateLimiter.acquire("John Doe", null));
+
+        Map<?, ?> member = (Map<?, ?>) bookingRateLimiter.state().get("member");
+        assertEquals(1024, member.get("stripes"));
+        assertEquals(1, member.get("activeStripes"));
+        assertEquals(1, member.get("exhaustedStripes"));
+        assertEquals(1L, member.get("rejections"));
+        assertEquals(1.0, meterRegistry.get("gym.rate.limit.exhausted.stripes").tag("key", "member").gauge().value());
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedTokenBucketTest {
+
+    private AtomicLong clock;
+    private StripedTokenBucket buckets;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong();
+        buckets = new StripedTokenBucket(16, 3, 2, clock::get);
+    }
+
+    @Test
+    void tryAcquire_BurstUsedUp_RejectsWithWaitTime() {
+        assertEquals(0, buckets.tryAcquire(42));
+        assertEquals(0, buckets.tryAcquire(42));
+        assertEquals(0, buckets.tryAcquire(42));
+
+        assertEquals(500, buckets.tryAcquire(42), "One token comes back every 500ms at 2 per second");
+        assertEquals(1, buckets.exhaustedStripes());
+    }
+
+    @Test
+    void tryAcquire_TimePassed_Refills() {
+        for (int i = 0; i < 3; i++) {
+            buckets.tryAcquire(42);
+        }
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(499));
+        assertEquals(1, buckets.tryAcquire(42));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(0, buckets.tryAcquire(42));
+        assertTrue(buckets.tryAcquire(42) > 0);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(0, buckets.activeStripes(), "Refilled up to the capacity, not beyond");
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, buckets.tryAcquire(42));
+        }
+        assertTrue(buckets.tryAcquire(42) > 0);
+    }
+
+    @Test
+    void tryAcquire_SlowRate_AddsUpPartialRefills() {
+        buckets = new StripedTokenBucket(16, 1, 0.5, clock::get);
+        buckets.tryAcquire(42);
+
+        // Each millisecond refills half a milli-token, which must not get lost
+        for (int i = 0; i < 1999; i++) {
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+            assertTrue(buckets.tryAcquire(42) > 0);
+        }
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(0, buckets.tryAcquire(42));
+    }
+
+    @Test
+    void tryAcquire_Concurrent_GrantsExactlyTheCapacity() throws Exception {
+        buckets = new StripedTokenBucket(16, 1000, 0.001, clock::get);
+        AtomicInteger granted = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            Future<?>[] workers = new Future<?>[8];
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = executor.submit(() -> {
+                    for (int j = 0; j < 500; j++) {
+                        if (buckets.tryAcquire(42) == 0) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        }
+        assertEquals(1000, granted.get());
+    }
+
+    @Test
+    void constructor_InvalidSettings_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedTokenBucket(100, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> new StripedTokenBucket(16, StripedTokenBucket.MAX_CAPACITY + 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new StripedTokenBucket(16, 10, 0));
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.repository;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ignite.gymmanagement.config.CacheConfig;
+import com.ignite.gymmanagement.model.GymClass;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringJUnitConfig
+class GymClassRepositoryCacheTest {
+
+    @Configuration
+    @Import(CacheConfig.class)
+    static class TestConfig {
+
+        @Bean
+        CacheManager cacheManager() {
+            CaffeineCacheManager cacheManager = new CaffeineCacheManager(CacheConfig.GYM_CLASSES);
+            cacheManager.setCaffeine(Caffeine.newBuilder().maximumSize(100));
+            return cacheManager;
+        }
+
+        @Bean
+        GymClassRepository gymClassRepository() {
+            // Stands in for the Spring Data repository, wrapped by the caching advice like the real one
+            return DELEGATE;
+        }
+    }
+
+    private static final GymClassRepository DELEGATE = Mockito.mock(GymClassRepository.class);
+
+    @Autowired
+    private GymClassRepository gymClassRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private GymClass gymClass;
+
+    @BeforeEach
+    void setUp() {
+        reset(DELEGATE);
+        cacheManager.getCache(CacheConfig.GYM_CLASSES).clear();
+        gymClass = GymClass.builder().id(1L).name("Yoga Class").capacity(10).build();
+    }
+
+    @Test
+    void findById_RepeatedLookups_HitDatabaseOnce() {
+        when(DELEGATE.findById(1L)).thenReturn(Optional.of(gymClass));
+
+        assertSame(gymClass, gymClassRepository.findById(1L).orElseThrow());
+        assertSame(gymClass, gymClassRepository.findById(1L).orElseThrow());
+
+        verify(DELEGATE, times(1)).findById(1L);
+    }
+
+    @Test
+    void findById_UnknownClass_IsNotCached() {
+        when(DELEGATE.findById(1L)).thenReturn(Optional.empty(), Optional.of(gymClass));
+
+        assertTrue(gymClassRepository.findById(1L).isEmpty());
+        assertTrue(gymClassRepository.findById(1L).isPresent());
+    }
+
+    @Test
+    void save_ModifiedClass_EvictsCachedEntry() {
+        GymClass modified = GymClass.builder().id(1L).name("Power Yoga").capacity(20).build();
+        when(DELEGATE.findById(1L)).thenReturn(Optional.of(gymClass), Optional.of(modified));
+        gymClassRepository.findById(1L);
+
+        when(DELEGATE.save(modified)).thenReturn(modified);
+        gymClassRepository.save(modified);
+
+        assertEquals("Power Yoga", gymClassRepository.findById(1L).orElseThrow().getName());
+        verify(DELEGATE, times(2)).findById(1L);
+    }
+
+    @Test
+    void save_NewClass_IsCachedOnlyByItsFirstRead() {
+        GymClass newClass = GymClass.builder().name("Pilates").capacity(10).build();
+        when(DELEGATE.save(newClass)).thenReturn(gymClass);
+
+        gymClassRepository.save(newClass);
+
+        assertNull(cacheManager.getCache(CacheConfig.GYM_CLASSES).get(1L));
+    }
+
+    @Test
+    void saveAll_EvictsCachedClasses() {
+        when(DELEGATE.findById(1L)).thenReturn(Optional.of(gymClass));
+        gymClassRepository.findById(1L);
+
+        gymClassRepository.saveAll(List.of(gymClass));
+        gymClassRepository.findById(1L);
+
+        verify(DELEGATE, times(2)).findById(1L);
+    }
+}
@@ -0,0 +1,295 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.ignite.gymmanagement.config.GroupCommitProperties;
+import com.ignite.gymmanagement.dto.ClassBookingRequestDto;
+import com.ignite.gymmanagement.dto.ClassBookingResponseDto;
+import com.ignite.gymmanagement.exception.BulkheadFullException;
+import com.ignite.gymmanagement.model.ClassBooking;
+import com.ignite.gymmanagement.model.GymClass;
+import com.ignite.gymmanagement.model.Member;
+import com.ignite.gymmanagement.repository.BookingRepository;
+import com.ignite.gymmanagement.repository.GymClassRepository;
+import com.ignite.gymmanagement.util.GenericResponse;
+import com.ignite.gymmanagement.util.ResponseConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BookingGroupCommitServiceTest {
+
+    @Mock
+    private GymClassRepository gymClassRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private SeatReservationService seatReservationService;
+
+    @Mock
+    private WaitlistService waitlistService;
+
+    @Mock
+    private MemberService memberService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BookingGroupCommitService bookingGroupCommitService;
+    private GymClass gymClass;
+    private LocalDate participationDate;
+
+    @BeforeEach
+    void setUp() {
+        participationDate = LocalDate.now().plusDays(3);
+        gymClass = GymClass.builder()
+                .id(1L)
+                .name("Yoga Class")
+                .startDate(LocalDate.now())
+                .endDate(LocalDate.now().plusDays(30))
+                .duration(20)
+                .capacity(10)
+                .build();
+
+        when(gymClassRepository.findById(1L)).thenReturn(Optional.of(gymClass));
+        when(seatReservationService.reserveLocally(gymClass, participationDate, 1)).thenReturn(1);
+        when(memberService.cached(any())).thenAnswer(invocation -> new Member(10L, invocation.getArgument(0)));
+        when(memberService.resolve(any())).thenAnswer(invocation -> new Member(10L, invocation.getArgument(0)));
+        when(bookingRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<ClassBooking> bookings = invocation.getArgument(0);
+            for (int i = 0; i < bookings.size(); i++) {
+                bookings.get(i).setId(100L + i);
+            }
+            return bookings;
+        });
+
+        bookingGroupCommitService = new BookingGroupCommitService(gymClassRepository, bookingRepository,
+                seatReservationService, waitlistService, memberService, eventPublisher, transactionManager,
+                new GroupCommitProperties(true, 10, Duration.ofMillis(300), 100, Duration.ofSeconds(5)));
+        bookingGroupCommitService.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        bookingGroupCommitService.stop();
+    }
+
+    @Test
+    void bookClass_ConcurrentBookings_CommittedInOneGroup() throws Exception {
+        when(seatReservationService.confirmReserved(gymClass, participationDate, 3)).thenReturn(3);
+
+        List<Callable<GenericResponse<ClassBookingResponseDto>>> bookers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ClassBookingRequestDto request = bookingRequest("Member " + i);
+            bookers.add(() -> bookingGroupCommitService.bookClass(request));
+        }
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(3)) {
+            for (Future<GenericResponse<ClassBookingResponseDto>> response : executor.invokeAll(bookers)) {
+                assertEquals(HttpStatus.CREATED.value(), response.get().getStatusCode());
+                assertNotNull(response.get().getData().getId());
+            }
+        }
+
+        verify(bookingRepository, times(1)).saveAll(anyList());
+        verify(transactionManager, times(1)).commit(any());
+        verify(eventPublisher, times(3)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void bookClass_DatabaseSlotFull_ReturnsCapacityExceeded() {
+        when(seatReservationService.confirmReserved(gymClass, participationDate, 1)).thenReturn(0);
+
+        GenericResponse<ClassBookingResponseDto> response = bookingGroupCommitService.bookClass(bookingRequest("John Doe"));
+
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatusCode());
+        assertEquals(ResponseConstants.ERROR_CAPACITY_EXCEEDED, response.getMessage());
+    }
+
+    @Test
+    void bookClass_LocalCounterFull_RejectsWithoutQueueing() {
+        when(seatReservationService.reserveLocally(gymClass, participationDate, 1)).thenReturn(0);
+
+        GenericResponse<ClassBookingResponseDto> response = bookingGroupCommitService.bookClass(bookingRequest("John Doe"));
+
+        assertEquals(ResponseConstants.ERROR_CAPACITY_EXCEEDED, response.getMessage());
+        verify(seatReservationService, never()).confirmReserved(any(), any(), eq(1));
+    }
+
+    @Test
+    void bookClass_DatabaseSlotFull_JoinsWaitlistWhenAsked() {
+        when(seatReservationService.confirmReserved(gymClass, participationDate, 1)).thenReturn(0);
+        when(waitlistService.join(gymClass, "John Doe", participationDate)).thenReturn(true);
+        ClassBookingRequestDto request = bookingRequest("John Doe");
+        request.setJoinWaitlist(true);
+
+        GenericResponse<ClassBookingResponseDto> response = bookingGroupCommitService.bookClass(request);
+
+        assertEquals(HttpStatus.ACCEPTED.value(), response.getStatusCode());
+        assertEquals(ResponseConstants.WAITLIST_JOINED, response.getMessage());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void bookClass_GroupFailsBeforeConfirming_ReleasesLocalSeats() {
+        when(seatReservationService.confirmReserved(gymClass, participationDate, 1))
+                .thenThrow(new IllegalStateException("Database down"));
+
+        GenericResponse<ClassBookingResponseDto> response = bookingGroupCommitService.bookClass(bookingRequest("John Doe"));
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR.value(), response.getStatusCode());
+        verify(seatReservationService).releaseLocally(gymClass, participationDate, 1);
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void bookClass_OneBookingOfTheGroupFails_OnlyThatBookingFails() throws Exception {
+        when(seatReservationService.confirmReserved(gymClass, participationDate, 3)).thenReturn(3);
+        when(seatReservationService.confirmReserved(gymClass, participationDate, 1)).thenReturn(1);
+        when(bookingRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<ClassBooking> bookings = invocation.getArgument(0);
+            if (bookings.stream().anyMatch(booking -> booking.getMember().getName().equals("Member 1"))) {
+                throw new IllegalStateException("Constraint violation");
+            }
+            bookings.forEach(booking -> booking.setId(100L));
+            return bookings;
+        });
+
+        List<Callable<GenericResponse<ClassBookingResponseDto>>> bookers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ClassBookingRequestDto request = bookingRequest("Member " + i);
+            bookers.add(() -> bookingGroupCommitService.bookClass(request));
+        }
+
+        List<Integer> statuses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(3)) {
+            for (Future<GenericResponse<ClassBookingResponseDto>> response : executor.invokeAll(bookers)) {
+                statuses.add(response.get().getStatusCode());
+            }
+        }
+
+        assertEquals(List.of(HttpStatus.CREATED.value(), HttpStatus.INTERNAL_SERVER_ERROR.value(), HttpStatus.CREATED.value()), statuses);
+        verify(transactionManager, times(2)).commit(any());
+        // Every booking takes its seat again after the group rolled back
+        verify(seatReservationService, times(6)).reserveLocally(gymClass, participationDate, 1);
+    }
+
+    @Test
+    void bookClass_MemberNotCached_ResolvedBeforeQueueing() {
+        when(memberService.cached("John Doe")).thenReturn(null);
+        when(memberService.resolve("John Doe")).thenThrow(new IllegalStateException("Database down"));
+
+        assertThrows(IllegalStateException.class, () -> bookingGroupCommitService.bookClass(bookingRequest("John Doe")));
+        verify(seatReservationService, never()).reserveLocally(any(), any(), anyInt());
+        verify(seatReservationService, after(500).never()).confirmReserved(any(), any(), anyInt());
+    }
+
+    @Test
+    void bookClass_TakenButNeverCommitted_GivesUpAfterASecondTimeout() throws InterruptedException {
+        bookingGroupCommitService.stop();
+        bookingGroupCommitService = groupCommitService(Duration.ofMillis(1), Duration.ofMillis(50));
+        when(seatReservationService.confirmReserved(gymClass, participationDate, 1)).thenAnswer(invocation -> {
+            Thread.sleep(1000);
+            return 1;
+        });
+
+        GenericResponse<ClassBookingResponseDto> response = bookingGroupCommitService.bookClass(bookingRequest("John Doe"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatusCode());
+        assertEquals(ResponseConstants.ERROR_BOOKING_NOT_CONFIRMED, response.getMessage());
+    }
+
+    @Test
+    void bookClass_WriterStopped_RejectsAndReleasesSeat() throws InterruptedException {
+        bookingGroupCommitService.stop();
+
+        assertThrows(BulkheadFullException.class, () -> bookingGroupCommitService.bookClass(bookingRequest("John Doe")));
+        verify(seatReservationService).releaseLocally(gymClass, participationDate, 1);
+    }
+
+    @Test
+    void bookClass_NotTakenInTime_WithdrawsBookingSoItIsNeverCommitted() throws InterruptedException {
+        bookingGroupCommitService.stop();
+        // The writer waits a full second for more bookings before taking the group
+        bookingGroupCommitService = groupCommitService(Duration.ofSeconds(1), Duration.ofMillis(50));
+
+        GenericResponse<ClassBookingResponseDto> response = bookingGroupCommitService.bookClass(bookingRequest("John Doe"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatusCode());
+        assertEquals(ResponseConstants.ERROR_BOOKING_WITHDRAWN, response.getMessage());
+        verify(seatReservationService).releaseLocally(gymClass, participationDate, 1);
+        verify(seatReservationService, after(1500).never()).confirmReserved(any(), any(), anyInt());
+        verify(bookingRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void bookClass_TakenButSlowToCommit_WaitsForTheRealOutcome() throws InterruptedException {
+        bookingGroupCommitService.stop();
+        // Slower than one commit timeout, but within the second one a taken booking waits for
+        bookingGroupCommitService = groupCommitService(Duration.ofMillis(1), Duration.ofMillis(250));
+        when(seatReservationService.confirmReserved(gymClass, participationDate, 1)).thenAnswer(invocation -> {
+            Thread.sleep(350);
+            return 1;
+        });
+
+        GenericResponse<ClassBookingResponseDto> response = bookingGroupCommitService.bookClass(bookingRequest("John Doe"));
+
+        assertEquals(HttpStatus.CREATED.value(), response.getStatusCode());
+        verify(seatReservationService, never()).releaseLocally(any(), any(), anyInt());
+    }
+
+    private BookingGroupCommitService groupCommitService(Duration maxDelay, Duration commitTimeout) {
+        BookingGroupCommitService service = new BookingGroupCommitService(gymClassRepository, bookingRepository,
+                seatReservationService, waitlistService, memberService, eventPublisher, transactionManager,
+                new GroupCommitProperties(true, 10, maxDelay, 100, commitTimeout));
+        service.start();
+        return service;
+    }
+
+    private ClassBookingRequestDto bookingRequest(String memberName) {
+        return ClassBookingRequestDto.builder()
+                .gymClassId(1L)
+                .memberName(memberName)
+                .participationDate(participationDate)
+                .build();
+    }
+}
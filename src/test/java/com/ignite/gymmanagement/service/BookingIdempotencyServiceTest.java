@@ -0,0 +1,326 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.ignite.gymmanagement.aspect.GymServiceBulkhead;
+import com.ignite.gymmanagement.config.IdempotencyProperties;
+import com.ignite.gymmanagement.dto.ClassBookingRequestDto;
+import com.ignite.gymmanagement.dto.ClassBookingResponseDto;
+import com.ignite.gymmanagement.exception.BulkheadFullException;
+import com.ignite.gymmanagement.model.BookingIdempotencyRecord;
+import com.ignite.gymmanagement.repository.BookingIdempotencyRepository;
+import com.ignite.gymmanagement.util.GenericResponse;
+import com.ignite.gymmanagement.util.ResponseConstants;
+import com.ignite.gymmanagement.util.ResponseUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BookingIdempotencyServiceTest {
+
+    private static final String KEY = "3f6c1a2e-retry";
+
+    @Mock
+    private BookingIdempotencyRepository bookingIdempotencyRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private GymServiceBulkhead gymServiceBulkhead;
+    private BookingIdempotencyService bookingIdempotencyService;
+    private ClassBookingRequestDto bookingRequest;
+    private AtomicInteger bookings;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        gymServiceBulkhead = new GymServiceBulkhead(1, 1, false, Duration.ofMillis(50), meterRegistry);
+        bookingIdempotencyService = new BookingIdempotencyService(bookingIdempotencyRepository, gymServiceBulkhead, transactionManager,
+                new IdempotencyProperties(100, Duration.ofHours(24), Duration.ofSeconds(5), Duration.ofMinutes(1),
+                        Duration.ofMinutes(10)),
+                new SimpleMeterRegistry());
+        bookingRequest = ClassBookingRequestDto.builder()
+                .gymClassId(1L)
+                .memberName("John Doe")
+                .participationDate(LocalDate.now().plusDays(3))
+                .build();
+        bookings = new AtomicInteger();
+
+        when(bookingIdempotencyRepository.claim(eq(KEY), anyString(), any())).thenReturn(1);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+    }
+
+    @Test
+    void bookOnce_Retry_AnsweredFromMemory() {
+        BookingIdempotencyService.Result first = bookingIdempotencyService.bookOnce(KEY, bookingRequest, booking(HttpStatus.CREATED));
+        BookingIdempotencyService.Result retry = bookingIdempotencyService.bookOnce(KEY, bookingRequest, booking(HttpStatus.CREATED));
+
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertSame(first.response(), retry.response());
+        assertEquals(1, bookings.get());
+        verify(bookingIdempotencyRepository, times(1)).claim(eq(KEY), anyString(), any());
+        verify(bookingIdempotencyRepository, times(1)).save(any(BookingIdempotencyRecord.class));
+    }
+
+    @Test
+    void bookOnce_SameKeyDifferentRequest_ReturnsUnprocessableEntity() {
+        bookingIdempotencyService.bookOnce(KEY, bookingRequest, booking(HttpStatus.CREATED));
+        bookingRequest.setMemberName("Jane Doe");
+
+        BookingIdempotencyService.Result result = bookingIdempotencyService.bookOnce(KEY, bookingRequest, booking(HttpStatus.CREATED));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), result.response().getStatusCode());
+        assertEquals(ResponseConstants.ERROR_IDEMPOTENCY_KEY_REUSED, result.response().getMessage());
+        assertEquals(1, bookings.get());
+    }
+
+    @Test
+    void bookOnce_CompletedOnAnotherNode_ReplaysStoredResponse() {
+        when(bookingIdempotencyRepository.claim(eq(KEY), anyString(), any())).thenReturn(0);
+        when(bookingIdempotencyRepository.findById(KEY)).thenReturn(Optional.of(BookingIdempotencyRecord.builder()
+                .idempotencyKey(KEY)
+                .requestHash(BookingIdempotencyService.fingerprint(bookingRequest))
+                .statusCode(HttpStatus.CREATED.value())
+                .success(true)
+                .message(ResponseConstants.BOOKING_SUCCESS)
+                .respondedAt(LocalDateTime.now())
+                .bookingId(42L)
+                .gymClassId(1L)
+                .gymClassName("Yoga Class")
+                .memberName("John Doe")
+                .participationDate(bookingRequest.getParticipationDate())
+                .build()));
+
+        BookingIdempotencyService.Result result = bookingIdempotencyService.bookOnce(KEY, bookingRequest, booking(HttpStatus.CREATED));
+
+        assertTrue(result.replayed());
+        assertEquals(HttpStatus.CREATED.value(), result.response().getStatusCode());
+        assertEquals(42L, result.response().getData().getId());
+        assertEquals(0, bookings.get());
+    }
+
+    @Test
+    void bookOnce_InProgressOnAnotherNode_ReturnsConflict() {
+        when(bookingIdempotencyRepository.claim(eq(KEY), anyString(), any())).thenReturn(0);
+        when(bookingIdempotencyRepository.findById(KEY)).thenReturn(Optional.of(BookingIdempotencyRecord.builder()
+                .idempotencyKey(KEY)
+                .requestHash(BookingIdempotencyService.fingerprint(bookingRequest))
+                .createdAt(LocalDateTime.now())
+                .build()));
+
+        BookingIdempotencyService.Result result = bookingIdempotencyService.bookOnce(KEY, bookingRequest, booking(HttpStatus.CREATED));
+
+        assertEquals(HttpStatus.CONFLICT.value(), result.response().getStatusCode());
+        assertEquals(0, bookings.get());
+    }
+
+    @Test
+    void findCompleted_StoredResponse_IsReplayedWithoutBooking() {
+        when(bookingIdempotencyRepository.findById(KEY)).thenReturn(Optional.of(BookingIdempotencyRecord.builder()
+                .idempotencyKey(KEY)
+                .requestHash(BookingIdempotencyService.fingerprint(bookingRequest))
+                .statusCode(HttpStatus.CREATED.value())
+                .success(true)
+                .bookingId(42L)
+                .build()));
+
+        BookingIdempotencyService.Result result = bookingIdempotencyService.findCompleted(KEY, bookingRequest);
+
+        assertTrue(result.replayed());
+        assertEquals(42L, result.response().getData().getId());
+        assertNotNull(bookingIdempotencyService.findCompleted(KEY, bookingRequest));
+        verify(bookingIdempotencyRepository, times(1)).findById(KEY); // Cached after the first lookup
+    }
+
+    @Test
+    void findCompleted_NoResponseYet_ReturnsNull() {
+        assertNull(bookingIdempotencyService.findCompleted(KEY, bookingRequest));
+
+        when(bookingIdempotencyRepository.findById(KEY)).thenReturn(Optional.of(BookingIdempotencyRecord.builder()
+                .idempotencyKey(KEY)
+                .requestHash(BookingIdempotencyService.fingerprint(bookingRequest))
+                .createdAt(LocalDateTime.now())
+                .build()));
+        assertNull(bookingIdempotencyService.findCompleted(KEY, bookingRequest));
+    }
+
+    @Test
+    void bookOnce_ServerError_ReleasesKeyForRetry() {
+        BookingIdempotencyService.Result failed = bookingIdempotencyService.bookOnce(KEY, bookingRequest, booking(HttpStatus.INTERNAL_SERVER_ERROR));
+        BookingIdempotencyService.Result retry = bookingIdempotencyService.bookOnce(KEY, bookingRequest, booking(HttpStatus.CREATED));
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR.value(), failed.response().getStatusCode());
+        assertEquals(HttpStatus.CREATED.value(), retry.response().getStatusCode());
+        assertFalse(retry.replayed());
+        assertEquals(2, bookings.get());
+        verify(bookingIdempotencyRepository, times(1)).releaseClaim(KEY);
+    }
+
+    @Test
+    void bookOnce_ResponseNotStored_RollsBackBookingAndReleasesOnlyTheClaim() {
+        when(bookingIdempotencyRepository.save(any(BookingIdempotencyRecord.class))).thenThrow(new IllegalStateException("Database down"));
+
+        assertThrows(IllegalStateException.class,
+                () -> bookingIdempotencyService.bookOnce(KEY, bookingRequest, booking(HttpStatus.CREATED)));
+
+        verify(transactionManager).rollback(any(TransactionStatus.class));
+        verify(bookingIdempotencyRepository).releaseClaim(KEY);
+        verify(bookingIdempotencyRepository, never()).deleteById(anyString());
+    }
+
+    @Test
+    void bookOnce_BookingMarkedRollbackOnly_StoresClientErrorOnItsOwn() {
+        SimpleTransactionStatus bookingTransaction = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(bookingTransaction, new SimpleTransactionStatus());
+        Supplier<GenericResponse<ClassBookingResponseDto>> rejected = () -> {
+            bookingTransaction.setRollbackOnly();
+            return booking(HttpStatus.BAD_REQUEST).get();
+        };
+
+        BookingIdempotencyService.Result result = bookingIdempotencyService.bookOnce(KEY, bookingRequest, rejected);
+
+        assertEquals(HttpStatus.BAD_REQUEST.value(), result.response().getStatusCode());
+        assertTrue(bookingTransaction.isRollbackOnly(), "The booking transaction is rolled back");
+        verify(bookingIdempotencyRepository, times(1)).save(any(BookingIdempotencyRecord.class));
+        verify(bookingIdempotencyRepository, never()).releaseClaim(KEY);
+    }
+
+    @Test
+    void bookOnce_TakesBulkheadPermitBeforeOpeningTheBookingTransaction() {
+        List<Double> freePermits = new ArrayList<>();
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            freePermits.add(meterRegistry.get("gym.bulkhead.available.permits").gauge().value());
+            return new SimpleTransactionStatus();
+        });
+
+        bookingIdempotencyService.bookOnce(KEY, bookingRequest, booking(HttpStatus.CREATED));
+
+        assertEquals(List.of(1.0, 0.0), freePermits, "Claim without a permit, booking with one");
+        assertEquals(1.0, meterRegistry.get("gym.bulkhead.available.permits").gauge().value());
+    }
+
+    @Test
+    void bookOnce_BulkheadFull_RejectsWithoutOpeningTheBookingTransaction() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Object> holder = executor.submit(() -> gymServiceBulkhead.withPermit("test", () -> {
+                entered.countDown();
+                awaitQuietly(release);
+                return null;
+            }));
+            entered.await();
+
+            assertThrows(BulkheadFullException.class,
+                    () -> bookingIdempotencyService.bookOnce(KEY, bookingRequest, booking(HttpStatus.CREATED)));
+
+            release.countDown();
+            holder.get();
+        }
+        assertEquals(0, bookings.get());
+        verify(transactionManager, times(2)).getTransaction(any()); // Claiming and releasing the key
+        verify(bookingIdempotencyRepository).releaseClaim(KEY);
+    }
+
+    @Test
+    void fingerprint_HashesTheRequestFields() {
+        ClassBookingRequestDto same = ClassBookingRequestDto.builder()
+                .participationDate(bookingRequest.getParticipationDate())
+                .memberName("John Doe")
+                .gymClassId(1L)
+                .build();
+        ClassBookingRequestDto waitlisted = ClassBookingRequestDto.builder()
+                .gymClassId(1L)
+                .memberName("John Doe")
+                .participationDate(bookingRequest.getParticipationDate())
+                .joinWaitlist(true)
+                .build();
+
+        assertEquals(BookingIdempotencyService.fingerprint(bookingRequest), BookingIdempotencyService.fingerprint(same));
+        assertNotEquals(BookingIdempotencyService.fingerprint(bookingRequest), BookingIdempotencyService.fingerprint(waitlisted));
+    }
+
+    @Test
+    void bookOnce_DuplicateWhileOriginalRuns_WaitsForItsResponse() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<GenericResponse<ClassBookingResponseDto>> slowBooking = () -> {
+            started.countDown();
+            awaitQuietly(release);
+            return booking(HttpStatus.CREATED).get();
+        };
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<BookingIdempotencyService.Result> original = executor.submit(() ->
+                    bookingIdempotencyService.bookOnce(KEY, bookingRequest, slowBooking));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<BookingIdempotencyService.Result> duplicate = executor.submit(() ->
+                    bookingIdempotencyService.bookOnce(KEY, bookingRequest, booking(HttpStatus.CREATED)));
+            release.countDown();
+
+            assertFalse(original.get().replayed());
+            assertTrue(duplicate.get().replayed());
+            assertSame(original.get().response(), duplicate.get().response());
+        }
+        assertEquals(1, bookings.get());
+        verify(bookingIdempotencyRepository, never()).findById(KEY);
+    }
+
+    private Supplier<GenericResponse<ClassBookingResponseDto>> booking(HttpStatus status) {
+        return () -> {
+            bookings.incrementAndGet();
+            if (status.isError()) {
+                return ResponseUtils.error(ResponseConstants.ERROR_BOOKING_FAILED, status, ResponseConstants.BOOKING_ERROR_CODE);
+            }
+            return ResponseUtils.success(ClassBookingResponseDto.builder().id(7L).memberName("John Doe").build(),
+                    ResponseConstants.BOOKING_SUCCESS, status);
+        };
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
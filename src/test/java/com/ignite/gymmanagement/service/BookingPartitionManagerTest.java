@@ -0,0 +1,94 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.ignite.gymmanagement.config.PartitioningProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BookingPartitionManagerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 17);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BookingPartitionManager partitionManager;
+
+    @BeforeEach
+    void setUp() {
+        partitionManager = manager(24);
+        when(jdbcTemplate.queryForList(BookingPartitionManager.ATTACHED_PARTITIONS, String.class)).thenReturn(List.of(
+                "class_booking_default", "class_booking_2024_09", "class_booking_2024_10", "class_booking_2026_10"));
+    }
+
+    @Test
+    void maintainPartitions_CreatesCurrentAndUpcomingMonths() {
+        partitionManager.maintainPartitions(TODAY);
+
+        for (LocalDate month : List.of(LocalDate.of(2026, 10, 1), LocalDate.of(2026, 11, 1),
+                LocalDate.of(2026, 12, 1), LocalDate.of(2027, 1, 1))) {
+            verify(jdbcTemplate).queryForObject(BookingPartitionManager.CREATE_PARTITION, String.class, month);
+        }
+        verify(jdbcTemplate, never()).queryForObject(BookingPartitionManager.CREATE_PARTITION, String.class, LocalDate.of(2027, 2, 1));
+    }
+
+    @Test
+    void maintainPartitions_FailedMonth_StillCreatesTheOthers() {
+        when(jdbcTemplate.queryForObject(BookingPartitionManager.CREATE_PARTITION, String.class, LocalDate.of(2026, 11, 1)))
+                .thenThrow(new DataAccessResourceFailureException("Lock timeout"));
+
+        partitionManager.maintainPartitions(TODAY);
+
+        verify(jdbcTemplate).queryForObject(BookingPartitionManager.CREATE_PARTITION, String.class, LocalDate.of(2027, 1, 1));
+    }
+
+    @Test
+    void maintainPartitions_ArchivesOnlyPartitionsPastRetention() {
+        partitionManager.maintainPartitions(TODAY);
+
+        verify(jdbcTemplate).execute("ALTER TABLE class_booking DETACH PARTITION class_booking_2024_09");
+        verify(jdbcTemplate).execute("ALTER TABLE class_booking_2024_09 RENAME TO class_booking_archive_2024_09");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE class_booking DETACH PARTITION class_booking_2024_10");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE class_booking DETACH PARTITION class_booking_default");
+    }
+
+    @Test
+    void maintainPartitions_NoRetention_KeepsEveryPartition() {
+        manager(0).maintainPartitions(TODAY);
+
+        verify(jdbcTemplate, never()).queryForList(eq(BookingPartitionManager.ATTACHED_PARTITIONS), eq(String.class));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    private BookingPartitionManager manager(int retentionMonths) {
+        return new BookingPartitionManager(jdbcTemplate, transactionManager,
+                new PartitioningProperties(true, 3, retentionMonths, Duration.ofHours(6)));
+    }
+}
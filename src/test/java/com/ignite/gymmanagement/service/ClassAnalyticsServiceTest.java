@@ -0,0 +1,160 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.ignite.gymmanagement.dto.AnalyticsRebuildDto;
+import com.ignite.gymmanagement.dto.ClassUtilisationDto;
+import com.ignite.gymmanagement.dto.UtilisationReportDto;
+import com.ignite.gymmanagement.model.GymClass;
+import com.ignite.gymmanagement.repository.BookingRepository;
+import com.ignite.gymmanagement.repository.ClassOccupancyRepository;
+import com.ignite.gymmanagement.repository.GymClassRepository;
+import com.ignite.gymmanagement.repository.WeekdayBookingCount;
+import com.ignite.gymmanagement.util.GenericResponse;
+import com.ignite.gymmanagement.util.ResponseConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ClassAnalyticsServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2030, 1, 7);
+
+    @Mock
+    private GymClassRepository gymClassRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private ClassOccupancyRepository classOccupancyRepository;
+
+    @Mock
+    private SeatReservationService seatReservationService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ClassAnalyticsService classAnalyticsService;
+
+    @BeforeEach
+    void setUp() {
+        classAnalyticsService = new ClassAnalyticsService(gymClassRepository, bookingRepository,
+                classOccupancyRepository, seatReservationService, transactionManager, 2);
+    }
+
+    @Test
+    void getUtilisation_AggregatesPerClassWeekdayAndTimeSlot() {
+        LocalDate sunday = MONDAY.plusDays(6);
+        GymClass yoga = GymClass.builder().id(1L).name("Yoga").startDate(MONDAY).endDate(sunday)
+                .startTime(LocalTime.of(9, 0)).capacity(10).build();
+        GymClass pilates = GymClass.builder().id(2L).name("Pilates").startDate(MONDAY.plusDays(3)).endDate(sunday.plusDays(7))
+                .startTime(LocalTime.of(9, 0)).capacity(20).build();
+        when(gymClassRepository.findScheduledBetween(MONDAY, sunday)).thenReturn(List.of(yoga, pilates));
+        when(classOccupancyRepository.countBookingsPerWeekday(MONDAY, sunday)).thenReturn(List.of(
+                new WeekdayBookingCount(1L, 2, 5),     // Monday
+                new WeekdayBookingCount(2L, 5, 10)));  // Thursday
+
+        GenericResponse<UtilisationReportDto> response = classAnalyticsService.getUtilisation(MONDAY, sunday);
+
+        assertEquals(200, response.getStatusCode());
+        UtilisationReportDto report = response.getData();
+        ClassUtilisationDto yogaUtilisation = report.getClasses().get(0);
+        assertEquals(7, yogaUtilisation.getSessions());
+        assertEquals(70, yogaUtilisation.getSeats());
+        assertEquals(5, yogaUtilisation.getBooked());
+        ClassUtilisationDto pilatesUtilisation = report.getClasses().get(1);
+        assertEquals(4, pilatesUtilisation.getSessions()); // Thursday to Sunday of the range
+        assertEquals(80, pilatesUtilisation.getSeats());
+        assertEquals(0.125, pilatesUtilisation.getFillRate());
+
+        assertEquals(0.5, report.getWeekdays().get(DayOfWeek.MONDAY).getFillRate());
+        assertEquals(30, report.getWeekdays().get(DayOfWeek.THURSDAY).getSeats());
+        assertEquals(0, report.getWeekdays().get(DayOfWeek.SUNDAY).getBooked());
+        assertEquals(11, report.getTimeSlots().get(LocalTime.of(9, 0)).getSessions());
+        assertEquals(0.1, report.getTimeSlots().get(LocalTime.of(9, 0)).getFillRate());
+    }
+
+    @Test
+    void getUtilisation_FromAfterTo_ReturnsBadRequest() {
+        GenericResponse<UtilisationReportDto> response = classAnalyticsService.getUtilisation(MONDAY, MONDAY.minusDays(1));
+
+        assertEquals(400, response.getStatusCode());
+        assertEquals(ResponseConstants.ANALYTICS_ERROR_CODE, response.getErrorCode());
+        verifyNoInteractions(classOccupancyRepository);
+    }
+
+    @Test
+    void sessionsPerWeekday_CountsEveryDayOfTheRange() {
+        long[] sessions = ClassAnalyticsService.sessionsPerWeekday(MONDAY, MONDAY.plusDays(9));
+
+        assertArrayEquals(new long[]{2, 2, 2, 1, 1, 1, 1}, sessions);
+        assertArrayEquals(new long[7], ClassAnalyticsService.sessionsPerWeekday(MONDAY, MONDAY.minusDays(1)));
+    }
+
+    @Test
+    void rebuild_RecountsEachMonthInItsOwnChunk() {
+        when(classOccupancyRepository.recountSessions(any(), any())).thenReturn(2);
+        when(classOccupancyRepository.createMissingSessions(any(), any())).thenReturn(1);
+
+        GenericResponse<AnalyticsRebuildDto> response =
+                classAnalyticsService.rebuild(LocalDate.of(2030, 1, 15), LocalDate.of(2030, 3, 10));
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals(3, response.getData().getChunks());
+        assertEquals(9, response.getData().getSessions());
+        verify(classOccupancyRepository).lockSessions(LocalDate.of(2030, 1, 15), LocalDate.of(2030, 2, 1));
+        verify(classOccupancyRepository).recountSessions(LocalDate.of(2030, 2, 1), LocalDate.of(2030, 3, 1));
+        verify(classOccupancyRepository).createMissingSessions(LocalDate.of(2030, 3, 1), LocalDate.of(2030, 3, 11));
+        verify(seatReservationService).forget(LocalDate.of(2030, 1, 15), LocalDate.of(2030, 2, 1));
+        verify(seatReservationService).forget(LocalDate.of(2030, 3, 1), LocalDate.of(2030, 3, 11));
+    }
+
+    @Test
+    void rebuild_WithoutBookings_HasNothingToDo() {
+        GenericResponse<AnalyticsRebuildDto> response = classAnalyticsService.rebuild(null, null);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals(0, response.getData().getChunks());
+        verifyNoInteractions(classOccupancyRepository);
+    }
+
+    @Test
+    void rebuild_FailedChunk_ReturnsServerError() {
+        when(bookingRepository.findFirstParticipationDate()).thenReturn(LocalDate.of(2030, 1, 15));
+        when(bookingRepository.findLastParticipationDate()).thenReturn(LocalDate.of(2030, 2, 10));
+        when(classOccupancyRepository.recountSessions(eq(LocalDate.of(2030, 2, 1)), any()))
+                .thenThrow(new IllegalStateException("deadlock detected"));
+
+        GenericResponse<AnalyticsRebuildDto> response = classAnalyticsService.rebuild(null, null);
+
+        assertEquals(500, response.getStatusCode());
+        assertEquals(ResponseConstants.ERROR_ANALYTICS_REBUILD_FAILED, response.getMessage());
+        verify(classOccupancyRepository).recountSessions(LocalDate.of(2030, 1, 15), LocalDate.of(2030, 2, 1));
+        verify(seatReservationService).forget(LocalDate.of(2030, 1, 15), LocalDate.of(2030, 2, 1));
+        verify(seatReservationService, never()).forget(eq(LocalDate.of(2030, 2, 1)), any());
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.ignite.gymmanagement.dto.ClassImportResultDto;
+import com.ignite.gymmanagement.event.ClassCreatedEvent;
+import com.ignite.gymmanagement.index.ClassScheduleIndex;
+import com.ignite.gymmanagement.model.GymClass;
+import com.ignite.gymmanagement.repository.GymClassRepository;
+import com.ignite.gymmanagement.util.GenericResponse;
+import com.ignite.gymmanagement.util.ResponseConstants;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ClassImportServiceTest {
+
+    private static final LocalDate START = LocalDate.now().plusDays(7);
+    private static final String CSV_HEADER = "name,startDate,endDate,startTime,duration,capacity\n";
+
+    @Mock
+    private GymClassRepository gymClassRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ClassScheduleIndex classScheduleIndex;
+    private ClassImportService classImportService;
+    private final AtomicLong ids = new AtomicLong();
+    private final List<Integer> savedChunkSizes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(gymClassRepository.findAll()).thenReturn(List.of(GymClass.builder()
+                .id(ids.incrementAndGet()).name("Existing").startDate(START).endDate(START.plusDays(30))
+                .startTime(LocalTime.of(6, 0)).duration(60).capacity(10).build()));
+        when(gymClassRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<GymClass> gymClasses = invocation.getArgument(0);
+            gymClasses.forEach(gymClass -> gymClass.setId(ids.incrementAndGet()));
+            savedChunkSizes.add(gymClasses.size());
+            return gymClasses;
+        });
+        classScheduleIndex = new ClassScheduleIndex(gymClassRepository);
+        classScheduleIndex.load();
+
+        ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+        classImportService = new ClassImportService(gymClassRepository, classScheduleIndex, objectMapper,
+                Validation.buildDefaultValidatorFactory().getValidator(), eventPublisher, transactionManager);
+    }
+
+    @Test
+    void importClasses_Csv_CreatesClassesAndRejectsClashes() {
+        String csv = CSV_HEADER
+                + row("Yoga", START, START.plusDays(30), "09:00", 60)
+                + row("\"Spin, Advanced\"", START, START.plusDays(30), "10:00", 45)
+                + row("Pilates", START.plusDays(5), START.plusDays(10), "09:30", 30)    // Clashes with Yoga above
+                + row("Boxing", START, START.plusDays(3), "06:30", 30);                   // Clashes with the existing class
+
+        GenericResponse<List<ClassImportResultDto>> response = importClasses(csv, ClassImportService.Format.CSV);
+
+        assertEquals(HttpStatus.MULTI_STATUS.value(), response.getStatusCode());
+        List<ClassImportResultDto> results = response.getData();
+        assertEquals(List.of(1, 2, 3, 4), results.stream().map(ClassImportResultDto::getRow).toList());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("Spin, Advanced", results.get(1).getGymClass().getName());
+        assertEquals(ResponseConstants.ERROR_CLASS_SCHEDULE_OVERLAP, results.get(2).getMessage());
+        assertEquals(ResponseConstants.ERROR_CLASS_SCHEDULE_OVERLAP, results.get(3).getMessage());
+        assertEquals(List.of(2), savedChunkSizes);
+        assertTrue(classScheduleIndex.overlaps(START, START, LocalTime.of(10, 30), 10));
+        verify(eventPublisher, times(2)).publishEvent(any(ClassCreatedEvent.class));
+    }
+
+    @Test
+    void importClasses_ColumnsInOtherOrder_AreMappedByHeader() {
+        String csv = "capacity,duration,startTime,endDate,startDate,name\n"
+                + "20,60,18:00," + START.plusDays(1) + "," + START + ",Zumba\n";
+
+        GenericResponse<List<ClassImportResultDto>> response = importClasses(csv, ClassImportService.Format.CSV);
+
+        assertEquals(HttpStatus.CREATED.value(), response.getStatusCode());
+        assertEquals(LocalTime.of(18, 0), response.getData().getFirst().getGymClass().getStartTime());
+        assertEquals(20, response.getData().getFirst().getGymClass().getCapacity());
+    }
+
+    @Test
+    void importClasses_JsonLines_ReportsUnreadableAndInvalidRows() {
+        String lines = json("Yoga", START, START.plusDays(3), "09:00", 60) + "\n"
+                + "{not json\n"
+                + "\n"
+                + json("Backwards", START.plusDays(3), START, "11:00", 60) + "\n"
+                + json("", START, START.plusDays(3), "12:00", 60) + "\n";
+
+        GenericResponse<List<ClassImportResultDto>> response = importClasses(lines, ClassImportService.Format.NDJSON);
+
+        List<ClassImportResultDto> results = response.getData();
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).getMessage().startsWith(ResponseConstants.ERROR_IMPORT_ROW_UNREADABLE));
+        assertEquals(ResponseConstants.ERROR_END_DATE_BEFORE_START_DATE, results.get(2).getMessage());
+        assertEquals("Class name is required", results.get(3).getMessage());
+        assertEquals(List.of(1), savedChunkSizes);
+    }
+
+    @Test
+    void importClasses_ManyRows_InsertsInChunks() {
+        StringBuilder csv = new StringBuilder(CSV_HEADER);
+        int rows = ClassImportService.CHUNK_SIZE * 2 + 1;
+        for (int i = 0; i < rows; i++) {
+            LocalDate day = START.plusDays(40 + i / 20);    // 20 back-to-back classes a day
+            csv.append(row("Class " + i, day, day, LocalTime.of(7, 0).plusMinutes(30L * (i % 20)).toString(), 30));
+        }
+
+        GenericResponse<List<ClassImportResultDto>> response = importClasses(csv.toString(), ClassImportService.Format.CSV);
+
+        assertEquals(HttpStatus.CREATED.value(), response.getStatusCode());
+        assertEquals(List.of(ClassImportService.CHUNK_SIZE, ClassImportService.CHUNK_SIZE, 1), savedChunkSizes);
+    }
+
+    @Test
+    void importClasses_TooManyRows_StopsWithOneError() {
+        StringBuilder csv = new StringBuilder(CSV_HEADER);
+        for (int i = 0; i < ClassImportService.MAX_ROWS + 50; i++) {
+            csv.append("Class ").append(i).append(",not-a-date,2025-01-01,07:00,30,10\n");
+        }
+
+        GenericResponse<List<ClassImportResultDto>> response = importClasses(csv.toString(), ClassImportService.Format.CSV);
+
+        List<ClassImportResultDto> results = response.getData();
+        assertEquals(ClassImportService.MAX_ROWS + 1, results.size());
+        assertEquals(ClassImportService.MAX_ROWS + 1, results.getLast().getRow());
+        assertTrue(results.getLast().getMessage().startsWith(ResponseConstants.ERROR_IMPORT_TOO_MANY_ROWS));
+    }
+
+    @Test
+    void importClasses_MissingCsvColumn_ReturnsBadRequest() {
+        GenericResponse<List<ClassImportResultDto>> response = importClasses(
+                "name,startDate,endDate,startTime,duration\nYoga," + START + "," + START + ",09:00,60\n",
+                ClassImportService.Format.CSV);
+
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatusCode());
+        assertEquals(ResponseConstants.ERROR_IMPORT_CSV_HEADER, response.getMessage());
+        verify(gymClassRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void importClasses_FailedInsert_FailsOnlyThatChunk() {
+        when(gymClassRepository.saveAll(anyList())).thenThrow(new IllegalStateException("Database down"));
+
+        GenericResponse<List<ClassImportResultDto>> response = importClasses(
+                CSV_HEADER + row("Yoga", START, START, "09:00", 60), ClassImportService.Format.CSV);
+
+        assertEquals(HttpStatus.MULTI_STATUS.value(), response.getStatusCode());
+        assertEquals(ResponseConstants.DEFAULT_ERROR_MESSAGE, response.getData().getFirst().getMessage());
+        assertFalse(classScheduleIndex.overlaps(START, START, LocalTime.of(9, 0), 60));
+        verify(gymClassRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void splitCsvLine_QuotedFields_KeepCommasAndQuotes() {
+        assertEquals(List.of("a", "b, c", "say \"hi\"", ""), ClassImportService.splitCsvLine("a,\"b, c\",\"say \"\"hi\"\"\","));
+    }
+
+    private GenericResponse<List<ClassImportResultDto>> importClasses(String body, ClassImportService.Format format) {
+        return classImportService.importClasses(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format);
+    }
+
+    private static String row(String name, LocalDate startDate, LocalDate endDate, String startTime, int duration) {
+        return name + "," + startDate + "," + endDate + "," + startTime + "," + duration + ",20\n";
+    }
+
+    private static String json(String name, LocalDate startDate, LocalDate endDate, String startTime, int duration) {
+        return "{\"name\":\"" + name + "\",\"startDate\":\"" + startDate + "\",\"endDate\":\"" + endDate
+                + "\",\"startTime\":\"" + startTime + "\",\"duration\":" + duration + ",\"capacity\":20}";
+    }
+}
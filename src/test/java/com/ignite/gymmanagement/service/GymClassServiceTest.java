@@ -5,24 +5,39 @@
 
 package com.ignite.gymmanagement.service;
 
+import com.ignite.gymmanagement.dto.BatchBookingResultDto;
+import com.ignite.gymmanagement.dto.ClassAvailabilityDto;
 import com.ignite.gymmanagement.dto.ClassBookingRequestDto;
 import com.ignite.gymmanagement.dto.ClassBookingResponseDto;
 import com.ignite.gymmanagement.dto.GymClassRequestDto;
 import com.ignite.gymmanagement.dto.GymClassResponseDto;
+import com.ignite.gymmanagement.event.BookingCancelledEvent;
+import com.ignite.gymmanagement.event.BookingCreatedEvent;
+import com.ignite.gymmanagement.event.ClassCreatedEvent;
+import com.ignite.gymmanagement.index.ClassScheduleIndex;
+import com.ignite.gymmanagement.index.MemberNameIndex;
 import com.ignite.gymmanagement.model.ClassBooking;
 import com.ignite.gymmanagement.model.GymClass;
+import com.ignite.gymmanagement.model.Member;
 import com.ignite.gymmanagement.repository.BookingRepository;
+import com.ignite.gymmanagement.repository.DailyBookingCount;
 import com.ignite.gymmanagement.repository.GymClassRepository;
+import com.ignite.gymmanagement.specifications.BookingSpecifications;
+import com.ignite.gymmanagement.util.BookingSearchCursor;
 import com.ignite.gymmanagement.util.GenericResponse;
 import com.ignite.gymmanagement.util.ResponseConstants;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
 
 import java.time.Clock;
 import java.time.LocalDate;
@@ -30,9 +45,17 @@ import java.time.LocalTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,6 +67,30 @@ class GymServiceTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private SeatReservationService seatReservationService;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private MemberNameIndex memberNameIndex;
+
+    @Mock
+    private MemberService memberService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ClassScheduleIndex classScheduleIndex;
+
+    @Mock
+    private WaitlistService waitlistService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private GymService gymService;
 
@@ -87,6 +134,12 @@ class GymServiceTest {
                 .duration(20)
                 .capacity(60)
                 .build();
+
+        lenient().when(memberNameIndex.filterBookings(any(), any(), any())).thenAnswer(invocation ->
+                BookingSpecifications.filterBookings((String) invocation.getArgument(0),
+                        invocation.getArgument(1), invocation.getArgument(2)));
+        lenient().when(classScheduleIndex.writeLock()).thenReturn(new ReentrantLock());
+        lenient().when(memberService.resolve(any())).thenAnswer(invocation -> new Member(10L, invocation.getArgument(0)));
     }
 
     /**
@@ -95,7 +148,8 @@ class GymServiceTest {
 
     @Test
     void createClass_ValidInput_ReturnsSuccess() {
-        when(gymClassRepository.countOverlappingClasses(gymClassRequest.getStartDate(), gymClassRequest.getEndDate())).thenReturn(0L);
+        when(classScheduleIndex.overlaps(gymClassRequest.getStartDate(), gymClassRequest.getEndDate(),
+                gymClassRequest.getStartTime(), gymClassRequest.getDuration())).thenReturn(false);
         when(gymClassRepository.save(any(GymClass.class))).thenReturn(gymClass);
 
         GenericResponse<GymClassResponseDto> response = gymService.createClass(gymClassRequest);
@@ -103,17 +157,22 @@ class GymServiceTest {
         assertNotNull(response.getData(), "Response data should not be null");
         assertEquals("Yoga Class", response.getData().getName());
         assertEquals(HttpStatus.CREATED.value(), response.getStatusCode(), "Expected HTTP status: CREATED");
+        verify(classScheduleIndex).add(gymClass);
+        verify(eventPublisher).publishEvent(GymService.toClassCreatedEvent(gymClass));
     }
 
     @Test
     void createClass_OverlappingClass_ThrowsException() {
-        when(gymClassRepository.countOverlappingClasses(gymClassRequest.getStartDate(), gymClassRequest.getEndDate())).thenReturn(1L);
+        when(classScheduleIndex.overlaps(gymClassRequest.getStartDate(), gymClassRequest.getEndDate(),
+                gymClassRequest.getStartTime(), gymClassRequest.getDuration())).thenReturn(true);
 
         GenericResponse<GymClassResponseDto> response = gymService.createClass(gymClassRequest);
 
         assertNull(response.getData());
-        assertEquals("A class is already scheduled in this date range", response.getMessage());
+        assertEquals(ResponseConstants.ERROR_CLASS_SCHEDULE_OVERLAP, response.getMessage());
         assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatusCode());
+        verify(gymClassRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any(ClassCreatedEvent.class));
     }
 
     @Test
@@ -130,7 +189,6 @@ class GymServiceTest {
 
     @Test
     void createClass_Exception_ReturnsInternalServerError() {
-        when(gymClassRepository.countOverlappingClasses(any(), any())).thenReturn(0L);
         when(gymClassRepository.save(any())).thenThrow(new RuntimeException("An unexpected error occurred.") {});
 
         GenericResponse<GymClassResponseDto> response = gymService.createClass(gymClassRequest);
@@ -140,6 +198,17 @@ class GymServiceTest {
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR.value(), response.getStatusCode());
     }
 
+    @Test
+    void createClass_CommitFails_LeavesClassOutOfTheIndex() {
+        when(gymClassRepository.save(any(GymClass.class))).thenReturn(gymClass);
+        doThrow(new TransactionSystemException("Commit failed")).when(transactionManager).commit(any());
+
+        GenericResponse<GymClassResponseDto> response = gymService.createClass(gymClassRequest);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR.value(), response.getStatusCode());
+        verify(classScheduleIndex, never()).add(any());
+    }
+
     /**
      * Class Booking Tests.
      */
@@ -148,12 +217,12 @@ class GymServiceTest {
     void bookClass_ValidBooking_ReturnsSuccess() {
         ClassBooking savedBooking = new ClassBooking();
         savedBooking.setId(1L);
-        savedBooking.setMemberName("John Doe");
+        savedBooking.setMember(new Member(10L, "John Doe"));
         savedBooking.setGymClass(gymClass);
         savedBooking.setParticipationDate(bookingRequest.getParticipationDate());
 
         when(gymClassRepository.findById(1L)).thenReturn(Optional.of(gymClass));
-        when(bookingRepository.countByGymClassAndParticipationDate(gymClass, bookingRequest.getParticipationDate())).thenReturn(0L);
+        when(seatReservationService.tryReserve(gymClass, bookingRequest.getParticipationDate())).thenReturn(true);
         when(bookingRepository.save(any(ClassBooking.class))).thenReturn(savedBooking);
 
         GenericResponse<ClassBookingResponseDto> response = gymService.bookClass(bookingRequest);
@@ -161,6 +230,7 @@ class GymServiceTest {
         assertNotNull(response.getData());
         assertEquals("John Doe", response.getData().getMemberName());
         assertEquals(HttpStatus.CREATED.value(), response.getStatusCode());
+        verify(eventPublisher).publishEvent(new BookingCreatedEvent(1L, 1L, "John Doe", bookingRequest.getParticipationDate()));
     }
 
     @Test
@@ -177,13 +247,27 @@ class GymServiceTest {
     @Test
     void bookClass_ClassCapacityExceeded_ReturnsError() {
         when(gymClassRepository.findById(1L)).thenReturn(Optional.of(gymClass));
-        when(bookingRepository.countByGymClassAndParticipationDate(gymClass, bookingRequest.getParticipationDate())).thenReturn(60L); // Simulating full capacity
+        when(seatReservationService.tryReserve(gymClass, bookingRequest.getParticipationDate())).thenReturn(false); // Simulating full capacity
 
         GenericResponse<ClassBookingResponseDto> response = gymService.bookClass(bookingRequest);
 
         assertNull(response.getData());
         assertEquals(ResponseConstants.ERROR_CAPACITY_EXCEEDED, response.getMessage());
         assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatusCode());
+        verify(bookingRepository, never()).save(any(ClassBooking.class));
+    }
+
+    @Test
+    void bookClass_SaveFails_ReturnsInternalServerError() {
+        when(gymClassRepository.findById(1L)).thenReturn(Optional.of(gymClass));
+        when(seatReservationService.tryReserve(gymClass, bookingRequest.getParticipationDate())).thenReturn(true);
+        when(bookingRepository.save(any(ClassBooking.class))).thenThrow(new RuntimeException("Insert failed"));
+
+        GenericResponse<ClassBookingResponseDto> response = gymService.bookClass(bookingRequest);
+
+        assertNull(response.getData());
+        assertEquals(ResponseConstants.ERROR_BOOKING_FAILED, response.getMessage());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR.value(), response.getStatusCode());
     }
 
     @Test
@@ -198,6 +282,64 @@ class GymServiceTest {
     }
 
 
+    /**
+     * Batch Booking Tests.
+     */
+
+    @Test
+    void bookClasses_MixedItems_ReportsOutcomePerItem() {
+        ClassBookingRequestDto unknownClass = ClassBookingRequestDto.builder()
+                .gymClassId(99L)
+                .memberName("Jane Doe")
+                .participationDate(bookingRequest.getParticipationDate())
+                .build();
+        ClassBookingRequestDto secondSeat = ClassBookingRequestDto.builder()
+                .gymClassId(1L)
+                .memberName("Jane Doe")
+                .participationDate(bookingRequest.getParticipationDate())
+                .build();
+
+        when(gymClassRepository.findAllById(any())).thenReturn(List.of(gymClass));
+        when(seatReservationService.tryReserve(eq(gymClass), eq(bookingRequest.getParticipationDate()), eq(2))).thenReturn(1);
+        when(bookingRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        GenericResponse<List<BatchBookingResultDto>> response =
+                gymService.bookClasses(List.of(bookingRequest, unknownClass, secondSeat));
+
+        List<BatchBookingResultDto> results = response.getData();
+        assertEquals(HttpStatus.MULTI_STATUS.value(), response.getStatusCode());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("John Doe", results.get(0).getBooking().getMemberName());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals(ResponseConstants.ERROR_CLASS_NOT_FOUND, results.get(1).getMessage());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals(ResponseConstants.ERROR_CAPACITY_EXCEEDED, results.get(2).getMessage());
+    }
+
+    @Test
+    void bookClasses_AllBooked_ReturnsCreated() {
+        when(gymClassRepository.findAllById(any())).thenReturn(List.of(gymClass));
+        when(seatReservationService.tryReserve(eq(gymClass), eq(bookingRequest.getParticipationDate()), eq(1))).thenReturn(1);
+        when(bookingRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        GenericResponse<List<BatchBookingResultDto>> response = gymService.bookClasses(List.of(bookingRequest));
+
+        assertEquals(HttpStatus.CREATED.value(), response.getStatusCode());
+        assertEquals(ResponseConstants.BATCH_BOOKING_COMPLETED, response.getMessage());
+    }
+
+    @Test
+    void bookClasses_SaveFails_ReturnsInternalServerError() {
+        when(gymClassRepository.findAllById(any())).thenReturn(List.of(gymClass));
+        when(seatReservationService.tryReserve(eq(gymClass), eq(bookingRequest.getParticipationDate()), eq(1))).thenReturn(1);
+        when(bookingRepository.saveAll(anyList())).thenThrow(new RuntimeException("Batch insert failed"));
+
+        GenericResponse<List<BatchBookingResultDto>> response = gymService.bookClasses(List.of(bookingRequest));
+
+        assertNull(response.getData());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR.value(), response.getStatusCode());
+    }
+
     /**
      * Search Bookings Tests
      */
@@ -205,16 +347,16 @@ class GymServiceTest {
     void searchBookings_Found_ReturnsBookingsList() {
         // Given
         String memberName = "John Doe";
-        List<ClassBooking> mockBookings = List.of(
-                new ClassBooking(1L, "John Doe", null, startDate),
-                new ClassBooking(2L, "John Doe", null, startDate.plusDays(1))
+        List<ClassBookingResponseDto> mockBookings = List.of(
+                bookingRow(1L, startDate),
+                bookingRow(2L, startDate.plusDays(1))
         );
 
         // Mock the repository call
-        when(bookingRepository.findAll(any(Specification.class))).thenReturn(mockBookings);
+        when(bookingRepository.searchBookings(any(Specification.class), anyInt())).thenReturn(mockBookings);
 
         // When
-        GenericResponse<List<ClassBooking>> response = gymService.searchBookings(memberName, startDate, endDate);
+        GenericResponse<List<ClassBookingResponseDto>> response = gymService.searchBookings(memberName, startDate, endDate, null, 50);
 
         // Then
         assertNotNull(response.getData(), "Response data should not be null");
@@ -223,16 +365,52 @@ class GymServiceTest {
         assertEquals(HttpStatus.OK.value(), response.getStatusCode(), "Expected HTTP status OK");
     }
 
+    @Test
+    void searchBookings_MoreRowsThanPageSize_ReturnsNextCursor() {
+        List<ClassBookingResponseDto> mockBookings = List.of(
+                bookingRow(1L, startDate),
+                bookingRow(2L, startDate.plusDays(1)),
+                bookingRow(3L, startDate.plusDays(2))
+        );
+        when(bookingRepository.searchBookings(any(Specification.class), anyInt())).thenReturn(mockBookings);
+
+        GenericResponse<List<ClassBookingResponseDto>> response = gymService.searchBookings("John", null, null, null, 2);
+
+        assertEquals(2, response.getData().size(), "Page should be cut to the requested size");
+        assertEquals(new BookingSearchCursor(startDate.plusDays(1), 2L),
+                BookingSearchCursor.decode(response.getNextCursor()));
+    }
+
+    @Test
+    void searchBookings_LastPage_HasNoNextCursor() {
+        when(bookingRepository.searchBookings(any(Specification.class), anyInt()))
+                .thenReturn(List.of(bookingRow(1L, startDate)));
+
+        GenericResponse<List<ClassBookingResponseDto>> response = gymService.searchBookings("John", null, null, null, 2);
+
+        assertEquals(1, response.getData().size());
+        assertNull(response.getNextCursor());
+    }
+
+    @Test
+    void searchBookings_InvalidCursor_ReturnsBadRequest() {
+        GenericResponse<List<ClassBookingResponseDto>> response = gymService.searchBookings(null, null, null, "not-a-cursor", 50);
+
+        assertNull(response.getData());
+        assertEquals(ResponseConstants.ERROR_INVALID_CURSOR, response.getMessage());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatusCode());
+    }
+
     @Test
     void searchBookings_NoBookingsFound_ReturnsEmptyList() {
         // Given
         String memberName = "Jane Doe";
 
         // Mock empty response
-        when(bookingRepository.findAll(any(Specification.class))).thenReturn(Collections.emptyList());
+        when(bookingRepository.searchBookings(any(Specification.class), anyInt())).thenReturn(Collections.emptyList());
 
         // When
-        GenericResponse<List<ClassBooking>> response = gymService.searchBookings(memberName, startDate, endDate);
+        GenericResponse<List<ClassBookingResponseDto>> response = gymService.searchBookings(memberName, startDate, endDate, null, 50);
 
         // Then
         assertNotNull(response.getData(), "Response data should not be null");
@@ -247,14 +425,125 @@ class GymServiceTest {
         String memberName = "John Doe";
 
         // Simulate an exception
-        when(bookingRepository.findAll(any(Specification.class))).thenThrow(new RuntimeException("Database error"));
+        when(bookingRepository.searchBookings(any(Specification.class), anyInt())).thenThrow(new RuntimeException("Database error"));
 
         // When
-        GenericResponse<List<ClassBooking>> response = gymService.searchBookings(memberName, startDate, endDate);
+        GenericResponse<List<ClassBookingResponseDto>> response = gymService.searchBookings(memberName, startDate, endDate, null, 50);
 
         // Then
         assertNull(response.getData(), "Response data should be null when an error occurs");
         assertEquals(ResponseConstants.DEFAULT_ERROR_MESSAGE, response.getMessage(), "Expected default error message");
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR.value(), response.getStatusCode(), "Expected HTTP status INTERNAL_SERVER_ERROR");
     }
-}
\ No newline at end of file
+
+    @Test
+    void bookClass_FullWithWaitlistRequested_JoinsWaitlist() {
+        bookingRequest.setJoinWaitlist(true);
+        when(gymClassRepository.findById(1L)).thenReturn(Optional.of(gymClass));
+        when(seatReservationService.tryReserve(gymClass, bookingRequest.getParticipationDate())).thenReturn(false);
+        when(waitlistService.join(gymClass, "John Doe", bookingRequest.getParticipationDate())).thenReturn(true);
+
+        GenericResponse<ClassBookingResponseDto> response = gymService.bookClass(bookingRequest);
+
+        assertEquals(HttpStatus.ACCEPTED.value(), response.getStatusCode());
+        assertEquals(ResponseConstants.WAITLIST_JOINED, response.getMessage());
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void cancelBooking_MembersWaiting_KeepsSeatForWaitlist() {
+        LocalDate participationDate = startDate.plusDays(2);
+        ClassBooking booking = new ClassBooking(5L, new Member(10L, "John Doe"), gymClass, participationDate);
+        when(bookingRepository.findById(5L)).thenReturn(Optional.of(booking));
+        when(waitlistService.hasWaiters(1L, participationDate)).thenReturn(true);
+
+        GenericResponse<Void> response = gymService.cancelBooking(5L);
+
+        assertEquals(HttpStatus.OK.value(), response.getStatusCode());
+        verify(bookingRepository).delete(booking);
+        verify(seatReservationService).release(gymClass, participationDate, true);
+        verify(waitlistService).seatFreed(1L, participationDate);
+        verify(eventPublisher).publishEvent(any(BookingCancelledEvent.class));
+    }
+
+    @Test
+    void cancelBooking_NoOneWaiting_ReturnsSeatToCounter() {
+        LocalDate participationDate = startDate.plusDays(2);
+        ClassBooking booking = new ClassBooking(5L, new Member(10L, "John Doe"), gymClass, participationDate);
+        when(bookingRepository.findById(5L)).thenReturn(Optional.of(booking));
+
+        gymService.cancelBooking(5L);
+
+        verify(seatReservationService).release(gymClass, participationDate, false);
+        verify(waitlistService, never()).seatFreed(any(), any());
+    }
+
+    @Test
+    void cancelBooking_UnknownBooking_ReturnsNotFound() {
+        when(bookingRepository.findById(5L)).thenReturn(Optional.empty());
+
+        GenericResponse<Void> response = gymService.cancelBooking(5L);
+
+        assertEquals(HttpStatus.NOT_FOUND.value(), response.getStatusCode());
+        assertEquals(ResponseConstants.ERROR_BOOKING_NOT_FOUND, response.getMessage());
+    }
+
+    @Test
+    void getAvailability_BookedDays_ReturnsRemainingSeatsForEveryDay() {
+        when(gymClassRepository.findById(1L)).thenReturn(Optional.of(gymClass));
+        when(bookingRepository.countBookingsPerDay(1L, startDate, startDate.plusDays(2))).thenReturn(List.of(
+                new DailyBookingCount(startDate, 10), new DailyBookingCount(startDate.plusDays(2), 60)));
+
+        GenericResponse<List<ClassAvailabilityDto>> response = gymService.getAvailability(1L, startDate, startDate.plusDays(2));
+
+        assertEquals(HttpStatus.OK.value(), response.getStatusCode());
+        assertEquals(List.of(
+                new ClassAvailabilityDto(startDate, 60, 10, 50),
+                new ClassAvailabilityDto(startDate.plusDays(1), 60, 0, 60),
+                new ClassAvailabilityDto(startDate.plusDays(2), 60, 60, 0)), response.getData());
+    }
+
+    @Test
+    void getAvailability_NoRange_DefaultsToClassSchedule() {
+        when(gymClassRepository.findById(1L)).thenReturn(Optional.of(gymClass));
+        when(bookingRepository.countBookingsPerDay(1L, startDate, endDate)).thenReturn(List.of());
+
+        GenericResponse<List<ClassAvailabilityDto>> response = gymService.getAvailability(1L, startDate.minusDays(30), null);
+
+        assertEquals(HttpStatus.OK.value(), response.getStatusCode());
+        assertEquals(startDate.datesUntil(endDate.plusDays(1)).count(), response.getData().size());
+        assertEquals(startDate, response.getData().getFirst().getDate());
+        assertEquals(endDate, response.getData().getLast().getDate());
+    }
+
+    @Test
+    void getAvailability_RangeOutsideSchedule_ReturnsBadRequest() {
+        when(gymClassRepository.findById(1L)).thenReturn(Optional.of(gymClass));
+
+        GenericResponse<List<ClassAvailabilityDto>> response = gymService.getAvailability(1L, endDate.plusDays(1), endDate.plusDays(5));
+
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatusCode());
+        assertEquals(ResponseConstants.ERROR_INVALID_AVAILABILITY_RANGE, response.getMessage());
+        verify(bookingRepository, never()).countBookingsPerDay(any(), any(), any());
+    }
+
+    @Test
+    void getAvailability_ClassNotFound_ReturnsNotFound() {
+        when(gymClassRepository.findById(1L)).thenReturn(Optional.empty());
+
+        GenericResponse<List<ClassAvailabilityDto>> response = gymService.getAvailability(1L, null, null);
+
+        assertEquals(HttpStatus.NOT_FOUND.value(), response.getStatusCode());
+        assertEquals(ResponseConstants.ERROR_CLASS_NOT_FOUND, response.getMessage());
+    }
+
+    private static ClassBookingResponseDto bookingRow(Long id, LocalDate participationDate) {
+        return ClassBookingResponseDto.builder()
+                .id(id)
+                .memberName("John Doe")
+                .gymClassId(1L)
+                .gymClassName("Yoga Class")
+                .participationDate(participationDate)
+                .build();
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.ignite.gymmanagement.index.MemberNameIndex;
+import com.ignite.gymmanagement.model.Member;
+import com.ignite.gymmanagement.repository.MemberRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class MemberServiceTest {
+
+    @Mock
+    private MemberRepository memberRepository;
+
+    @Mock
+    private MemberNameIndex memberNameIndex;
+
+    private MemberService memberService;
+
+    @BeforeEach
+    void setUp() {
+        TransactionSynchronizationManager.initSynchronization();
+        memberService = new MemberService(memberRepository, memberNameIndex, 100, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        endTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+    }
+
+    @Test
+    void resolve_KnownMember_IsCachedAfterFirstLookup() {
+        when(memberRepository.findByName("John Doe")).thenReturn(Optional.of(new Member(7L, "John Doe")));
+
+        assertEquals(7L, memberService.resolve("John Doe").getId());
+        commit();
+        Member cached = memberService.resolve("John Doe");
+
+        assertEquals(7L, cached.getId());
+        assertEquals("John Doe", cached.getName());
+        verify(memberRepository, times(1)).findByName("John Doe");
+        verify(memberRepository, never()).createIfAbsent(anyString());
+        verify(memberNameIndex).add("John Doe", 7L);
+    }
+
+    @Test
+    void resolve_NewMember_IsCreatedAndCachedOnceCommitted() {
+        when(memberRepository.findByName("Jane Doe")).thenReturn(Optional.empty(), Optional.of(new Member(8L, "Jane Doe")));
+        when(memberRepository.createIfAbsent("Jane Doe")).thenReturn(1);
+
+        assertEquals(8L, memberService.resolve("Jane Doe").getId());
+        verify(memberNameIndex, never()).add("Jane Doe", 8L);
+
+        commit();
+        memberService.resolve("Jane Doe");
+
+        verify(memberRepository, times(1)).createIfAbsent("Jane Doe");
+        verify(memberRepository, times(2)).findByName("Jane Doe");
+        verify(memberNameIndex).add("Jane Doe", 8L);
+    }
+
+    @Test
+    void resolve_NewMemberRolledBack_IsNotCached() {
+        when(memberRepository.findByName("Jane Doe")).thenReturn(Optional.empty(), Optional.of(new Member(8L, "Jane Doe")));
+        when(memberRepository.createIfAbsent("Jane Doe")).thenReturn(1);
+
+        memberService.resolve("Jane Doe");
+        endTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.initSynchronization();
+
+        when(memberRepository.findByName("Jane Doe")).thenReturn(Optional.empty(), Optional.of(new Member(9L, "Jane Doe")));
+        assertEquals(9L, memberService.resolve("Jane Doe").getId());
+        verify(memberRepository, times(2)).createIfAbsent("Jane Doe");
+    }
+
+    @Test
+    void resolve_CreatedConcurrently_UsesTheOtherMember() {
+        when(memberRepository.findByName("Jane Doe")).thenReturn(Optional.empty(), Optional.of(new Member(8L, "Jane Doe")));
+        when(memberRepository.createIfAbsent("Jane Doe")).thenReturn(0);
+
+        assertEquals(8L, memberService.resolve("Jane Doe").getId());
+        commit();
+
+        verify(memberNameIndex).add("Jane Doe", 8L);
+    }
+
+    @Test
+    void resolve_CreatedEarlierInTheTransaction_IsReusedButNotCachedBeforeCommit() {
+        when(memberRepository.findByName("Jane Doe")).thenReturn(Optional.empty(), Optional.of(new Member(8L, "Jane Doe")));
+        when(memberRepository.createIfAbsent("Jane Doe")).thenReturn(1);
+
+        memberService.resolve("Jane Doe");
+        assertEquals(8L, memberService.resolve("Jane Doe").getId());
+        verify(memberRepository, times(2)).findByName("Jane Doe");
+        verify(memberNameIndex, never()).add(anyString(), anyLong());
+
+        endTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.initSynchronization();
+        when(memberRepository.findByName("Jane Doe")).thenReturn(Optional.empty(), Optional.of(new Member(9L, "Jane Doe")));
+
+        assertEquals(9L, memberService.resolve("Jane Doe").getId());
+        verify(memberNameIndex, never()).add(anyString(), anyLong());
+    }
+
+    @Test
+    void resolve_WithoutTransactionSynchronization_IsCachedAtOnce() {
+        TransactionSynchronizationManager.clearSynchronization();
+        when(memberRepository.findByName("Kim Doe")).thenReturn(Optional.empty(), Optional.of(new Member(10L, "Kim Doe")));
+        when(memberRepository.createIfAbsent("Kim Doe")).thenReturn(1);
+
+        assertEquals(10L, memberService.resolve("Kim Doe").getId());
+        assertEquals(10L, memberService.resolve("Kim Doe").getId());
+
+        verify(memberRepository, times(1)).createIfAbsent("Kim Doe");
+        verify(memberNameIndex).add("Kim Doe", 10L);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    private void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        endTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    private void endTransaction(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCompletion(status));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ignite.gymmanagement.config.ResponseCacheProperties;
+import com.ignite.gymmanagement.dto.ClassBookingResponseDto;
+import com.ignite.gymmanagement.event.BookingCancelledEvent;
+import com.ignite.gymmanagement.event.BookingCreatedEvent;
+import com.ignite.gymmanagement.util.GenericResponse;
+import com.ignite.gymmanagement.util.ResponseConstants;
+import com.ignite.gymmanagement.util.ResponseUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheServiceTest {
+
+    private ResponseCacheService responseCacheService;
+    private AtomicInteger loads;
+    private LocalDate day;
+
+    @BeforeEach
+    void setUp() {
+        responseCacheService = new ResponseCacheService(new ObjectMapper().registerModule(new JavaTimeModule()),
+                new ResponseCacheProperties(DataSize.ofMegabytes(1), Duration.ofMinutes(1), Duration.ofHours(1)));
+        loads = new AtomicInteger();
+        day = LocalDate.now().plusDays(3);
+    }
+
+    @Test
+    void get_RepeatedQuery_SkipsLoader() {
+        ResponseCacheService.SerializedResponse first = responseCacheService.get("search|a", null, day, day, bookings());
+        ResponseCacheService.SerializedResponse second = responseCacheService.get("search|a", null, day, day, bookings());
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertNotNull(first.etag());
+        assertTrue(first.etag().startsWith("\"") && first.etag().endsWith("\""), "Strong ETag");
+    }
+
+    @Test
+    void get_ErrorResponse_NotCached() {
+        Supplier<GenericResponse<?>> failing = () -> {
+            loads.incrementAndGet();
+            return ResponseUtils.error(ResponseConstants.ERROR_INVALID_CURSOR, HttpStatus.BAD_REQUEST,
+                    ResponseConstants.BOOKING_ERROR_CODE);
+        };
+
+        ResponseCacheService.SerializedResponse response = responseCacheService.get("search|bad", null, null, null, failing);
+        responseCacheService.get("search|bad", null, null, null, failing);
+
+        assertEquals(400, response.statusCode());
+        assertNull(response.etag());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void onBookingCreated_EvictsOnlyResponsesCoveringTheBooking() {
+        responseCacheService.get("availability|1", 1L, day, day.plusDays(7), bookings());
+        responseCacheService.get("availability|2", 2L, day, day.plusDays(7), bookings());
+        responseCacheService.get("search|later", null, day.plusDays(1), day.plusDays(7), bookings());
+        responseCacheService.get("search|all", null, null, null, bookings());
+
+        responseCacheService.onBookingCreated(new BookingCreatedEvent(9L, 1L, "Jane Doe", day));
+
+        responseCacheService.get("availability|1", 1L, day, day.plusDays(7), bookings());
+        responseCacheService.get("availability|2", 2L, day, day.plusDays(7), bookings());
+        responseCacheService.get("search|later", null, day.plusDays(1), day.plusDays(7), bookings());
+        responseCacheService.get("search|all", null, null, null, bookings());
+        assertEquals(6, loads.get(), "Reloaded availability of class 1 and the unbounded search only");
+    }
+
+    @Test
+    void onBookingCreated_OtherMonthOrClass_LeavesIndexedResponses() {
+        responseCacheService.get("availability|1", 1L, day, day, bookings());
+        responseCacheService.get("availability|1|long", 1L, day.minusYears(3), day, bookings());
+        assertEquals(2, responseCacheService.indexedKeys());
+
+        responseCacheService.onBookingCreated(new BookingCreatedEvent(9L, 1L, "Jane Doe", day.plusMonths(2)));
+        responseCacheService.onBookingCreated(new BookingCreatedEvent(9L, 2L, "Jane Doe", day));
+        responseCacheService.get("availability|1", 1L, day, day, bookings());
+        responseCacheService.get("availability|1|long", 1L, day.minusYears(3), day, bookings());
+        assertEquals(2, loads.get());
+
+        responseCacheService.onBookingCreated(new BookingCreatedEvent(9L, 1L, "Jane Doe", day));
+        assertEquals(0, responseCacheService.indexedKeys(), "Evicted responses leave the index");
+    }
+
+    @Test
+    void get_RangeOverSeveralMonths_IndexedPerMonth() {
+        LocalDate firstOfMonth = day.withDayOfMonth(1);
+        responseCacheService.get("search|quarter", null, firstOfMonth, firstOfMonth.plusMonths(2), bookings());
+
+        assertEquals(3, responseCacheService.indexedKeys());
+        responseCacheService.onBookingCreated(new BookingCreatedEvent(9L, 1L, "Jane Doe", firstOfMonth.plusMonths(1)));
+        responseCacheService.get("search|quarter", null, firstOfMonth, firstOfMonth.plusMonths(2), bookings());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void onBookingCancelled_EvictsCoveringResponses() {
+        responseCacheService.get("search|a", null, day, day, bookings());
+
+        responseCacheService.onBookingCancelled(new BookingCancelledEvent(9L, 1L, "Jane Doe", day));
+        responseCacheService.get("search|a", null, day, day, bookings());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_Reloaded_KeepsETagOfUnchangedData() {
+        ResponseCacheService.SerializedResponse first = responseCacheService.get("search|a", null, day, day, bookings());
+        responseCacheService.onBookingCreated(new BookingCreatedEvent(9L, 1L, "Jane Doe", day));
+        ResponseCacheService.SerializedResponse reloaded = responseCacheService.get("search|a", null, day, day, bookings());
+
+        assertNotSame(first, reloaded);
+        assertEquals(first.etag(), reloaded.etag(), "The timestamp differs, the data does not");
+    }
+
+    @Test
+    void get_BookingCommittedDuringLoad_ResponseNotCached() {
+        Supplier<GenericResponse<?>> racingLoad = () -> {
+            GenericResponse<?> response = bookings().get();
+            responseCacheService.onBookingCreated(new BookingCreatedEvent(9L, 1L, "Jane Doe", day));
+            return response;
+        };
+
+        responseCacheService.get("search|a", null, day, day, racingLoad);
+        responseCacheService.get("search|a", null, day, day, bookings());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_PastDays_CachedDespiteBookings() {
+        LocalDate lastWeek = LocalDate.now().minusDays(7);
+        Supplier<GenericResponse<?>> racingLoad = () -> {
+            GenericResponse<?> response = bookings().get();
+            responseCacheService.onBookingCreated(new BookingCreatedEvent(9L, 1L, "Jane Doe", LocalDate.now()));
+            return response;
+        };
+
+        ResponseCacheService.SerializedResponse response =
+                responseCacheService.get("search|past", null, lastWeek, lastWeek.plusDays(1), racingLoad);
+        responseCacheService.get("search|past", null, lastWeek, lastWeek.plusDays(1), bookings());
+
+        assertTrue(response.pastOnly());
+        assertEquals(1, loads.get());
+    }
+
+    private Supplier<GenericResponse<?>> bookings() {
+        return () -> {
+            loads.incrementAndGet();
+            return ResponseUtils.success(List.of(ClassBookingResponseDto.builder()
+                    .id(1L)
+                    .memberName("John Doe")
+                    .gymClassId(1L)
+                    .participationDate(day)
+                    .build()), ResponseConstants.DEFAULT_SUCCESS_MESSAGE, HttpStatus.OK);
+        };
+    }
+}
@@ -0,0 +1,274 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.ignite.gymmanagement.model.ClassOccupancy;
+import com.ignite.gymmanagement.model.ClassOccupancyId;
+import com.ignite.gymmanagement.model.GymClass;
+import com.ignite.gymmanagement.repository.BookingRepository;
+import com.ignite.gymmanagement.repository.ClassOccupancyRepository;
+import com.ignite.gymmanagement.repository.WaitlistEntryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SeatReservationServiceTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private ClassOccupancyRepository classOccupancyRepository;
+
+    @Mock
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @InjectMocks
+    private SeatReservationService seatReservationService;
+
+    private GymClass gymClass;
+    private LocalDate participationDate;
+
+    @BeforeEach
+    void setUp() {
+        participationDate = LocalDate.now().plusDays(3);
+        gymClass = GymClass.builder()
+                .id(1L)
+                .name("Yoga Class")
+                .startDate(LocalDate.now())
+                .endDate(LocalDate.now().plusDays(30))
+                .duration(20)
+                .capacity(3)
+                .build();
+
+        when(classOccupancyRepository.reserveSeat(1L, participationDate)).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void tryReserve_SeedsOnceFromExistingBookings() {
+        when(bookingRepository.countByGymClassAndParticipationDate(gymClass, participationDate)).thenReturn(2L);
+
+        assertTrue(seatReservationService.tryReserve(gymClass, participationDate));
+        assertFalse(seatReservationService.tryReserve(gymClass, participationDate));
+
+        verify(bookingRepository, times(1)).countByGymClassAndParticipationDate(gymClass, participationDate);
+    }
+
+    @Test
+    void forget_SlotInRange_IsSeededAgainFromBookings() {
+        when(bookingRepository.countByGymClassAndParticipationDate(gymClass, participationDate)).thenReturn(3L, 2L);
+        assertFalse(seatReservationService.tryReserve(gymClass, participationDate));
+
+        seatReservationService.forget(participationDate.plusDays(1), participationDate.plusDays(2));
+        assertFalse(seatReservationService.tryReserve(gymClass, participationDate), "Outside the range");
+        seatReservationService.forget(participationDate, participationDate.plusDays(1));
+
+        assertTrue(seatReservationService.tryReserve(gymClass, participationDate));
+        verify(bookingRepository, times(2)).countByGymClassAndParticipationDate(gymClass, participationDate);
+    }
+
+    @Test
+    void forgetPastSlots_DropsCountersBeforeTodayOnly() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        when(classOccupancyRepository.reserveSeat(1L, yesterday)).thenReturn(1);
+        when(bookingRepository.countByGymClassAndParticipationDate(gymClass, yesterday)).thenReturn(0L);
+        when(bookingRepository.countByGymClassAndParticipationDate(gymClass, participationDate)).thenReturn(0L);
+        assertTrue(seatReservationService.tryReserve(gymClass, yesterday));
+        assertTrue(seatReservationService.tryReserve(gymClass, participationDate));
+
+        seatReservationService.forgetPastSlots();
+
+        assertTrue(seatReservationService.tryReserve(gymClass, yesterday));
+        assertTrue(seatReservationService.tryReserve(gymClass, participationDate));
+        verify(bookingRepository, times(2)).countByGymClassAndParticipationDate(gymClass, yesterday);
+        verify(bookingRepository, times(1)).countByGymClassAndParticipationDate(gymClass, participationDate);
+    }
+
+    @Test
+    void tryReserve_RolledBack_MakesSeatAvailableAgain() {
+        when(bookingRepository.countByGymClassAndParticipationDate(gymClass, participationDate)).thenReturn(2L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertTrue(seatReservationService.tryReserve(gymClass, participationDate));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertTrue(seatReservationService.tryReserve(gymClass, participationDate));
+    }
+
+    @Test
+    void tryReserve_FirstBookingOfDay_CreatesOccupancyRow() {
+        when(bookingRepository.countByGymClassAndParticipationDate(gymClass, participationDate)).thenReturn(0L);
+        when(classOccupancyRepository.reserveSeat(1L, participationDate)).thenReturn(0, 1);
+        when(classOccupancyRepository.createIfAbsent(1L, participationDate, 3)).thenReturn(1);
+
+        assertTrue(seatReservationService.tryReserve(gymClass, participationDate));
+        verify(classOccupancyRepository).createIfAbsent(1L, participationDate, 3);
+    }
+
+    @Test
+    void tryReserve_FullInDatabase_RejectsLocallyAfterwards() {
+        when(bookingRepository.countByGymClassAndParticipationDate(gymClass, participationDate)).thenReturn(0L);
+        when(classOccupancyRepository.reserveSeat(1L, participationDate)).thenReturn(0);
+
+        assertFalse(seatReservationService.tryReserve(gymClass, participationDate));
+        assertFalse(seatReservationService.tryReserve(gymClass, participationDate));
+
+        verify(classOccupancyRepository, times(2)).reserveSeat(1L, participationDate);
+    }
+
+    @Test
+    void tryReserve_EmptyCounter_FindsSeatFreedOnAnotherNode() {
+        when(bookingRepository.countByGymClassAndParticipationDate(gymClass, participationDate)).thenReturn(2L);
+        assertTrue(seatReservationService.tryReserve(gymClass, participationDate));
+
+        ClassOccupancyId id = new ClassOccupancyId(1L, participationDate);
+        when(classOccupancyRepository.findById(id)).thenReturn(Optional.of(new ClassOccupancy(id, 2, 3)));
+
+        assertTrue(seatReservationService.tryReserve(gymClass, participationDate));
+        assertFalse(seatReservationService.tryReserve(gymClass, participationDate), "Rechecked once per interval");
+        verify(classOccupancyRepository, times(1)).findById(id);
+    }
+
+    @Test
+    void tryReserve_JustRefusedByDatabase_WaitsForTheRecheckInterval() {
+        when(bookingRepository.countByGymClassAndParticipationDate(gymClass, participationDate)).thenReturn(0L);
+        when(classOccupancyRepository.reserveSeat(1L, participationDate)).thenReturn(0);
+        ClassOccupancyId id = new ClassOccupancyId(1L, participationDate);
+        when(classOccupancyRepository.findById(id)).thenReturn(Optional.of(new ClassOccupancy(id, 2, 3)));
+
+        assertFalse(seatReservationService.tryReserve(gymClass, participationDate));
+        assertFalse(seatReservationService.tryReserve(gymClass, participationDate));
+
+        verify(classOccupancyRepository, never()).findById(id);
+    }
+
+    @Test
+    void tryReserveSeats_GrantsOnlyWhatTheDatabaseHasLeft() {
+        gymClass.setCapacity(10);
+        when(bookingRepository.countByGymClassAndParticipationDate(gymClass, participationDate)).thenReturn(0L);
+        ClassOccupancyId id = new ClassOccupancyId(1L, participationDate);
+        ClassOccupancy occupancy = new ClassOccupancy(id, 7, 10);
+        when(classOccupancyRepository.findForUpdate(id)).thenReturn(Optional.of(occupancy));
+
+        assertEquals(3, seatReservationService.tryReserve(gymClass, participationDate, 5));
+        assertEquals(10, occupancy.getBooked());
+        assertEquals(0, seatReservationService.tryReserve(gymClass, participationDate, 1));
+    }
+
+    @Test
+    void release_Committed_ReturnsSeatToCounter() {
+        when(bookingRepository.countByGymClassAndParticipationDate(gymClass, participationDate)).thenReturn(2L);
+        assertTrue(seatReservationService.tryReserve(gymClass, participationDate));
+        assertFalse(seatReservationService.tryReserve(gymClass, participationDate));
+
+        TransactionSynchronizationManager.initSynchronization();
+        seatReservationService.release(gymClass, participationDate, false);
+        assertFalse(seatReservationService.tryReserve(gymClass, participationDate), "Seat comes back only on commit");
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertTrue(seatReservationService.tryReserve(gymClass, participationDate));
+        verify(classOccupancyRepository).releaseSeat(1L, participationDate);
+    }
+
+    @Test
+    void release_KeptForWaitlist_OnlyTheWaitlistGetsTheSeat() {
+        when(bookingRepository.countByGymClassAndParticipationDate(gymClass, participationDate)).thenReturn(3L);
+        assertFalse(seatReservationService.tryReserve(gymClass, participationDate));
+
+        TransactionSynchronizationManager.initSynchronization();
+        seatReservationService.release(gymClass, participationDate, true);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertFalse(seatReservationService.tryReserve(gymClass, participationDate));
+
+        ClassOccupancyId id = new ClassOccupancyId(1L, participationDate);
+        when(classOccupancyRepository.findForUpdate(id)).thenReturn(Optional.of(new ClassOccupancy(id, 2, 3)));
+        assertEquals(1, seatReservationService.reserveForWaitlist(gymClass, participationDate, 4));
+    }
+
+    @Test
+    void release_KeptForWaitlist_IsNotRefilledIntoTheCounter() throws InterruptedException {
+        when(bookingRepository.countByGymClassAndParticipationDate(gymClass, participationDate)).thenReturn(3L);
+        TransactionSynchronizationManager.initSynchronization();
+        assertFalse(seatReservationService.tryReserve(gymClass, participationDate));
+
+        // A booking is cancelled while a member waits for the session
+        ClassOccupancyId id = new ClassOccupancyId(1L, participationDate);
+        when(classOccupancyRepository.findById(id)).thenReturn(Optional.of(new ClassOccupancy(id, 2, 3)));
+        when(waitlistEntryRepository.countWaiting(1L, participationDate)).thenReturn(1L);
+        seatReservationService.release(gymClass, participationDate, true);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        Thread.sleep(SeatReservationService.RECHECK_INTERVAL.toMillis() + 100);
+
+        assertFalse(seatReservationService.tryReserve(gymClass, participationDate));
+        verify(classOccupancyRepository, times(2)).findById(id);
+        verify(classOccupancyRepository, never()).reserveSeat(1L, participationDate);
+    }
+
+    @Test
+    void tryReserve_SeededWhileMembersWait_LeavesTheirSeats() {
+        when(bookingRepository.countByGymClassAndParticipationDate(gymClass, participationDate)).thenReturn(1L);
+        when(waitlistEntryRepository.countWaiting(1L, participationDate)).thenReturn(1L);
+
+        assertTrue(seatReservationService.tryReserve(gymClass, participationDate));
+        assertFalse(seatReservationService.tryReserve(gymClass, participationDate));
+    }
+
+    @Test
+    void tryReserve_ConcurrentBookers_NeverExceedCapacity() throws Exception {
+        gymClass.setCapacity(50);
+        when(bookingRepository.countByGymClassAndParticipationDate(gymClass, participationDate)).thenReturn(0L);
+
+        List<Callable<Boolean>> bookers = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            bookers.add(() -> seatReservationService.tryReserve(gymClass, participationDate));
+        }
+
+        int reserved = 0;
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (Future<Boolean> result : executor.invokeAll(bookers)) {
+                if (result.get()) {
+                    reserved++;
+                }
+            }
+        }
+
+        assertEquals(50, reserved, "Exactly the class capacity should be reserved");
+        verify(bookingRepository, times(1)).countByGymClassAndParticipationDate(gymClass, participationDate);
+    }
+}
@@ -0,0 +1,241 @@
+/**
+ * Author: Raju Khunt
+ * Created by: rajukhunt on Date:17/10/26
+ */
+
+package com.ignite.gymmanagement.service;
+
+import com.ignite.gymmanagement.config.WaitlistProperties;
+import com.ignite.gymmanagement.model.ClassBooking;
+import com.ignite.gymmanagement.model.GymClass;
+import com.ignite.gymmanagement.model.Member;
+import com.ignite.gymmanagement.model.WaitlistEntry;
+import com.ignite.gymmanagement.repository.BookingRepository;
+import com.ignite.gymmanagement.repository.GymClassRepository;
+import com.ignite.gymmanagement.repository.WaitlistEntryRepository;
+import com.ignite.gymmanagement.repository.WaitlistSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class WaitlistServiceTest {
+
+    @Mock
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Mock
+    private GymClassRepository gymClassRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private SeatReservationService seatReservationService;
+
+    @Mock
+    private MemberService memberService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private WaitlistService waitlistService;
+    private GymClass gymClass;
+    private LocalDate participationDate;
+    private BookingSlot slot;
+
+    @BeforeEach
+    void setUp() {
+        participationDate = LocalDate.now().plusDays(3);
+        slot = new BookingSlot(1L, participationDate);
+        gymClass = GymClass.builder()
+                .id(1L)
+                .name("Yoga Class")
+                .startDate(LocalDate.now())
+                .endDate(LocalDate.now().plusDays(30))
+                .duration(20)
+                .capacity(10)
+                .build();
+
+        when(gymClassRepository.findById(1L)).thenReturn(Optional.of(gymClass));
+        when(bookingRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(memberService.resolve(any())).thenAnswer(invocation -> new Member(10L, invocation.getArgument(0)));
+
+        waitlistService = new WaitlistService(waitlistEntryRepository, gymClassRepository, bookingRepository,
+                seatReservationService, memberService, eventPublisher, transactionManager,
+                new WaitlistProperties(Duration.ofSeconds(1), 2, Duration.ofHours(1)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void join_Committed_QueuesMember() {
+        when(waitlistEntryRepository.saveAndFlush(any(WaitlistEntry.class))).thenAnswer(invocation -> {
+            WaitlistEntry entry = invocation.getArgument(0);
+            entry.setId(7L);
+            return entry;
+        });
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertTrue(waitlistService.join(gymClass, "John Doe", participationDate));
+        assertFalse(waitlistService.hasWaiters(1L, participationDate), "Queued only once the entry is committed");
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertTrue(waitlistService.hasWaiters(1L, participationDate));
+    }
+
+    @Test
+    void join_AlreadyWaiting_ReturnsFalse() {
+        when(waitlistEntryRepository.existsByGymClassAndParticipationDateAndMemberName(gymClass, participationDate, "John Doe"))
+                .thenReturn(true);
+
+        assertFalse(waitlistService.join(gymClass, "John Doe", participationDate));
+        verify(waitlistEntryRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void promote_SeatsFreed_BooksLongestWaitingFirst() {
+        loadWaitingSession();
+        when(waitlistEntryRepository.lockNextWaiting(1L, participationDate, 2))
+                .thenReturn(entries("Alice", "Bob"), entries("Bob", "Carol"));
+        when(seatReservationService.reserveForWaitlist(gymClass, participationDate, 2)).thenReturn(1, 2);
+
+        assertEquals(1, waitlistService.promote(List.of(slot)));
+        assertEquals(List.of("Alice"), savedMemberNames(1));
+        verify(waitlistEntryRepository).deleteByIds(List.of(1L));
+        assertTrue(waitlistService.hasWaiters(1L, participationDate));
+
+        assertEquals(2, waitlistService.promote(List.of(slot)));
+        assertEquals(List.of("Bob", "Carol"), savedMemberNames(2));
+        verify(eventPublisher, times(3)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void promote_LastWaitersBooked_ForgetsTheSession() {
+        loadWaitingSession();
+        when(waitlistEntryRepository.lockNextWaiting(1L, participationDate, 2)).thenReturn(entries("Alice"));
+        when(seatReservationService.reserveForWaitlist(gymClass, participationDate, 1)).thenReturn(1);
+
+        assertEquals(1, waitlistService.promote(List.of(slot)));
+        assertFalse(waitlistService.hasWaiters(1L, participationDate));
+    }
+
+    @Test
+    void promote_EntriesClaimedByAnotherNode_BooksNobody() {
+        loadWaitingSession();
+        when(waitlistEntryRepository.lockNextWaiting(1L, participationDate, 2)).thenReturn(List.of());
+
+        assertEquals(0, waitlistService.promote(List.of(slot)));
+        verify(seatReservationService, never()).reserveForWaitlist(any(), any(), anyInt());
+        verify(bookingRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void promote_FewerEntriesDeletedThanClaimed_RollsBack() {
+        loadWaitingSession();
+        when(waitlistEntryRepository.lockNextWaiting(1L, participationDate, 2)).thenReturn(entries("Alice"));
+        when(seatReservationService.reserveForWaitlist(gymClass, participationDate, 1)).thenReturn(1);
+        when(waitlistEntryRepository.deleteByIds(List.of(1L))).thenReturn(0);
+
+        assertEquals(0, waitlistService.promote(List.of(slot)));
+        verify(bookingRepository, never()).saveAll(anyList());
+        verify(transactionManager).rollback(any());
+        assertTrue(waitlistService.hasWaiters(1L, participationDate));
+    }
+
+    @Test
+    void promote_NoSeatFree_KeepsWaitlist() {
+        loadWaitingSession();
+        when(waitlistEntryRepository.lockNextWaiting(1L, participationDate, 2)).thenReturn(entries("Alice"));
+        when(seatReservationService.reserveForWaitlist(gymClass, participationDate, 1)).thenReturn(0);
+
+        assertEquals(0, waitlistService.promote(List.of(slot)));
+        verify(bookingRepository, never()).saveAll(anyList());
+        assertTrue(waitlistService.hasWaiters(1L, participationDate));
+    }
+
+    @Test
+    void promote_TransactionFails_KeepsWaitersForTheNextRun() {
+        loadWaitingSession();
+        when(waitlistEntryRepository.lockNextWaiting(1L, participationDate, 2)).thenReturn(entries("Alice"));
+        when(seatReservationService.reserveForWaitlist(gymClass, participationDate, 1)).thenReturn(1);
+        when(bookingRepository.saveAll(anyList())).thenThrow(new IllegalStateException("Database down"));
+
+        assertEquals(0, waitlistService.promote(List.of(slot)));
+        verify(transactionManager).rollback(any());
+        assertTrue(waitlistService.hasWaiters(1L, participationDate));
+    }
+
+    @Test
+    void promoteWaiters_PastSession_DropsItsWaitlist() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        when(waitlistEntryRepository.findWaitingSessions(any())).thenReturn(List.of(new WaitlistSession(1L, yesterday)));
+        waitlistService.load();
+
+        waitlistService.promoteWaiters();
+
+        verify(waitlistEntryRepository).deletePast(LocalDate.now());
+        verify(seatReservationService, never()).reserveForWaitlist(any(), any(), anyInt());
+        assertFalse(waitlistService.hasWaiters(1L, yesterday));
+    }
+
+    private void loadWaitingSession() {
+        when(waitlistEntryRepository.findWaitingSessions(any())).thenReturn(List.of(new WaitlistSession(1L, participationDate)));
+        when(waitlistEntryRepository.deleteByIds(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+        waitlistService.load();
+    }
+
+    private List<WaitlistEntry> entries(String... memberNames) {
+        List<WaitlistEntry> entries = new ArrayList<>();
+        for (String memberName : memberNames) {
+            entries.add(WaitlistEntry.builder()
+                    .id(memberName.charAt(0) - 'A' + 1L)
+                    .memberName(memberName)
+                    .gymClass(gymClass)
+                    .participationDate(participationDate)
+                    .build());
+        }
+        return entries;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> savedMemberNames(int calls) {
+        ArgumentCaptor<List<ClassBooking>> bookings = ArgumentCaptor.forClass(List.class);
+        verify(bookingRepository, times(calls)).saveAll(bookings.capture());
+        return bookings.getValue().stream().map(booking -> booking.getMember().getName()).toList();
+    }
+}